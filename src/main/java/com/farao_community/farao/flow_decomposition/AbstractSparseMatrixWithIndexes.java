@@ -14,10 +14,10 @@ import java.util.Map;
  */
 abstract class AbstractSparseMatrixWithIndexes {
     private static final boolean DO_NOT_FILL_ZEROS = false;
-    protected final Map<String, Integer> rowIndex;
-    protected final Map<String, Integer> colIndex;
+    protected final IdIndex rowIndex;
+    protected final IdIndex colIndex;
 
-    protected AbstractSparseMatrixWithIndexes(Map<String, Integer> rowIndex, Map<String, Integer> colIndex) {
+    protected AbstractSparseMatrixWithIndexes(IdIndex rowIndex, IdIndex colIndex) {
         this.rowIndex = rowIndex;
         this.colIndex = colIndex;
     }
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+/**
+ * Threads running the stages of a {@link FlowDecompositionBatchRunner}.
+ * Decompositions always run on a fixed pool of platform threads.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+public enum BatchExecutionMode {
+    /**
+     * Imports run on a fixed pool of platform threads, exports on a single platform thread.
+     */
+    PLATFORM_THREADS,
+    /**
+     * Imports and exports run on one virtual thread per task, so that I/O latency never holds a platform thread.
+     * On runtimes without virtual threads, they run on a cached pool of platform threads instead.
+     */
+    VIRTUAL_IO_THREADS
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.computation.*;
+import com.powsybl.computation.local.LocalComputationManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Computation manager running asynchronous tasks in the calling thread, delegating everything else to the
+ * process-wide default one, so that no computation manager is created per sensitivity batch.
+ * When variant multi-thread access is allowed, the working variant is only set for the calling thread,
+ * so computations reading the network must not be handed over to another thread.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class CallerThreadComputationManager implements ComputationManager {
+    private static final Executor CALLER_THREAD_EXECUTOR = Runnable::run;
+    private final ComputationManager delegate;
+
+    CallerThreadComputationManager() {
+        this.delegate = LocalComputationManager.getDefault();
+    }
+
+    @Override
+    public String getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public OutputStream newCommonFile(String fileName) throws IOException {
+        return delegate.newCommonFile(fileName);
+    }
+
+    @Override
+    public <R> CompletableFuture<R> execute(ExecutionEnvironment environment, ExecutionHandler<R> handler) {
+        return delegate.execute(environment, handler);
+    }
+
+    @Override
+    public <R> CompletableFuture<R> execute(ExecutionEnvironment environment, ExecutionHandler<R> handler, ComputationParameters parameters) {
+        return delegate.execute(environment, handler, parameters);
+    }
+
+    @Override
+    public ComputationResourcesStatus getResourcesStatus() {
+        return delegate.getResourcesStatus();
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return CALLER_THREAD_EXECUTOR;
+    }
+
+    @Override
+    public Path getLocalDir() {
+        return delegate.getLocalDir();
+    }
+
+    @Override
+    public void close() {
+        // The default computation manager is shared and is not closed here
+    }
+}
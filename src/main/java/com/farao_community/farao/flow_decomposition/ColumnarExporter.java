@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.DoubleStream;
+
+/**
+ * Exports flow decomposition results as columnar tables, one directory per table, see {@link ColumnarTable} for the layout.
+ * <ul>
+ *     <li>{@code decomposed_flows}: one row per XNEC, with the XNEC id as a dictionary column
+ *     and one double column per flow component, each zone's loop flow included.</li>
+ *     <li>{@code ptdf}, {@code psdf}, {@code hvdc_sensitivities} and {@code nodal_injections}: non-zero entries of the retained
+ *     sparse intermediates, as {@code row}, {@code column} dictionary columns and a {@code value} double column.</li>
+ *     <li>{@code dc_nodal_injections}: one row per node, if retained.</li>
+ *     <li>{@code zonal_ptdf}: one row per XNEC, with the XNEC id as a dictionary column and one double column per zone, if retained.</li>
+ * </ul>
+ * The layout is specific to this library and only read back by {@link ColumnarTable.Reader}, not by analytics tools,
+ * so this exporter stays package-private until an Arrow or Parquet writer is available.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class ColumnarExporter {
+    static final String DECOMPOSED_FLOWS_TABLE = "decomposed_flows";
+    static final String PTDF_TABLE = "ptdf";
+    static final String PSDF_TABLE = "psdf";
+    static final String HVDC_SENSITIVITIES_TABLE = "hvdc_sensitivities";
+    static final String NODAL_INJECTIONS_TABLE = "nodal_injections";
+    static final String DC_NODAL_INJECTIONS_TABLE = "dc_nodal_injections";
+    static final String ZONAL_PTDF_TABLE = "zonal_ptdf";
+    static final String XNEC_COLUMN_NAME = "XNEC";
+    static final String NODE_COLUMN_NAME = "Node";
+    static final String ROW_COLUMN_NAME = "row";
+    static final String COLUMN_COLUMN_NAME = "column";
+    static final String VALUE_COLUMN_NAME = "value";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ColumnarExporter.class);
+
+    /**
+     * Exports the rescaled decomposed flows only.
+     */
+    void export(Path dirPath, FlowDecompositionResults flowDecompositionResults) {
+        export(dirPath, flowDecompositionResults, false);
+    }
+
+    /**
+     * @param exportIntermediates Also export the intermediates retained in the results
+     */
+    void export(Path dirPath, FlowDecompositionResults flowDecompositionResults, boolean exportIntermediates) {
+        Path resultsDir = dirPath.resolve(flowDecompositionResults.getId());
+        LOGGER.info("Saving columnar flow decomposition (id: {}) of network {} in directory {}",
+            flowDecompositionResults.getId(), flowDecompositionResults.getNetworkId(), resultsDir);
+        exportDecomposedFlows(resultsDir.resolve(DECOMPOSED_FLOWS_TABLE), flowDecompositionResults.getDecomposedFlowMap());
+        if (exportIntermediates) {
+            flowDecompositionResults.getPtdfMatrix().ifPresent(matrix -> exportSparseMatrix(resultsDir.resolve(PTDF_TABLE), matrix));
+            flowDecompositionResults.getPsdfMatrix().ifPresent(matrix -> exportSparseMatrix(resultsDir.resolve(PSDF_TABLE), matrix));
+            flowDecompositionResults.getHvdcSensitivityMatrix().ifPresent(matrix -> exportSparseMatrix(resultsDir.resolve(HVDC_SENSITIVITIES_TABLE), matrix));
+            flowDecompositionResults.getAllocatedAndLoopFlowNodalInjectionsMatrix().ifPresent(matrix -> exportSparseMatrix(resultsDir.resolve(NODAL_INJECTIONS_TABLE), matrix));
+            flowDecompositionResults.getDcNodalInjectionsMap().ifPresent(dcNodalInjections -> exportDcNodalInjections(resultsDir.resolve(DC_NODAL_INJECTIONS_TABLE), dcNodalInjections));
+            flowDecompositionResults.getZonalPtdfDenseMatrix().ifPresent(matrix -> exportDenseMatrix(resultsDir.resolve(ZONAL_PTDF_TABLE), matrix));
+        }
+    }
+
+    private static void exportDecomposedFlows(Path tableDir, Map<String, DecomposedFlow> decomposedFlowMap) {
+        List<String> xnecIds = new ArrayList<>(decomposedFlowMap.keySet());
+        List<DecomposedFlow> decomposedFlows = new ArrayList<>(decomposedFlowMap.values());
+        SortedSet<String> loopFlowKeys = new TreeSet<>();
+        decomposedFlows.forEach(decomposedFlow -> loopFlowKeys.addAll(decomposedFlow.getLoopFlows().keySet()));
+        try (ColumnarTable.Writer writer = new ColumnarTable.Writer(tableDir, xnecIds.size())) {
+            writer.writeDictionaryColumn(XNEC_COLUMN_NAME, xnecIds);
+            writer.writeDoubleColumn(DecomposedFlow.ALLOCATED_COLUMN_NAME, decomposedFlows.stream().mapToDouble(DecomposedFlow::getAllocatedFlow).toArray());
+            writer.writeDoubleColumn(DecomposedFlow.PST_COLUMN_NAME, decomposedFlows.stream().mapToDouble(DecomposedFlow::getPstFlow).toArray());
+            writer.writeDoubleColumn(DecomposedFlow.HVDC_COLUMN_NAME, decomposedFlows.stream().mapToDouble(DecomposedFlow::getHvdcFlow).toArray());
+            loopFlowKeys.forEach(loopFlowKey -> writer.writeDoubleColumn(loopFlowKey, decomposedFlows.stream()
+                .mapToDouble(decomposedFlow -> decomposedFlow.getLoopFlows().getOrDefault(loopFlowKey, DecomposedFlow.DEFAULT_FLOW)).toArray()));
+            writer.writeDoubleColumn(DecomposedFlow.AC_REFERENCE_FLOW_COLUMN_NAME, decomposedFlows.stream().mapToDouble(DecomposedFlow::getAcReferenceFlow).toArray());
+            writer.writeDoubleColumn(DecomposedFlow.DC_REFERENCE_FLOW_COLUMN_NAME, decomposedFlows.stream().mapToDouble(DecomposedFlow::getDcReferenceFlow).toArray());
+        }
+    }
+
+    private static void exportSparseMatrix(Path tableDir, SparseMatrixView matrix) {
+        List<String> rowIds = new ArrayList<>(matrix.getNonZeroCount());
+        List<String> columnIds = new ArrayList<>(matrix.getNonZeroCount());
+        DoubleStream.Builder valueBuilder = DoubleStream.builder();
+        matrix.forEachNonZero((rowId, columnId, value) -> {
+            rowIds.add(rowId);
+            columnIds.add(columnId);
+            valueBuilder.add(value);
+        });
+        double[] values = valueBuilder.build().toArray();
+        try (ColumnarTable.Writer writer = new ColumnarTable.Writer(tableDir, values.length)) {
+            writer.writeDictionaryColumn(ROW_COLUMN_NAME, rowIds);
+            writer.writeDictionaryColumn(COLUMN_COLUMN_NAME, columnIds);
+            writer.writeDoubleColumn(VALUE_COLUMN_NAME, values);
+        }
+    }
+
+    private static void exportDenseMatrix(Path tableDir, DenseMatrixWithIndexes matrix) {
+        List<String> columnIds = matrix.getColumnIds();
+        try (ColumnarTable.Writer writer = new ColumnarTable.Writer(tableDir, matrix.getRowIds().size())) {
+            writer.writeDictionaryColumn(XNEC_COLUMN_NAME, matrix.getRowIds());
+            for (int column = 0; column < columnIds.size(); column++) {
+                writer.writeDoubleColumn(columnIds.get(column), matrix.getColumnValues(column));
+            }
+        }
+    }
+
+    private static void exportDcNodalInjections(Path tableDir, Map<String, Double> dcNodalInjections) {
+        Map<String, Double> sortedDcNodalInjections = new TreeMap<>(dcNodalInjections);
+        try (ColumnarTable.Writer writer = new ColumnarTable.Writer(tableDir, sortedDcNodalInjections.size())) {
+            writer.writeDictionaryColumn(NODE_COLUMN_NAME, new ArrayList<>(sortedDcNodalInjections.keySet()));
+            writer.writeDoubleColumn(VALUE_COLUMN_NAME, sortedDcNodalInjections.values().stream().mapToDouble(Double::doubleValue).toArray());
+        }
+    }
+}
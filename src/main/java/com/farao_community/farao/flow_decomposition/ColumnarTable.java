@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Table stored column by column in a directory, so that a single column can be read without scanning the others.
+ * <ul>
+ *     <li>{@code schema.csv} lists the columns, in order, with their type and the row count of the table.
+ *     Column names, which may be any string such as a zone id, only appear there.</li>
+ *     <li>Files of a column are named after its ordinal in the schema, starting from 0.</li>
+ *     <li>A {@link #DOUBLE} column is stored in {@code <ordinal>.f64} as little-endian IEEE 754 doubles.</li>
+ *     <li>A {@link #DICTIONARY} column is stored as distinct values in {@code <ordinal>.dict}, one UTF-8 value per line,
+ *     and as little-endian 32-bit indexes in this dictionary, one per row, in {@code <ordinal>.i32}.</li>
+ * </ul>
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class ColumnarTable {
+    static final String SCHEMA_FILE_NAME = "schema.csv";
+    static final String DOUBLE = "DOUBLE";
+    static final String DICTIONARY = "DICTIONARY";
+    private static final String DOUBLE_EXTENSION = ".f64";
+    private static final String DICTIONARY_EXTENSION = ".dict";
+    private static final String INDEX_EXTENSION = ".i32";
+    private static final String[] SCHEMA_HEADER = {"column", "type", "rows"};
+
+    private ColumnarTable() {
+    }
+
+    /**
+     * Writes the columns of a table one after the other, then its schema when closed.
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path tableDir;
+        private final int rowCount;
+        private final Map<String, String> columnTypes = new LinkedHashMap<>();
+
+        Writer(Path tableDir, int rowCount) {
+            this.tableDir = tableDir;
+            this.rowCount = rowCount;
+            try {
+                Files.createDirectories(tableDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeDoubleColumn(String column, double[] values) {
+            int ordinal = checkColumn(column, values.length, DOUBLE);
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asDoubleBuffer().put(values);
+            write(tableDir.resolve(ordinal + DOUBLE_EXTENSION), buffer.array());
+        }
+
+        void writeDictionaryColumn(String column, List<String> values) {
+            int ordinal = checkColumn(column, values.size(), DICTIONARY);
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            ByteBuffer buffer = ByteBuffer.allocate(values.size() * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            values.forEach(value -> buffer.putInt(dictionary.computeIfAbsent(value, key -> dictionary.size())));
+            write(tableDir.resolve(ordinal + INDEX_EXTENSION), buffer.array());
+            try {
+                Files.write(tableDir.resolve(ordinal + DICTIONARY_EXTENSION), dictionary.keySet(), CsvExporter.CHARSET);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return Ordinal of the new column
+         */
+        private int checkColumn(String column, int size, String type) {
+            if (size != rowCount) {
+                throw new IllegalArgumentException(String.format("Column %s has %d rows instead of %d", column, size, rowCount));
+            }
+            if (columnTypes.putIfAbsent(column, type) != null) {
+                throw new IllegalArgumentException(String.format("Column %s is written twice", column));
+            }
+            return columnTypes.size() - 1;
+        }
+
+        private static void write(Path path, byte[] bytes) {
+            try {
+                Files.write(path, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try (
+                BufferedWriter writer = Files.newBufferedWriter(tableDir.resolve(SCHEMA_FILE_NAME), CsvExporter.CHARSET);
+                CSVPrinter printer = new CSVPrinter(writer, CsvExporter.FORMAT)
+            ) {
+                printer.printRecord((Object[]) SCHEMA_HEADER);
+                for (Map.Entry<String, String> columnType : columnTypes.entrySet()) {
+                    printer.printRecord(columnType.getKey(), columnType.getValue(), rowCount);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Reads single columns of a table written by a {@link Writer}.
+     */
+    static final class Reader {
+        private final Path tableDir;
+        private final Map<String, String> columnTypes = new LinkedHashMap<>();
+        private final int rowCount;
+
+        Reader(Path tableDir) {
+            this.tableDir = tableDir;
+            int rows = 0;
+            try (java.io.Reader reader = Files.newBufferedReader(tableDir.resolve(SCHEMA_FILE_NAME), CsvExporter.CHARSET)) {
+                for (CSVRecord csvRecord : CsvExporter.FORMAT.builder().setHeader().setSkipHeaderRecord(true).build().parse(reader)) {
+                    columnTypes.put(csvRecord.get(0), csvRecord.get(1));
+                    rows = Integer.parseInt(csvRecord.get(2));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.rowCount = rows;
+        }
+
+        List<String> getColumns() {
+            return new ArrayList<>(columnTypes.keySet());
+        }
+
+        String getColumnType(String column) {
+            return columnTypes.get(column);
+        }
+
+        int getRowCount() {
+            return rowCount;
+        }
+
+        private int getOrdinal(String column) {
+            int ordinal = getColumns().indexOf(column);
+            if (ordinal < 0) {
+                throw new IllegalArgumentException(String.format("Column %s does not exist", column));
+            }
+            return ordinal;
+        }
+
+        double[] readDoubleColumn(String column) {
+            int ordinal = getOrdinal(column);
+            double[] values = new double[rowCount];
+            read(tableDir.resolve(ordinal + DOUBLE_EXTENSION)).asDoubleBuffer().get(values);
+            return values;
+        }
+
+        List<String> readDictionaryColumn(String column) {
+            int ordinal = getOrdinal(column);
+            List<String> dictionary;
+            try {
+                dictionary = Files.readAllLines(tableDir.resolve(ordinal + DICTIONARY_EXTENSION), CsvExporter.CHARSET);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ByteBuffer indexes = read(tableDir.resolve(ordinal + INDEX_EXTENSION));
+            List<String> values = new ArrayList<>(rowCount);
+            for (int row = 0; row < rowCount; row++) {
+                values.add(dictionary.get(indexes.getInt()));
+            }
+            return values;
+        }
+
+        private static ByteBuffer read(Path path) {
+            try {
+                return ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
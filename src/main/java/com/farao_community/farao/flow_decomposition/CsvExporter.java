@@ -19,8 +19,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
@@ -33,6 +35,7 @@ public class CsvExporter {
     public static final CSVFormat FORMAT = CSVFormat.RFC4180;
     private static final Logger LOGGER = LoggerFactory.getLogger(CsvExporter.class);
     public static final String EMPTY_CELL_VALUE = "";
+    public static final String ZONAL_PTDF_SUFFIX = "_zonal_ptdf";
 
     public void export(FlowDecompositionResults flowDecompositionResults) {
         export(DEFAULT_EXPORT_DIR, flowDecompositionResults);
@@ -42,6 +45,31 @@ public class CsvExporter {
         LOGGER.info("Saving rescaled flow decomposition (id: {}) of network {} in directory {}",
             flowDecompositionResults.getId(), flowDecompositionResults.getNetworkId(), dirPath);
         export(dirPath, flowDecompositionResults.getId(), flowDecompositionResults.getDecomposedFlowMap());
+        flowDecompositionResults.getZonalPtdfMap().ifPresent(zonalPtdfMap ->
+            exportZonalPtdfs(Paths.get(dirPath.toString(), flowDecompositionResults.getId() + ZONAL_PTDF_SUFFIX + ".csv"), zonalPtdfMap));
+    }
+
+    /**
+     * Writes one row per XNEC and one column per zone.
+     */
+    private void exportZonalPtdfs(Path path, Map<String, Map<String, Double>> zonalPtdfMap) {
+        Set<String> zones = new TreeSet<>();
+        zonalPtdfMap.values().forEach(zonalPtdfs -> zones.addAll(zonalPtdfs.keySet()));
+        try (
+            BufferedWriter writer = Files.newBufferedWriter(path, CHARSET);
+            CSVPrinter printer = new CSVPrinter(writer, FORMAT)
+        ) {
+            failSilentlyPrint(printer, EMPTY_CELL_VALUE);
+            zones.forEach(zone -> failSilentlyPrint(printer, zone));
+            failSilentlyPrintLn(printer);
+            zonalPtdfMap.forEach((xnecId, zonalPtdfs) -> {
+                failSilentlyPrint(printer, xnecId);
+                zones.forEach(zone -> failSilentlyPrint(printer, zonalPtdfs.getOrDefault(zone, 0.)));
+                failSilentlyPrintLn(printer);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     void export(Path dirPath, String basename, Map<String, DecomposedFlow> decomposedFlowMap) {
@@ -58,6 +86,43 @@ public class CsvExporter {
         }
     }
 
+    /**
+     * @param path CSV file to write, opened when the decomposition starts and closed at its end
+     * @return A sink writing each decomposed flow as a CSV row as soon as it is received
+     */
+    public DecomposedFlowSink createSink(Path path) {
+        return new DecomposedFlowSink() {
+            private CSVPrinter printer;
+            private Set<String> allLoopFlowKeys;
+
+            @Override
+            public void start(String networkId, List<String> loopFlowIds) {
+                LOGGER.info("Streaming flow decomposition of network {} to {}", networkId, path);
+                try {
+                    printer = new CSVPrinter(Files.newBufferedWriter(path, CHARSET), FORMAT);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                allLoopFlowKeys = new TreeSet<>(loopFlowIds);
+                printHeaderRow(allLoopFlowKeys, printer);
+            }
+
+            @Override
+            public void accept(String xnecId, DecomposedFlow decomposedFlow) {
+                printContentRow(xnecId, decomposedFlow, allLoopFlowKeys, printer);
+            }
+
+            @Override
+            public void end() {
+                try {
+                    printer.close(true);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
     private Set<String> aggregateAllLoopFlowKeys(Map<String, DecomposedFlow> decomposedFlowMap) {
         return decomposedFlowMap.values().stream().flatMap(decomposedFlow -> decomposedFlow.getLoopFlows().keySet().stream()).collect(Collectors.toSet());
     }
@@ -82,6 +147,7 @@ public class CsvExporter {
         failSilentlyPrint(printer, EMPTY_CELL_VALUE);
         failSilentlyPrint(printer, DecomposedFlow.ALLOCATED_COLUMN_NAME);
         failSilentlyPrint(printer, DecomposedFlow.PST_COLUMN_NAME);
+        failSilentlyPrint(printer, DecomposedFlow.HVDC_COLUMN_NAME);
         loopFlowKeys.stream().sorted().forEach(loopFlowKey -> failSilentlyPrint(printer, loopFlowKey));
         failSilentlyPrint(printer, DecomposedFlow.AC_REFERENCE_FLOW_COLUMN_NAME);
         failSilentlyPrint(printer, DecomposedFlow.DC_REFERENCE_FLOW_COLUMN_NAME);
@@ -96,6 +162,7 @@ public class CsvExporter {
         failSilentlyPrint(printer, xnecId);
         failSilentlyPrint(printer, decomposedFlow.getAllocatedFlow());
         failSilentlyPrint(printer, decomposedFlow.getPstFlow());
+        failSilentlyPrint(printer, decomposedFlow.getHvdcFlow());
         allLoopFlowKeys.stream().sorted().forEach(loopFlowKey -> failSilentlyPrint(printer, decomposedFlow.getLoopFlows().getOrDefault(loopFlowKey, DecomposedFlow.DEFAULT_FLOW)));
         failSilentlyPrint(printer, decomposedFlow.getAcReferenceFlow());
         failSilentlyPrint(printer, decomposedFlow.getDcReferenceFlow());
@@ -19,17 +19,24 @@ public class DecomposedFlow {
     private final Map<String, Double> loopFlowsMap = new TreeMap<>();
     private final double allocatedFlow;
     private final double pstFlow;
+    private final double hvdcFlow;
     private final double acReferenceFlow;
     private final double dcReferenceFlow;
     static final String ALLOCATED_COLUMN_NAME = "Allocated Flow";
     static final String PST_COLUMN_NAME = "PST Flow";
+    static final String HVDC_COLUMN_NAME = "HVDC Flow";
     static final String AC_REFERENCE_FLOW_COLUMN_NAME = "Reference AC Flow";
     static final String DC_REFERENCE_FLOW_COLUMN_NAME = "Reference DC Flow";
 
     DecomposedFlow(Map<String, Double> loopFlowsMap, double allocatedFlow, double pstFlow, double acReferenceFlow, double dcReferenceFlow) {
+        this(loopFlowsMap, allocatedFlow, pstFlow, DEFAULT_FLOW, acReferenceFlow, dcReferenceFlow);
+    }
+
+    DecomposedFlow(Map<String, Double> loopFlowsMap, double allocatedFlow, double pstFlow, double hvdcFlow, double acReferenceFlow, double dcReferenceFlow) {
         this.loopFlowsMap.putAll(loopFlowsMap);
         this.allocatedFlow = allocatedFlow;
         this.pstFlow = pstFlow;
+        this.hvdcFlow = hvdcFlow;
         this.acReferenceFlow = acReferenceFlow;
         this.dcReferenceFlow = dcReferenceFlow;
     }
@@ -39,7 +46,11 @@ public class DecomposedFlow {
     }
 
     public double getLoopFlow(Country country) {
-        return loopFlowsMap.getOrDefault(NetworkUtil.getLoopFlowIdFromCountry(country), DEFAULT_FLOW);
+        return getLoopFlow(country.toString());
+    }
+
+    public double getLoopFlow(String zone) {
+        return loopFlowsMap.getOrDefault(NetworkUtil.getLoopFlowIdFromZone(zone), DEFAULT_FLOW);
     }
 
     public Map<String, Double> getLoopFlows() {
@@ -50,6 +61,13 @@ public class DecomposedFlow {
         return pstFlow;
     }
 
+    /**
+     * @return Flow due to the active power setpoints of the HVDC lines
+     */
+    public double getHvdcFlow() {
+        return hvdcFlow;
+    }
+
     public double getAcReferenceFlow() {
         return acReferenceFlow;
     }
@@ -59,11 +77,11 @@ public class DecomposedFlow {
     }
 
     double getTotalFlow() {
-        return getAllocatedFlow() + getPstFlow() + getTotalLoopFlow();
+        return ReproducibleSum.sum(getAllocatedFlow(), getPstFlow(), getHvdcFlow(), getTotalLoopFlow());
     }
 
     private double getTotalLoopFlow() {
-        return loopFlowsMap.values().stream().reduce(0., Double::sum);
+        return ReproducibleSum.sum(loopFlowsMap.values());
     }
 
     @Deprecated
@@ -80,6 +98,7 @@ public class DecomposedFlow {
         TreeMap<String, Double> localDecomposedFlowMap = new TreeMap<>(loopFlowsMap);
         localDecomposedFlowMap.put(ALLOCATED_COLUMN_NAME, getAllocatedFlow());
         localDecomposedFlowMap.put(PST_COLUMN_NAME, getPstFlow());
+        localDecomposedFlowMap.put(HVDC_COLUMN_NAME, getHvdcFlow());
         localDecomposedFlowMap.put(AC_REFERENCE_FLOW_COLUMN_NAME, getAcReferenceFlow());
         localDecomposedFlowMap.put(DC_REFERENCE_FLOW_COLUMN_NAME, getDcReferenceFlow());
         return localDecomposedFlowMap;
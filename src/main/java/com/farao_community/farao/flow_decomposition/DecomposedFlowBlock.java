@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.DMatrixSparseCSC;
+
+import java.util.*;
+
+/**
+ * Decomposed flows of all XNECs stored as a contiguous XNEC &times; component block.
+ * Row {@code i} starts at {@code i * getComponentCount()}, with the allocated flow, then the PST flow, then the HVDC flow,
+ * then one loop flow per loop flow column. Reference flows are stored in two parallel arrays.
+ * Bulk operations such as rescaling work on the raw arrays and do not allocate per XNEC.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class DecomposedFlowBlock {
+    static final int ALLOCATED_COMPONENT = 0;
+    static final int PST_COMPONENT = 1;
+    static final int HVDC_COMPONENT = 2;
+    static final int FIRST_LOOP_FLOW_COMPONENT = 3;
+    private final IdIndex xnecIndex;
+    private final String[] loopFlowColumns;
+    private final int componentCount;
+    private final double[] flows;
+    private final double[] acReferenceFlows;
+    private final double[] dcReferenceFlows;
+
+    private DecomposedFlowBlock(IdIndex xnecIndex, String[] loopFlowColumns,
+                                double[] flows, double[] acReferenceFlows, double[] dcReferenceFlows) {
+        this.xnecIndex = xnecIndex;
+        this.loopFlowColumns = loopFlowColumns;
+        this.componentCount = FIRST_LOOP_FLOW_COMPONENT + loopFlowColumns.length;
+        this.flows = flows;
+        this.acReferenceFlows = acReferenceFlows;
+        this.dcReferenceFlows = dcReferenceFlows;
+    }
+
+    private DecomposedFlowBlock(IdIndex xnecIndex, String[] loopFlowColumns) {
+        this(xnecIndex, loopFlowColumns,
+            new double[xnecIndex.size() * (FIRST_LOOP_FLOW_COMPONENT + loopFlowColumns.length)],
+            new double[xnecIndex.size()],
+            new double[xnecIndex.size()]);
+    }
+
+    /**
+     * Builds the block directly from the non-zero entries of the allocated and loop flows matrix.
+     */
+    static DecomposedFlowBlock of(SparseMatrixWithIndexesCSC allocatedAndLoopFlowsMatrix,
+                                  SparseMatrixWithIndexesCSC pstFlowMatrix,
+                                  SparseMatrixWithIndexesCSC hvdcFlowMatrix,
+                                  Map<String, Double> acReferenceFlows,
+                                  Map<String, Double> dcReferenceFlows) {
+        IdIndex xnecIndex = allocatedAndLoopFlowsMatrix.rowIndex;
+        List<String> loopFlowColumns = new ArrayList<>();
+        int[] columnComponents = getColumnComponents(allocatedAndLoopFlowsMatrix.colIndex, loopFlowColumns);
+        DecomposedFlowBlock block = new DecomposedFlowBlock(xnecIndex, loopFlowColumns.toArray(new String[0]));
+
+        DMatrixSparseCSC matrix = allocatedAndLoopFlowsMatrix.getCscMatrix();
+        for (int column = 0; column < matrix.numCols; column++) {
+            int component = columnComponents[column];
+            for (int entry = matrix.col_idx[column]; entry < matrix.col_idx[column + 1]; entry++) {
+                block.flows[matrix.nz_rows[entry] * block.componentCount + component] = matrix.nz_values[entry];
+            }
+        }
+        block.fillComponent(pstFlowMatrix, PST_COMPONENT);
+        block.fillComponent(hvdcFlowMatrix, HVDC_COMPONENT);
+        for (int xnec = 0; xnec < xnecIndex.size(); xnec++) {
+            String xnecId = xnecIndex.getId(xnec);
+            block.acReferenceFlows[xnec] = acReferenceFlows.get(xnecId);
+            block.dcReferenceFlows[xnec] = dcReferenceFlows.get(xnecId);
+        }
+        return block;
+    }
+
+    /**
+     * @param columnIndex Columns of an allocated and loop flows matrix
+     * @param loopFlowColumns Filled with the loop flow columns, in column order
+     * @return Component of each column in a row of a block
+     */
+    static int[] getColumnComponents(IdIndex columnIndex, List<String> loopFlowColumns) {
+        int[] columnComponents = new int[columnIndex.size()];
+        for (int column = 0; column < columnIndex.size(); column++) {
+            String columnId = columnIndex.getId(column);
+            if (columnId.equals(DecomposedFlow.ALLOCATED_COLUMN_NAME)) {
+                columnComponents[column] = ALLOCATED_COMPONENT;
+            } else {
+                columnComponents[column] = FIRST_LOOP_FLOW_COMPONENT + loopFlowColumns.size();
+                loopFlowColumns.add(columnId);
+            }
+        }
+        return columnComponents;
+    }
+
+    private void fillComponent(SparseMatrixWithIndexesCSC componentMatrix, int component) {
+        DMatrixSparseCSC matrix = componentMatrix.getCscMatrix();
+        for (int entry = 0; entry < matrix.col_idx[matrix.numCols]; entry++) {
+            int xnec = xnecIndex.indexOf(componentMatrix.rowIndex.getId(matrix.nz_rows[entry]));
+            if (xnec != IdIndex.NOT_FOUND) {
+                flows[xnec * componentCount + component] = matrix.nz_values[entry];
+            }
+        }
+    }
+
+    static DecomposedFlowBlock of(Map<String, DecomposedFlow> decomposedFlowMap) {
+        List<String> xnecIds = new ArrayList<>(decomposedFlowMap.keySet());
+        SortedSet<String> loopFlowColumns = new TreeSet<>();
+        decomposedFlowMap.values().forEach(decomposedFlow -> loopFlowColumns.addAll(decomposedFlow.getLoopFlows().keySet()));
+        DecomposedFlowBlock block = new DecomposedFlowBlock(IdIndex.of(xnecIds), loopFlowColumns.toArray(new String[0]));
+        for (int xnec = 0; xnec < xnecIds.size(); xnec++) {
+            DecomposedFlow decomposedFlow = decomposedFlowMap.get(xnecIds.get(xnec));
+            fillRow(decomposedFlow, block.loopFlowColumns, block.flows, xnec * block.componentCount);
+            block.acReferenceFlows[xnec] = decomposedFlow.getAcReferenceFlow();
+            block.dcReferenceFlows[xnec] = decomposedFlow.getDcReferenceFlow();
+        }
+        return block;
+    }
+
+    /**
+     * Lays the decomposed flow out as a row of a block, starting at the given offset
+     */
+    static void fillRow(DecomposedFlow decomposedFlow, String[] loopFlowColumns, double[] values, int offset) {
+        values[offset + ALLOCATED_COMPONENT] = decomposedFlow.getAllocatedFlow();
+        values[offset + PST_COMPONENT] = decomposedFlow.getPstFlow();
+        values[offset + HVDC_COMPONENT] = decomposedFlow.getHvdcFlow();
+        for (int loopFlow = 0; loopFlow < loopFlowColumns.length; loopFlow++) {
+            values[offset + FIRST_LOOP_FLOW_COMPONENT + loopFlow] =
+                decomposedFlow.getLoopFlows().getOrDefault(loopFlowColumns[loopFlow], DecomposedFlow.DEFAULT_FLOW);
+        }
+    }
+
+    DecomposedFlowBlock copy() {
+        return new DecomposedFlowBlock(xnecIndex, loopFlowColumns, flows.clone(), acReferenceFlows, dcReferenceFlows);
+    }
+
+    int getXnecCount() {
+        return xnecIndex.size();
+    }
+
+    String getXnecId(int xnec) {
+        return xnecIndex.getId(xnec);
+    }
+
+    int getComponentCount() {
+        return componentCount;
+    }
+
+    double[] getFlows() {
+        return flows;
+    }
+
+    double[] getAcReferenceFlows() {
+        return acReferenceFlows;
+    }
+
+    double[] getDcReferenceFlows() {
+        return dcReferenceFlows;
+    }
+
+    Map<String, DecomposedFlow> toDecomposedFlowMap() {
+        Map<String, DecomposedFlow> decomposedFlowMap = new TreeMap<>();
+        for (int xnec = 0; xnec < xnecIndex.size(); xnec++) {
+            decomposedFlowMap.put(xnecIndex.getId(xnec), createDecomposedFlow(xnec, flows, xnec * componentCount));
+        }
+        return decomposedFlowMap;
+    }
+
+    private DecomposedFlow createDecomposedFlow(int xnec, double[] values, int offset) {
+        return createDecomposedFlow(loopFlowColumns, values, offset, acReferenceFlows[xnec], dcReferenceFlows[xnec]);
+    }
+
+    /**
+     * @param values Decomposed flow laid out as a row of a block, starting at the given offset
+     */
+    static DecomposedFlow createDecomposedFlow(String[] loopFlowColumns, double[] values, int offset,
+                                               double acReferenceFlow, double dcReferenceFlow) {
+        Map<String, Double> loopFlows = new TreeMap<>();
+        for (int loopFlow = 0; loopFlow < loopFlowColumns.length; loopFlow++) {
+            loopFlows.put(loopFlowColumns[loopFlow], values[offset + FIRST_LOOP_FLOW_COMPONENT + loopFlow]);
+        }
+        return new DecomposedFlow(loopFlows, values[offset + ALLOCATED_COMPONENT], values[offset + PST_COMPONENT],
+            values[offset + HVDC_COMPONENT], acReferenceFlow, dcReferenceFlow);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.DMatrixSparseCSC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads decomposed flows XNEC after XNEC, straight from the allocated and loop flows, PST flow and HVDC flow matrices,
+ * into a row laid out as a row of {@link DecomposedFlowBlock}.
+ * Each column of the allocated and loop flows matrix is walked with its own cursor, so no dense copy of the decomposition is built.
+ * Rows must be read by increasing XNEC ordinal.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class DecomposedFlowRowReader {
+    private final IdIndex xnecIndex;
+    private final String[] loopFlowColumns;
+    private final int[] columnComponents;
+    private final DMatrixSparseCSC allocatedAndLoopFlows;
+    private final int[] columnCursors;
+    private final SparseMatrixRows pstFlowRows;
+    private final SparseMatrixRows hvdcFlowRows;
+    private final Map<String, Double> acReferenceFlows;
+    private final Map<String, Double> dcReferenceFlows;
+
+    /**
+     * Row indexes of the allocated and loop flows matrix are sorted in place if needed.
+     */
+    DecomposedFlowRowReader(SparseMatrixWithIndexesCSC allocatedAndLoopFlowsMatrix,
+                            SparseMatrixWithIndexesCSC pstFlowMatrix,
+                            SparseMatrixWithIndexesCSC hvdcFlowMatrix,
+                            Map<String, Double> acReferenceFlows,
+                            Map<String, Double> dcReferenceFlows) {
+        this.xnecIndex = allocatedAndLoopFlowsMatrix.rowIndex;
+        List<String> loopFlowColumnList = new ArrayList<>();
+        this.columnComponents = DecomposedFlowBlock.getColumnComponents(allocatedAndLoopFlowsMatrix.colIndex, loopFlowColumnList);
+        this.loopFlowColumns = loopFlowColumnList.toArray(new String[0]);
+        this.allocatedAndLoopFlows = sorted(allocatedAndLoopFlowsMatrix);
+        this.columnCursors = new int[allocatedAndLoopFlows.numCols];
+        System.arraycopy(allocatedAndLoopFlows.col_idx, 0, columnCursors, 0, columnCursors.length);
+        this.pstFlowRows = pstFlowMatrix.getRows();
+        this.hvdcFlowRows = hvdcFlowMatrix.getRows();
+        this.acReferenceFlows = acReferenceFlows;
+        this.dcReferenceFlows = dcReferenceFlows;
+    }
+
+    private static DMatrixSparseCSC sorted(SparseMatrixWithIndexesCSC matrix) {
+        DMatrixSparseCSC cscMatrix = matrix.getCscMatrix();
+        if (!cscMatrix.indicesSorted) {
+            cscMatrix.sortIndices(null);
+        }
+        return cscMatrix;
+    }
+
+    int getXnecCount() {
+        return xnecIndex.size();
+    }
+
+    String getXnecId(int xnec) {
+        return xnecIndex.getId(xnec);
+    }
+
+    List<String> getLoopFlowColumns() {
+        return List.of(loopFlowColumns);
+    }
+
+    int getComponentCount() {
+        return DecomposedFlowBlock.FIRST_LOOP_FLOW_COMPONENT + loopFlowColumns.length;
+    }
+
+    double getAcReferenceFlow(int xnec) {
+        return acReferenceFlows.get(xnecIndex.getId(xnec));
+    }
+
+    double getDcReferenceFlow(int xnec) {
+        return dcReferenceFlows.get(xnecIndex.getId(xnec));
+    }
+
+    /**
+     * Overwrites the row buffer, of {@link #getComponentCount()} values, with the decomposed flow of the XNEC.
+     */
+    void readRow(int xnec, double[] row) {
+        for (int column = 0; column < columnCursors.length; column++) {
+            int columnEnd = allocatedAndLoopFlows.col_idx[column + 1];
+            while (columnCursors[column] < columnEnd && allocatedAndLoopFlows.nz_rows[columnCursors[column]] < xnec) {
+                columnCursors[column]++;
+            }
+            int entry = columnCursors[column];
+            row[columnComponents[column]] = entry < columnEnd && allocatedAndLoopFlows.nz_rows[entry] == xnec
+                ? allocatedAndLoopFlows.nz_values[entry] : 0.;
+        }
+        String xnecId = xnecIndex.getId(xnec);
+        row[DecomposedFlowBlock.PST_COMPONENT] = getComponentFlow(pstFlowRows, xnecId);
+        row[DecomposedFlowBlock.HVDC_COMPONENT] = getComponentFlow(hvdcFlowRows, xnecId);
+    }
+
+    private static double getComponentFlow(SparseMatrixRows componentRows, String xnecId) {
+        int row = componentRows.getRow(xnecId);
+        double flow = 0.;
+        if (row != IdIndex.NOT_FOUND) {
+            for (int entry = componentRows.getRowStart(row); entry < componentRows.getRowEnd(row); entry++) {
+                flow += componentRows.getValue(entry);
+            }
+        }
+        return flow;
+    }
+
+    /**
+     * @param row Decomposed flow of the XNEC, as filled by {@link #readRow(int, double[])}
+     */
+    DecomposedFlow createDecomposedFlow(int xnec, double[] row) {
+        return DecomposedFlowBlock.createDecomposedFlow(loopFlowColumns, row, 0, getAcReferenceFlow(xnec), getDcReferenceFlow(xnec));
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import java.util.List;
+
+/**
+ * Consumer of decomposed flows, fed one XNEC at a time by
+ * {@link FlowDecompositionComputer#run(com.powsybl.iidm.network.Network, XnecFilter, DecomposedFlowSink)}.
+ * Each decomposed flow is final, rescaled if rescaling is enabled, and is not retained by the computer
+ * once the sink returns.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+@FunctionalInterface
+public interface DecomposedFlowSink {
+    /**
+     * Called once before the first XNEC.
+     * @param networkId Id of the decomposed network
+     * @param loopFlowIds Loop flow keys present in every decomposed flow, in a fixed order
+     */
+    default void start(String networkId, List<String> loopFlowIds) {
+    }
+
+    void accept(String xnecId, DecomposedFlow decomposedFlow);
+
+    /**
+     * Called once after the last XNEC, only if the whole decomposition succeeded.
+     */
+    default void end() {
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Append-only store of decomposed flows of many runs, queried as time series of (XNEC, component, timestamp).
+ * <p>
+ * Runs are appended in increasing timestamp order to chunk files, each holding up to {@code runsPerChunk} runs.
+ * A run is a record laid out column by column: its timestamp, its component and XNEC counts, the codes of its components,
+ * the codes of its XNECs in increasing order, then one column of values per component.
+ * XNEC and component ids are coded in append-only dictionaries, {@code xnecs.txt} and {@code components.txt}.
+ * A small index, {@code index.csv}, gives the time range of each chunk, so that queries skip the chunks out of their range.
+ * <p>
+ * A history query maps the chunks in memory and, for each run, finds the XNEC by binary search on the XNEC codes
+ * and reads its values directly: it never reads the values of other XNECs.
+ * Appending a run only appends to the last chunk and to the dictionaries, and rewrites the index,
+ * which is the last step of an append: a run is only visible once it is indexed.
+ * A store is not thread-safe and must have a single writer.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+public class DecomposedFlowTimeSeriesStore {
+    public static final int DEFAULT_RUNS_PER_CHUNK = 96;
+    static final String INDEX_FILE_NAME = "index.csv";
+    static final String XNEC_DICTIONARY_FILE_NAME = "xnecs.txt";
+    static final String COMPONENT_DICTIONARY_FILE_NAME = "components.txt";
+    private static final String CHUNK_FILE_FORMAT = "chunk-%06d.bin";
+    private static final String[] INDEX_HEADER = {"chunk", "first timestamp", "last timestamp", "runs", "bytes"};
+    private static final int RECORD_HEADER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    private final Path storeDir;
+    private final int runsPerChunk;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Dictionary xnecDictionary;
+    private final Dictionary componentDictionary;
+
+    private static final class Chunk {
+        private final String fileName;
+        private final long firstTimestamp;
+        private long lastTimestamp;
+        private int runs;
+        private long bytes;
+
+        private Chunk(String fileName, long firstTimestamp, long lastTimestamp, int runs, long bytes) {
+            this.fileName = fileName;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+            this.runs = runs;
+            this.bytes = bytes;
+        }
+
+        private boolean overlaps(long from, long to) {
+            return firstTimestamp <= to && lastTimestamp >= from;
+        }
+    }
+
+    /**
+     * Append-only dictionary of ids, coded by order of first appearance.
+     */
+    private static final class Dictionary {
+        private final Path path;
+        private final List<String> ids;
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        private Dictionary(Path path) {
+            this.path = path;
+            try {
+                this.ids = Files.exists(path) ? new ArrayList<>(Files.readAllLines(path, CsvExporter.CHARSET)) : new ArrayList<>();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (int code = 0; code < ids.size(); code++) {
+                codes.put(ids.get(code), code);
+            }
+        }
+
+        private int getCode(String id) {
+            return codes.getOrDefault(id, IdIndex.NOT_FOUND);
+        }
+
+        private int getOrAddCode(String id, List<String> addedIds) {
+            return codes.computeIfAbsent(id, key -> {
+                ids.add(key);
+                addedIds.add(key);
+                return ids.size() - 1;
+            });
+        }
+
+        private String getId(int code) {
+            return ids.get(code);
+        }
+
+        private void append(List<String> addedIds) throws IOException {
+            if (!addedIds.isEmpty()) {
+                Files.write(path, addedIds, CsvExporter.CHARSET, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        }
+    }
+
+    public DecomposedFlowTimeSeriesStore(Path storeDir) {
+        this(storeDir, DEFAULT_RUNS_PER_CHUNK);
+    }
+
+    /**
+     * Opens the store in the given directory, creating it if needed.
+     * @param runsPerChunk Maximum number of runs per chunk file, only used for chunks created from now on
+     */
+    public DecomposedFlowTimeSeriesStore(Path storeDir, int runsPerChunk) {
+        if (runsPerChunk < 1) {
+            throw new IllegalArgumentException("A chunk must hold at least one run");
+        }
+        this.storeDir = storeDir;
+        this.runsPerChunk = runsPerChunk;
+        try {
+            Files.createDirectories(storeDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.xnecDictionary = new Dictionary(storeDir.resolve(XNEC_DICTIONARY_FILE_NAME));
+        this.componentDictionary = new Dictionary(storeDir.resolve(COMPONENT_DICTIONARY_FILE_NAME));
+        readIndex();
+    }
+
+    public int getRunCount() {
+        return chunks.stream().mapToInt(chunk -> chunk.runs).sum();
+    }
+
+    public Optional<Instant> getLastTimestamp() {
+        return chunks.isEmpty() ? Optional.empty() : Optional.of(Instant.ofEpochMilli(chunks.get(chunks.size() - 1).lastTimestamp));
+    }
+
+    /**
+     * Appends the rescaled decomposed flows of a run.
+     */
+    public void append(Instant timestamp, FlowDecompositionResults flowDecompositionResults) {
+        append(timestamp, flowDecompositionResults.getDecomposedFlowMap());
+    }
+
+    /**
+     * @param timestamp Timestamp of the run, at millisecond precision, strictly after the last appended one
+     */
+    public void append(Instant timestamp, Map<String, DecomposedFlow> decomposedFlowMap) {
+        long time = timestamp.toEpochMilli();
+        if (!chunks.isEmpty() && time <= chunks.get(chunks.size() - 1).lastTimestamp) {
+            throw new IllegalArgumentException(String.format("Run at %s is not after the last appended run", timestamp));
+        }
+        List<String> addedXnecs = new ArrayList<>();
+        List<String> addedComponents = new ArrayList<>();
+        SortedSet<String> loopFlowKeys = new TreeSet<>();
+        decomposedFlowMap.values().forEach(decomposedFlow -> loopFlowKeys.addAll(decomposedFlow.getLoopFlows().keySet()));
+        List<String> componentIds = new ArrayList<>(List.of(DecomposedFlow.ALLOCATED_COLUMN_NAME, DecomposedFlow.PST_COLUMN_NAME, DecomposedFlow.HVDC_COLUMN_NAME));
+        componentIds.addAll(loopFlowKeys);
+        componentIds.add(DecomposedFlow.AC_REFERENCE_FLOW_COLUMN_NAME);
+        componentIds.add(DecomposedFlow.DC_REFERENCE_FLOW_COLUMN_NAME);
+        int[] componentCodes = componentIds.stream().mapToInt(componentId -> componentDictionary.getOrAddCode(componentId, addedComponents)).toArray();
+        TreeMap<Integer, DecomposedFlow> decomposedFlowsByCode = new TreeMap<>();
+        decomposedFlowMap.forEach((xnecId, decomposedFlow) -> decomposedFlowsByCode.put(xnecDictionary.getOrAddCode(xnecId, addedXnecs), decomposedFlow));
+
+        ByteBuffer buffer = ByteBuffer.allocate(getRecordSize(componentCodes.length, decomposedFlowsByCode.size()));
+        buffer.putLong(time);
+        buffer.putInt(componentCodes.length);
+        buffer.putInt(decomposedFlowsByCode.size());
+        Arrays.stream(componentCodes).forEach(buffer::putInt);
+        decomposedFlowsByCode.keySet().forEach(buffer::putInt);
+        for (String componentId : componentIds) {
+            decomposedFlowsByCode.values().forEach(decomposedFlow -> buffer.putDouble(getComponent(decomposedFlow, componentId)));
+        }
+        try {
+            xnecDictionary.append(addedXnecs);
+            componentDictionary.append(addedComponents);
+            Chunk chunk = getChunkToAppend(time);
+            appendRecord(chunk, buffer);
+            chunk.lastTimestamp = time;
+            chunk.runs++;
+            chunk.bytes += buffer.capacity();
+            writeIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int getRecordSize(int componentCount, int xnecCount) {
+        return RECORD_HEADER_BYTES + Integer.BYTES * (componentCount + xnecCount) + Double.BYTES * componentCount * xnecCount;
+    }
+
+    private static double getComponent(DecomposedFlow decomposedFlow, String componentId) {
+        switch (componentId) {
+            case DecomposedFlow.ALLOCATED_COLUMN_NAME:
+                return decomposedFlow.getAllocatedFlow();
+            case DecomposedFlow.PST_COLUMN_NAME:
+                return decomposedFlow.getPstFlow();
+            case DecomposedFlow.HVDC_COLUMN_NAME:
+                return decomposedFlow.getHvdcFlow();
+            case DecomposedFlow.AC_REFERENCE_FLOW_COLUMN_NAME:
+                return decomposedFlow.getAcReferenceFlow();
+            case DecomposedFlow.DC_REFERENCE_FLOW_COLUMN_NAME:
+                return decomposedFlow.getDcReferenceFlow();
+            default:
+                return decomposedFlow.getLoopFlows().getOrDefault(componentId, DecomposedFlow.DEFAULT_FLOW);
+        }
+    }
+
+    /**
+     * Bytes after the indexed end of the chunk, left by an append interrupted before the index was written, are overwritten.
+     */
+    private void appendRecord(Chunk chunk, ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(storeDir.resolve(chunk.fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(chunk.bytes);
+            buffer.flip();
+            long position = chunk.bytes;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    private Chunk getChunkToAppend(long time) {
+        if (chunks.isEmpty() || chunks.get(chunks.size() - 1).runs >= runsPerChunk) {
+            chunks.add(new Chunk(String.format(CHUNK_FILE_FORMAT, chunks.size()), time, time, 0, 0));
+        }
+        return chunks.get(chunks.size() - 1);
+    }
+
+    /**
+     * @return Decomposed flows of the XNEC, by timestamp, in the runs where it was decomposed
+     */
+    public NavigableMap<Instant, DecomposedFlow> getHistory(String xnecId) {
+        return getHistory(xnecId, Instant.ofEpochMilli(Long.MIN_VALUE), Instant.ofEpochMilli(Long.MAX_VALUE));
+    }
+
+    /**
+     * @return Decomposed flows of the XNEC, by timestamp, in the runs between {@code from} and {@code to}, both included
+     */
+    public NavigableMap<Instant, DecomposedFlow> getHistory(String xnecId, Instant from, Instant to) {
+        NavigableMap<Instant, DecomposedFlow> history = new TreeMap<>();
+        visitHistory(xnecId, from, to, (time, componentCodes, values) -> {
+            Map<String, Double> components = new HashMap<>();
+            for (int component = 0; component < componentCodes.length; component++) {
+                components.put(componentDictionary.getId(componentCodes[component]), values[component]);
+            }
+            history.put(Instant.ofEpochMilli(time), toDecomposedFlow(components));
+        });
+        return history;
+    }
+
+    /**
+     * @param componentId Flow component, such as {@code "Allocated Flow"} or {@code "Loop Flow from FR"}
+     * @return Values of the component for the XNEC, by timestamp, in the runs between {@code from} and {@code to}, both included
+     */
+    public NavigableMap<Instant, Double> getHistory(String xnecId, String componentId, Instant from, Instant to) {
+        NavigableMap<Instant, Double> history = new TreeMap<>();
+        int componentCode = componentDictionary.getCode(componentId);
+        if (componentCode == IdIndex.NOT_FOUND) {
+            return history;
+        }
+        visitHistory(xnecId, from, to, (time, componentCodes, values) -> {
+            for (int component = 0; component < componentCodes.length; component++) {
+                if (componentCodes[component] == componentCode) {
+                    history.put(Instant.ofEpochMilli(time), values[component]);
+                }
+            }
+        });
+        return history;
+    }
+
+    private static DecomposedFlow toDecomposedFlow(Map<String, Double> components) {
+        Map<String, Double> loopFlows = new TreeMap<>(components);
+        double allocatedFlow = removeComponent(loopFlows, DecomposedFlow.ALLOCATED_COLUMN_NAME);
+        double pstFlow = removeComponent(loopFlows, DecomposedFlow.PST_COLUMN_NAME);
+        double hvdcFlow = removeComponent(loopFlows, DecomposedFlow.HVDC_COLUMN_NAME);
+        double acReferenceFlow = removeComponent(loopFlows, DecomposedFlow.AC_REFERENCE_FLOW_COLUMN_NAME);
+        double dcReferenceFlow = removeComponent(loopFlows, DecomposedFlow.DC_REFERENCE_FLOW_COLUMN_NAME);
+        return new DecomposedFlow(loopFlows, allocatedFlow, pstFlow, hvdcFlow, acReferenceFlow, dcReferenceFlow);
+    }
+
+    private static double removeComponent(Map<String, Double> components, String componentId) {
+        Double value = components.remove(componentId);
+        return value == null ? DecomposedFlow.DEFAULT_FLOW : value;
+    }
+
+    @FunctionalInterface
+    private interface RunVisitor {
+        void visit(long time, int[] componentCodes, double[] values);
+    }
+
+    private void visitHistory(String xnecId, Instant from, Instant to, RunVisitor runVisitor) {
+        int xnecCode = xnecDictionary.getCode(xnecId);
+        if (xnecCode == IdIndex.NOT_FOUND) {
+            return;
+        }
+        long fromTime = from.toEpochMilli();
+        long toTime = to.toEpochMilli();
+        for (Chunk chunk : chunks) {
+            if (chunk.overlaps(fromTime, toTime)) {
+                visitChunk(chunk, xnecCode, fromTime, toTime, runVisitor);
+            }
+        }
+    }
+
+    private void visitChunk(Chunk chunk, int xnecCode, long fromTime, long toTime, RunVisitor runVisitor) {
+        try (FileChannel channel = FileChannel.open(storeDir.resolve(chunk.fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, chunk.bytes);
+            int recordStart = 0;
+            for (int run = 0; run < chunk.runs; run++) {
+                long time = buffer.getLong(recordStart);
+                int componentCount = buffer.getInt(recordStart + Long.BYTES);
+                int xnecCount = buffer.getInt(recordStart + Long.BYTES + Integer.BYTES);
+                if (time >= fromTime && time <= toTime) {
+                    visitRun(buffer, recordStart, time, componentCount, xnecCount, xnecCode, runVisitor);
+                }
+                recordStart += getRecordSize(componentCount, xnecCount);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void visitRun(ByteBuffer buffer, int recordStart, long time, int componentCount, int xnecCount,
+                                 int xnecCode, RunVisitor runVisitor) {
+        int componentCodesStart = recordStart + RECORD_HEADER_BYTES;
+        int xnecCodesStart = componentCodesStart + Integer.BYTES * componentCount;
+        int xnec = findXnec(buffer, xnecCodesStart, xnecCount, xnecCode);
+        if (xnec == IdIndex.NOT_FOUND) {
+            return;
+        }
+        int valuesStart = xnecCodesStart + Integer.BYTES * xnecCount;
+        int[] componentCodes = new int[componentCount];
+        double[] values = new double[componentCount];
+        for (int component = 0; component < componentCount; component++) {
+            componentCodes[component] = buffer.getInt(componentCodesStart + Integer.BYTES * component);
+            values[component] = buffer.getDouble(valuesStart + Double.BYTES * (component * xnecCount + xnec));
+        }
+        runVisitor.visit(time, componentCodes, values);
+    }
+
+    private static int findXnec(ByteBuffer buffer, int xnecCodesStart, int xnecCount, int xnecCode) {
+        int low = 0;
+        int high = xnecCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleCode = buffer.getInt(xnecCodesStart + Integer.BYTES * middle);
+            if (middleCode < xnecCode) {
+                low = middle + 1;
+            } else if (middleCode > xnecCode) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return IdIndex.NOT_FOUND;
+    }
+
+    private void readIndex() {
+        Path indexPath = storeDir.resolve(INDEX_FILE_NAME);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(indexPath, CsvExporter.CHARSET)) {
+            for (CSVRecord csvRecord : CsvExporter.FORMAT.builder().setHeader().setSkipHeaderRecord(true).build().parse(reader)) {
+                chunks.add(new Chunk(csvRecord.get(0), Long.parseLong(csvRecord.get(1)), Long.parseLong(csvRecord.get(2)), Integer.parseInt(csvRecord.get(3)),
+                    Long.parseLong(csvRecord.get(4))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The index is written next to the current one, then moved over it, so that a crash never leaves a truncated index.
+     */
+    private void writeIndex() throws IOException {
+        Path temporaryIndexPath = storeDir.resolve(INDEX_FILE_NAME + ".tmp");
+        try (
+            BufferedWriter writer = Files.newBufferedWriter(temporaryIndexPath, CsvExporter.CHARSET);
+            CSVPrinter printer = new CSVPrinter(writer, CsvExporter.FORMAT)
+        ) {
+            printer.printRecord((Object[]) INDEX_HEADER);
+            for (Chunk chunk : chunks) {
+                printer.printRecord(chunk.fileName, chunk.firstTimestamp, chunk.lastTimestamp, chunk.runs, chunk.bytes);
+            }
+        }
+        Files.move(temporaryIndexPath, storeDir.resolve(INDEX_FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -6,42 +6,90 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 /**
+ * Rescales decomposed flows so that their sum matches the AC reference flow, using one or several {@link RescaleMode}.
+ * The bulk path reads each XNEC row of the unscaled {@link DecomposedFlowBlock} once and applies every strategy
+ * to its own output block while the row is hot, with no allocation per XNEC.
+ *
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
  */
 class DecomposedFlowsRescaler {
+    private final RescaleMode rescaleMode;
 
-    private double reLU(double value) {
-        return value > 0 ? value : 0.;
+    DecomposedFlowsRescaler(RescaleMode rescaleMode) {
+        this.rescaleMode = rescaleMode;
     }
 
-    private double rescaleValue(double initialValue, double delta, double sumOfReLUFlows) {
-        return initialValue + delta * reLU(initialValue) / sumOfReLUFlows;
+    DecomposedFlowsRescaler() {
+        this(RescaleMode.ACER_METHODOLOGY);
     }
 
     Map<String, DecomposedFlow> rescale(Map<String, DecomposedFlow> decomposedFlowMap) {
-        Map<String, DecomposedFlow> rescaledDecomposedFlowMap = new TreeMap<>();
-        decomposedFlowMap.forEach((s, decomposedFlow) -> rescaledDecomposedFlowMap.put(s, rescale(decomposedFlow)));
-        return rescaledDecomposedFlowMap;
+        Map<String, DecomposedFlow> rescaledFlowMap = new TreeMap<>();
+        decomposedFlowMap.forEach((xnecId, decomposedFlow) -> rescaledFlowMap.put(xnecId, rescale(decomposedFlow)));
+        return rescaledFlowMap;
     }
 
     DecomposedFlow rescale(DecomposedFlow decomposedFlow) {
-        double allocatedFlow = decomposedFlow.getAllocatedFlow();
-        double pstFlow = decomposedFlow.getPstFlow();
-        Map<String, Double> loopFlows = decomposedFlow.getLoopFlows();
-        double acReferenceFlow = decomposedFlow.getAcReferenceFlow();
-        double dcReferenceFlow = decomposedFlow.getDcReferenceFlow();
-        double deltaToRescale = (acReferenceFlow - dcReferenceFlow) * Math.signum(acReferenceFlow);
-        double sumOfReLUFlows = reLU(allocatedFlow) + reLU(pstFlow) + loopFlows.values().stream().mapToDouble(this::reLU).sum();
-        Map<String, Double> rescaledLoopFlows = loopFlows.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> rescaleValue(entry.getValue(), deltaToRescale, sumOfReLUFlows)));
-        double rescaledAllocatedFlow = rescaleValue(allocatedFlow, deltaToRescale, sumOfReLUFlows);
-        double rescaledPstFlow = rescaleValue(pstFlow, deltaToRescale, sumOfReLUFlows);
-        return new DecomposedFlow(rescaledLoopFlows, rescaledAllocatedFlow, rescaledPstFlow, acReferenceFlow, dcReferenceFlow);
+        String[] loopFlowColumns = decomposedFlow.getLoopFlows().keySet().toArray(new String[0]);
+        double[] row = new double[DecomposedFlowBlock.FIRST_LOOP_FLOW_COMPONENT + loopFlowColumns.length];
+        DecomposedFlowBlock.fillRow(decomposedFlow, loopFlowColumns, row, 0);
+        rescaleRow(row, decomposedFlow.getAcReferenceFlow(), decomposedFlow.getDcReferenceFlow());
+        return DecomposedFlowBlock.createDecomposedFlow(loopFlowColumns, row, 0,
+            decomposedFlow.getAcReferenceFlow(), decomposedFlow.getDcReferenceFlow());
+    }
+
+    void rescale(DecomposedFlowBlock decomposedFlowBlock) {
+        rescale(decomposedFlowBlock, new DecomposedFlowBlock[]{decomposedFlowBlock}, new RescaleMode[]{rescaleMode});
+    }
+
+    /**
+     * Rescales one row laid out as a row of a block, see {@link DecomposedFlowRowReader#readRow(int, double[])}.
+     */
+    void rescaleRow(double[] row, double acReferenceFlow, double dcReferenceFlow) {
+        rescaleMode.rescaleRow(row, 0, row.length, getDeltaToRescale(acReferenceFlow, dcReferenceFlow));
+    }
+
+    private static double getDeltaToRescale(double acReferenceFlow, double dcReferenceFlow) {
+        return (acReferenceFlow - dcReferenceFlow) * Math.signum(acReferenceFlow);
+    }
+
+    /**
+     * @param decomposedFlowBlock Unscaled decomposed flows, left untouched
+     * @param rescaleModes Strategies to evaluate
+     * @return One rescaled block per strategy
+     */
+    static Map<RescaleMode, DecomposedFlowBlock> rescale(DecomposedFlowBlock decomposedFlowBlock, Collection<RescaleMode> rescaleModes) {
+        RescaleMode[] modes = rescaleModes.toArray(new RescaleMode[0]);
+        DecomposedFlowBlock[] rescaledBlocks = new DecomposedFlowBlock[modes.length];
+        for (int mode = 0; mode < modes.length; mode++) {
+            rescaledBlocks[mode] = decomposedFlowBlock.copy();
+        }
+        rescale(decomposedFlowBlock, rescaledBlocks, modes);
+        Map<RescaleMode, DecomposedFlowBlock> rescaledBlocksByMode = new EnumMap<>(RescaleMode.class);
+        for (int mode = 0; mode < modes.length; mode++) {
+            rescaledBlocksByMode.put(modes[mode], rescaledBlocks[mode]);
+        }
+        return rescaledBlocksByMode;
+    }
+
+    private static void rescale(DecomposedFlowBlock decomposedFlowBlock, DecomposedFlowBlock[] rescaledBlocks, RescaleMode[] modes) {
+        double[] acReferenceFlows = decomposedFlowBlock.getAcReferenceFlows();
+        double[] dcReferenceFlows = decomposedFlowBlock.getDcReferenceFlows();
+        int componentCount = decomposedFlowBlock.getComponentCount();
+        for (int xnec = 0; xnec < decomposedFlowBlock.getXnecCount(); xnec++) {
+            int rowStart = xnec * componentCount;
+            int rowEnd = rowStart + componentCount;
+            double deltaToRescale = getDeltaToRescale(acReferenceFlows[xnec], dcReferenceFlows[xnec]);
+            for (int mode = 0; mode < modes.length; mode++) {
+                modes[mode].rescaleRow(rescaledBlocks[mode].getFlows(), rowStart, rowEnd, deltaToRescale);
+            }
+        }
     }
 }
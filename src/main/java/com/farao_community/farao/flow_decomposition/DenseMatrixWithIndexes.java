@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.DMatrixSparseCSC;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Small matrix stored densely, row after row, such as XNEC &times; zone results.
+ * As a {@link SparseMatrixView}, only its non-zero cells are visited.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class DenseMatrixWithIndexes implements SparseMatrixView {
+    private final IdIndex rowIndex;
+    private final IdIndex colIndex;
+    private final double[] values;
+
+    private DenseMatrixWithIndexes(IdIndex rowIndex, IdIndex colIndex) {
+        this.rowIndex = rowIndex;
+        this.colIndex = colIndex;
+        this.values = new double[rowIndex.size() * colIndex.size()];
+    }
+
+    static DenseMatrixWithIndexes of(SparseMatrixWithIndexesCSC matrix) {
+        DenseMatrixWithIndexes denseMatrix = new DenseMatrixWithIndexes(matrix.rowIndex, matrix.colIndex);
+        DMatrixSparseCSC cscMatrix = matrix.getCscMatrix();
+        int columnCount = cscMatrix.numCols;
+        for (int column = 0; column < columnCount; column++) {
+            for (int entry = cscMatrix.col_idx[column]; entry < cscMatrix.col_idx[column + 1]; entry++) {
+                denseMatrix.values[cscMatrix.nz_rows[entry] * columnCount + column] = cscMatrix.nz_values[entry];
+            }
+        }
+        return denseMatrix;
+    }
+
+    /**
+     * @return Values of one column, indexed by row ordinal
+     */
+    double[] getColumnValues(int column) {
+        double[] columnValues = new double[rowIndex.size()];
+        for (int row = 0; row < columnValues.length; row++) {
+            columnValues[row] = values[row * colIndex.size() + column];
+        }
+        return columnValues;
+    }
+
+    /**
+     * @return Every cell, zeros included. The first key is a row id and the second key is a column id.
+     */
+    Map<String, Map<String, Double>> toMap() {
+        Map<String, Map<String, Double>> result = new TreeMap<>();
+        for (int row = 0; row < rowIndex.size(); row++) {
+            Map<String, Double> rowMap = new TreeMap<>();
+            for (int column = 0; column < colIndex.size(); column++) {
+                rowMap.put(colIndex.getId(column), values[row * colIndex.size() + column]);
+            }
+            result.put(rowIndex.getId(row), rowMap);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getRowIds() {
+        return rowIndex.getIds();
+    }
+
+    @Override
+    public List<String> getColumnIds() {
+        return colIndex.getIds();
+    }
+
+    @Override
+    public int getNonZeroCount() {
+        int nonZeroCount = 0;
+        for (double value : values) {
+            nonZeroCount += value != 0. ? 1 : 0;
+        }
+        return nonZeroCount;
+    }
+
+    @Override
+    public double get(String rowId, String columnId) {
+        return values[rowIndex.getIndex(rowId) * colIndex.size() + colIndex.getIndex(columnId)];
+    }
+
+    @Override
+    public void forEachNonZero(EntryConsumer entryConsumer) {
+        for (int column = 0; column < colIndex.size(); column++) {
+            forEachNonZeroInColumn(column, entryConsumer);
+        }
+    }
+
+    @Override
+    public void forEachNonZeroInColumn(String columnId, EntryConsumer entryConsumer) {
+        forEachNonZeroInColumn(colIndex.getIndex(columnId), entryConsumer);
+    }
+
+    @Override
+    public void forEachNonZeroInRow(String rowId, EntryConsumer entryConsumer) {
+        int rowStart = rowIndex.getIndex(rowId) * colIndex.size();
+        for (int column = 0; column < colIndex.size(); column++) {
+            double value = values[rowStart + column];
+            if (value != 0.) {
+                entryConsumer.accept(rowId, colIndex.getId(column), value);
+            }
+        }
+    }
+
+    private void forEachNonZeroInColumn(int column, EntryConsumer entryConsumer) {
+        String columnId = colIndex.getId(column);
+        for (int row = 0; row < rowIndex.size(); row++) {
+            double value = values[row * colIndex.size() + column];
+            if (value != 0.) {
+                entryConsumer.accept(rowIndex.getId(row), columnId, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+import com.powsybl.iidm.import_.Importers;
+import com.powsybl.iidm.network.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Batch runner decomposing a set of network files and exporting one CSV file per network.
+ * Files go through a bounded pipeline: parallel import, then decomposition workers, then a single asynchronous exporter.
+ * At most {@code queueCapacity} networks are in flight at the same time, a new import only starts
+ * once a previous network has been exported, so that memory stays bounded whatever the number of files.
+ * A failing file is logged and counted, it does not stop the batch.
+ * The returned {@link Summary} reports, for each stage, the time networks waited for it and its maximum queue depth.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+public class FlowDecompositionBatchRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlowDecompositionBatchRunner.class);
+    private static final int EXPORT_THREADS = 1;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final FlowDecompositionComputer flowDecompositionComputer;
+    private final CsvExporter csvExporter;
+    private final Path exportDir;
+    private final int importThreads;
+    private final int decompositionThreads;
+    private final int queueCapacity;
+    private BatchExecutionMode executionMode = BatchExecutionMode.PLATFORM_THREADS;
+
+    /**
+     * @param importThreads Number of networks imported concurrently
+     * @param decompositionThreads Number of networks decomposed concurrently
+     * @param queueCapacity Maximum number of networks imported but not yet exported
+     */
+    public FlowDecompositionBatchRunner(FlowDecompositionComputer flowDecompositionComputer, Path exportDir,
+                                        int importThreads, int decompositionThreads, int queueCapacity) {
+        if (importThreads < 1 || decompositionThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Thread counts and queue capacity must be positive");
+        }
+        this.flowDecompositionComputer = flowDecompositionComputer;
+        this.csvExporter = new CsvExporter();
+        this.exportDir = exportDir;
+        this.importThreads = importThreads;
+        this.decompositionThreads = decompositionThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Uses one import thread for two decomposition workers, and lets each stage hold one network per thread in flight.
+     */
+    public FlowDecompositionBatchRunner(FlowDecompositionComputer flowDecompositionComputer, Path exportDir, int decompositionThreads) {
+        this(flowDecompositionComputer, exportDir, Math.max(1, decompositionThreads / 2), decompositionThreads,
+            2 * decompositionThreads + EXPORT_THREADS);
+    }
+
+    public BatchExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(BatchExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Usage: {@code <network directory or glob> <export directory> [decomposition threads] [execution mode]},
+     * the execution mode being one of {@link BatchExecutionMode} names.
+     * Prints the throughput summary of the batch on the standard output.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            throw new IllegalArgumentException("Usage: FlowDecompositionBatchRunner <network directory or glob> <export directory> "
+                + "[decomposition threads] [execution mode]");
+        }
+        int decompositionThreads = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        FlowDecompositionBatchRunner batchRunner = new FlowDecompositionBatchRunner(new FlowDecompositionComputer(), Path.of(args[1]), decompositionThreads);
+        if (args.length == 4) {
+            batchRunner.setExecutionMode(BatchExecutionMode.valueOf(args[3]));
+        }
+        Summary summary = batchRunner.run(listNetworkFiles(args[0]));
+        System.out.println(summary); // NOSONAR the summary is the output of the command
+    }
+
+    /**
+     * @param directoryOrGlob Directory, whose regular files are all listed, or glob on file names, such as {@code /data/20220101_*.uct}
+     * @return Network files, sorted by path
+     */
+    public static List<Path> listNetworkFiles(String directoryOrGlob) {
+        Path path = Path.of(directoryOrGlob);
+        Path directory = Files.isDirectory(path) ? path : path.toAbsolutePath().getParent();
+        PathMatcher matcher = Files.isDirectory(path) ? file -> true : FileSystems.getDefault().getPathMatcher("glob:" + path.getFileName());
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> matcher.matches(file.getFileName()))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Summary run(List<Path> networkFiles) {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        boolean virtualIoThreads = executionMode == BatchExecutionMode.VIRTUAL_IO_THREADS;
+        ExecutorService importExecutor = virtualIoThreads ? newIoExecutor() : Executors.newFixedThreadPool(importThreads);
+        ExecutorService decompositionExecutor = Executors.newFixedThreadPool(decompositionThreads);
+        ExecutorService exportExecutor = virtualIoThreads ? newIoExecutor() : Executors.newFixedThreadPool(EXPORT_THREADS);
+        Semaphore inFlightNetworks = new Semaphore(queueCapacity);
+        List<CompletableFuture<Void>> pipelines = new ArrayList<>();
+        try {
+            for (Path networkFile : networkFiles) {
+                acquire(inFlightNetworks);
+                AtomicLong enqueueTime = new AtomicLong(summary.importStage.enqueue());
+                pipelines.add(CompletableFuture
+                    .supplyAsync(() -> {
+                        summary.importStage.dequeue(enqueueTime.get());
+                        Network network = importNetwork(networkFile, summary);
+                        enqueueTime.set(summary.decompositionStage.enqueue());
+                        return network;
+                    }, importExecutor)
+                    .thenApplyAsync(network -> {
+                        summary.decompositionStage.dequeue(enqueueTime.get());
+                        FlowDecompositionResults results = decompose(network, summary);
+                        enqueueTime.set(summary.exportStage.enqueue());
+                        return results;
+                    }, decompositionExecutor)
+                    .thenAcceptAsync(results -> {
+                        summary.exportStage.dequeue(enqueueTime.get());
+                        export(networkFile, results, summary);
+                    }, exportExecutor)
+                    .whenComplete((ignored, throwable) -> {
+                        inFlightNetworks.release();
+                        if (throwable != null) {
+                            summary.failedNetworks.incrementAndGet();
+                            LOGGER.error("Flow decomposition of {} failed", networkFile, throwable);
+                        }
+                    }));
+            }
+            CompletableFuture.allOf(pipelines.toArray(new CompletableFuture[0])).exceptionally(throwable -> null).join();
+        } finally {
+            importExecutor.shutdownNow();
+            decompositionExecutor.shutdownNow();
+            exportExecutor.shutdownNow();
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Virtual threads are looked up by reflection, as they are not available on every supported Java version.
+     */
+    private static ExecutorService newIoExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            LOGGER.warn("Virtual threads are not available, I/O stages run on a cached thread pool instead");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private static void acquire(Semaphore inFlightNetworks) {
+        try {
+            inFlightNetworks.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PowsyblException("Interrupted while waiting for a network to leave the pipeline", e);
+        }
+    }
+
+    private static Network importNetwork(Path networkFile, Summary summary) {
+        long start = System.nanoTime();
+        Network network = Importers.loadNetwork(networkFile);
+        summary.importNanos.addAndGet(System.nanoTime() - start);
+        return network;
+    }
+
+    private FlowDecompositionResults decompose(Network network, Summary summary) {
+        long start = System.nanoTime();
+        FlowDecompositionResults flowDecompositionResults = flowDecompositionComputer.run(network);
+        summary.decompositionNanos.addAndGet(System.nanoTime() - start);
+        return flowDecompositionResults;
+    }
+
+    private void export(Path networkFile, FlowDecompositionResults flowDecompositionResults, Summary summary) {
+        long start = System.nanoTime();
+        String basename = networkFile.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        csvExporter.export(exportDir, basename, flowDecompositionResults.getDecomposedFlowMap());
+        summary.exportNanos.addAndGet(System.nanoTime() - start);
+        summary.decomposedXnecs.addAndGet(flowDecompositionResults.getDecomposedFlowMap().size());
+        summary.exportedNetworks.incrementAndGet();
+    }
+
+    /**
+     * Networks waiting for a stage. A network waits from the end of the previous stage, or from its submission for the import stage,
+     * to the start of the stage.
+     */
+    private static final class StageQueue {
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        long enqueue() {
+            int currentDepth = depth.incrementAndGet();
+            maxDepth.accumulateAndGet(currentDepth, Math::max);
+            return System.nanoTime();
+        }
+
+        void dequeue(long enqueueTime) {
+            waitNanos.addAndGet(System.nanoTime() - enqueueTime);
+            depth.decrementAndGet();
+        }
+    }
+
+    /**
+     * Counters of a batch run. Stage and wait times are summed over all networks.
+     */
+    public static final class Summary {
+        private final StageQueue importStage = new StageQueue();
+        private final StageQueue decompositionStage = new StageQueue();
+        private final StageQueue exportStage = new StageQueue();
+        private final AtomicInteger exportedNetworks = new AtomicInteger();
+        private final AtomicInteger failedNetworks = new AtomicInteger();
+        private final AtomicLong decomposedXnecs = new AtomicLong();
+        private final AtomicLong importNanos = new AtomicLong();
+        private final AtomicLong decompositionNanos = new AtomicLong();
+        private final AtomicLong exportNanos = new AtomicLong();
+        private long elapsedNanos;
+
+        private Summary() {
+        }
+
+        public int getExportedNetworks() {
+            return exportedNetworks.get();
+        }
+
+        public int getFailedNetworks() {
+            return failedNetworks.get();
+        }
+
+        public long getDecomposedXnecs() {
+            return decomposedXnecs.get();
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / NANOS_PER_SECOND;
+        }
+
+        public double getImportWaitSeconds() {
+            return importStage.waitNanos.get() / NANOS_PER_SECOND;
+        }
+
+        public double getDecompositionWaitSeconds() {
+            return decompositionStage.waitNanos.get() / NANOS_PER_SECOND;
+        }
+
+        public double getExportWaitSeconds() {
+            return exportStage.waitNanos.get() / NANOS_PER_SECOND;
+        }
+
+        /**
+         * @return Maximum number of imported networks waiting for a decomposition worker
+         */
+        public int getMaxDecompositionQueueDepth() {
+            return decompositionStage.maxDepth.get();
+        }
+
+        /**
+         * @return Maximum number of decomposed networks waiting to be exported
+         */
+        public int getMaxExportQueueDepth() {
+            return exportStage.maxDepth.get();
+        }
+
+        /**
+         * @return Number of exported networks per second of wall-clock time
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0. : exportedNetworks.get() / getElapsedSeconds();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d network(s) decomposed, %d failed, %d XNEC(s) in %.3f s (%.3f networks/s); "
+                    + "cumulated stage times: import %.3f s, decomposition %.3f s, export %.3f s; "
+                    + "cumulated wait times: import %.3f s, decomposition %.3f s, export %.3f s; "
+                    + "max queue depths: decomposition %d, export %d",
+                getExportedNetworks(), getFailedNetworks(), getDecomposedXnecs(), getElapsedSeconds(), getThroughput(),
+                importNanos.get() / NANOS_PER_SECOND, decompositionNanos.get() / NANOS_PER_SECOND, exportNanos.get() / NANOS_PER_SECOND,
+                getImportWaitSeconds(), getDecompositionWaitSeconds(), getExportWaitSeconds(),
+                getMaxDecompositionQueueDepth(), getMaxExportQueueDepth());
+        }
+    }
+}
@@ -6,6 +6,7 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
+import com.powsybl.commons.PowsyblException;
 import com.powsybl.iidm.network.*;
 import com.powsybl.loadflow.LoadFlowParameters;
 import com.powsybl.sensitivity.*;
@@ -13,6 +14,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
@@ -20,49 +25,235 @@ import java.util.*;
  */
 public class FlowDecompositionComputer {
     static final boolean DC_LOAD_FLOW = true;
+    private static final int PTDF_MATRIX = 0;
+    private static final int PSDF_MATRIX = 1;
+    private static final int HVDC_SENSITIVITY_MATRIX = 2;
     private static final Logger LOGGER = LoggerFactory.getLogger(FlowDecompositionComputer.class);
     private final LoadFlowParameters loadFlowParameters;
     private final FlowDecompositionParameters parameters;
+    private final GlskProvider glskProvider;
+    private final ZoneMapping zoneMapping;
 
     public FlowDecompositionComputer() {
         this(new FlowDecompositionParameters());
     }
 
     public FlowDecompositionComputer(FlowDecompositionParameters parameters) {
+        this(parameters, GlskProvider.auto());
+    }
+
+    public FlowDecompositionComputer(FlowDecompositionParameters parameters, GlskProvider glskProvider) {
+        this(parameters, glskProvider, ZoneMapping.byCountry());
+    }
+
+    /**
+     * @param zoneMapping Zones on which net positions, GLSKs and loop flows are computed. Countries by default.
+     */
+    public FlowDecompositionComputer(FlowDecompositionParameters parameters, GlskProvider glskProvider, ZoneMapping zoneMapping) {
         this.parameters = parameters;
+        this.glskProvider = glskProvider;
+        this.zoneMapping = zoneMapping;
         this.loadFlowParameters = initLoadFlowParameters();
     }
 
     public FlowDecompositionResults run(Network network) {
-        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionResults(network, parameters);
+        return run(network, XnecFilter.interconnections());
+    }
+
+    /**
+     * Decomposes the flow of the branches selected by the given filter only.
+     * @param network Network on which the flow decomposition is run
+     * @param xnecFilter Selection of the XNECs to decompose
+     * @return Flow decomposition results of the selected XNECs
+     */
+    public FlowDecompositionResults run(Network network, XnecFilter xnecFilter) {
+        FlowDecompositionResults flowDecompositionResults = decomposeNetwork(network, xnecFilter);
+        rescale(flowDecompositionResults);
+        return flowDecompositionResults;
+    }
+
+    /**
+     * Decomposes the flow of the selected branches and streams each final decomposed flow to the sink,
+     * instead of collecting them in a {@link FlowDecompositionResults}.
+     * Rows are read straight from the decomposition matrices into a single row buffer, without building a dense block of all XNECs.
+     * Rescaling, if enabled, uses the first rescale mode of the parameters and is done XNEC by XNEC in that buffer.
+     * @param network Network on which the flow decomposition is run
+     * @param xnecFilter Selection of the XNECs to decompose
+     * @param decomposedFlowSink Consumer of the decomposed flows
+     */
+    public void run(Network network, XnecFilter xnecFilter, DecomposedFlowSink decomposedFlowSink) {
+        DecomposedFlowRowReader decomposedFlowRowReader = decomposeNetwork(network, xnecFilter).getDecomposedFlowRowReaderBeforeRescaling();
+        List<RescaleMode> rescaleModes = parameters.getRescaleModes();
+        DecomposedFlowsRescaler decomposedFlowsRescaler = rescaleModes.isEmpty() ? null : new DecomposedFlowsRescaler(rescaleModes.get(0));
+        double[] row = new double[decomposedFlowRowReader.getComponentCount()];
+        decomposedFlowSink.start(network.getNameOrId(), decomposedFlowRowReader.getLoopFlowColumns());
+        for (int xnec = 0; xnec < decomposedFlowRowReader.getXnecCount(); xnec++) {
+            decomposedFlowRowReader.readRow(xnec, row);
+            if (decomposedFlowsRescaler != null) {
+                decomposedFlowsRescaler.rescaleRow(row, decomposedFlowRowReader.getAcReferenceFlow(xnec), decomposedFlowRowReader.getDcReferenceFlow(xnec));
+            }
+            decomposedFlowSink.accept(decomposedFlowRowReader.getXnecId(xnec), decomposedFlowRowReader.createDecomposedFlow(xnec, row));
+        }
+        decomposedFlowSink.end();
+    }
 
+    private FlowDecompositionResults decomposeNetwork(Network network, XnecFilter xnecFilter) {
+        NetworkZones networkZones = new NetworkZones(network, zoneMapping);
+        Map<String, Map<String, Double>> glsks = glskProvider.getGlsks(network, zoneMapping);
+        List<Integer> synchronousComponents = parameters.doesDecomposeAllSynchronousComponents()
+            ? SynchronousComponentSplitter.getSynchronousComponents(network, xnecFilter)
+            : List.of();
+        if (synchronousComponents.isEmpty()
+            || synchronousComponents.equals(List.of(SynchronousComponentSplitter.MAIN_SYNCHRONOUS_COMPONENT))) {
+            //AC LF
+            Map<String, Double> netPositions = getZonesNetPosition(network, networkZones);
+            return decompose(network, xnecFilter, networkZones, netPositions, glsks);
+        }
         //AC LF
-        List<Branch> xnecList = new XnecSelector().run(network);
-        Map<Country, Double> netPositions = getZonesNetPosition(network, flowDecompositionResults);
+        new NetPositionComputer(loadFlowParameters, networkZones).runAcLoadFlow(network);
+        FlowDecompositionResults flowDecompositionResults =
+            decomposeSynchronousComponents(network, xnecFilter, networkZones, glsks, synchronousComponents);
+        flowDecompositionResults.saveGlsks(glsks);
+        return flowDecompositionResults;
+    }
+
+    /**
+     * Decomposes each synchronous component in its own variant, where it is the main synchronous component,
+     * and merges the results. Components are decomposed concurrently, unless losses are compensated by creating loads,
+     * as this modifies the network.
+     */
+    private FlowDecompositionResults decomposeSynchronousComponents(Network network,
+                                                                    XnecFilter xnecFilter,
+                                                                    NetworkZones networkZones,
+                                                                    Map<String, Map<String, Double>> glsks,
+                                                                    List<Integer> synchronousComponents) {
+        VariantManager variantManager = network.getVariantManager();
+        String initialVariantId = variantManager.getWorkingVariantId();
+        boolean initialMultiThreadAccess = variantManager.isVariantMultiThreadAccessAllowed();
+        List<String> variantIds = new ArrayList<>();
+        try {
+            synchronousComponents.forEach(synchronousComponent ->
+                variantIds.add(SynchronousComponentSplitter.createVariant(network, synchronousComponent)));
+            LOGGER.debug("Decomposing synchronous components {} independently", synchronousComponents);
+            List<FlowDecompositionResults> componentResults = getThreadCount(variantIds.size()) <= 1
+                ? decomposeSequentially(network, xnecFilter, networkZones, glsks, variantIds)
+                : decomposeConcurrently(network, xnecFilter, networkZones, glsks, variantIds);
+            return FlowDecompositionResults.merge(network, parameters, componentResults);
+        } finally {
+            variantManager.allowVariantMultiThreadAccess(initialMultiThreadAccess);
+            variantManager.setWorkingVariant(initialVariantId);
+            variantIds.forEach(variantManager::removeVariant);
+        }
+    }
+
+    private int getThreadCount(int componentCount) {
+        boolean modifiesNetwork = parameters.isLossesCompensationEnabled()
+            && parameters.getLossesCompensationMode() == LossesCompensationMode.LOAD_CREATION;
+        return modifiesNetwork ? 1 : Math.min(parameters.getParallelism(), componentCount);
+    }
+
+    private List<FlowDecompositionResults> decomposeSequentially(Network network,
+                                                                 XnecFilter xnecFilter,
+                                                                 NetworkZones networkZones,
+                                                                 Map<String, Map<String, Double>> glsks,
+                                                                 List<String> variantIds) {
+        List<FlowDecompositionResults> componentResults = new ArrayList<>();
+        for (String variantId : variantIds) {
+            network.getVariantManager().setWorkingVariant(variantId);
+            componentResults.add(decomposeSynchronousComponent(network, xnecFilter, networkZones, glsks));
+        }
+        return componentResults;
+    }
+
+    private List<FlowDecompositionResults> decomposeConcurrently(Network network,
+                                                                 XnecFilter xnecFilter,
+                                                                 NetworkZones networkZones,
+                                                                 Map<String, Map<String, Double>> glsks,
+                                                                 List<String> variantIds) {
+        VariantManager variantManager = network.getVariantManager();
+        variantManager.allowVariantMultiThreadAccess(true);
+        ExecutorService executor = Executors.newFixedThreadPool(getThreadCount(variantIds.size()));
+        try {
+            List<Future<FlowDecompositionResults>> components = new ArrayList<>();
+            for (String variantId : variantIds) {
+                components.add(executor.submit(() -> {
+                    variantManager.setWorkingVariant(variantId);
+                    return decomposeSynchronousComponent(network, xnecFilter, networkZones, glsks);
+                }));
+            }
+            List<FlowDecompositionResults> componentResults = new ArrayList<>();
+            for (Future<FlowDecompositionResults> component : components) {
+                componentResults.add(waitFor(component));
+            }
+            return componentResults;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static FlowDecompositionResults waitFor(Future<FlowDecompositionResults> component) {
+        try {
+            return component.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PowsyblException("Interrupted during parallel decomposition of synchronous components", e);
+        } catch (ExecutionException e) {
+            throw new PowsyblException("Parallel decomposition of synchronous components failed", e.getCause());
+        }
+    }
+
+    /**
+     * Net positions and GLSKs are restricted to the synchronous component of the working variant,
+     * so that zones spanning several components are split between them.
+     */
+    private FlowDecompositionResults decomposeSynchronousComponent(Network network,
+                                                                   XnecFilter xnecFilter,
+                                                                   NetworkZones networkZones,
+                                                                   Map<String, Map<String, Double>> glsks) {
+        return decompose(network, xnecFilter, networkZones,
+            NetPositionComputer.computeMainSynchronousComponentNetPositions(network, networkZones),
+            SynchronousComponentSplitter.getMainSynchronousComponentGlsks(network, glsks));
+    }
+
+    /**
+     * Decomposes the XNECs of the main synchronous component of the working variant, whose AC load flow has been run.
+     */
+    private FlowDecompositionResults decompose(Network network,
+                                               XnecFilter xnecFilter,
+                                               NetworkZones networkZones,
+                                               Map<String, Double> netPositions,
+                                               Map<String, Map<String, Double>> glsks) {
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionResults(network, parameters);
+        List<Branch> xnecList = new XnecSelector(xnecFilter).run(network);
+        flowDecompositionResults.saveACNetPosition(netPositions);
         flowDecompositionResults.saveAcReferenceFlow(getXnecReferenceFlows(xnecList));
         compensateLosses(network);
 
         // None
         NetworkMatrixIndexes networkMatrixIndexes = new NetworkMatrixIndexes(network, xnecList);
-        Map<Country, Map<String, Double>> glsks = getGlsks(network, flowDecompositionResults);
+        IndexedGlsks indexedGlsks = getGlsks(glsks, networkZones, flowDecompositionResults, networkMatrixIndexes);
+        LossesInjections lossesInjections = getLossesInjections(network, networkMatrixIndexes);
 
         // DC LF
-        SparseMatrixWithIndexesTriplet nodalInjectionsMatrix = getNodalInjectionsMatrix(network,
-            flowDecompositionResults, netPositions, networkMatrixIndexes, glsks);
-        flowDecompositionResults.saveDcReferenceFlow(getXnecReferenceFlows(xnecList));
+        SparseMatrixWithIndexesCSC nodalInjectionsMatrix = getNodalInjectionsMatrix(network,
+            flowDecompositionResults, netPositions, networkMatrixIndexes, networkZones, indexedGlsks, lossesInjections);
+        Map<String, Double> dcReferenceFlows = getXnecReferenceFlows(xnecList);
 
         // DC Sensi
         SensitivityAnalyser sensitivityAnalyser = getSensitivityAnalyser(network, networkMatrixIndexes);
-        SparseMatrixWithIndexesTriplet ptdfMatrix = getPtdfMatrix(flowDecompositionResults,
-            networkMatrixIndexes, sensitivityAnalyser);
-        SparseMatrixWithIndexesTriplet psdfMatrix = getPsdfMatrix(flowDecompositionResults,
-            networkMatrixIndexes, sensitivityAnalyser);
+        List<SparseMatrixWithIndexesTriplet> sensitivityMatrices = runSensitivityAnalysis(networkMatrixIndexes, sensitivityAnalyser);
+        MultipliableSparseMatrix ptdfMatrix = needsDoublePrecisionPtdfs(lossesInjections)
+            ? getPtdfMatrix(flowDecompositionResults, sensitivityMatrices, networkMatrixIndexes, networkZones, indexedGlsks, lossesInjections,
+                dcReferenceFlows, nodalInjectionsMatrix)
+            : getPtdfMatrix(flowDecompositionResults, sensitivityMatrices);
+        flowDecompositionResults.saveDcReferenceFlow(dcReferenceFlows);
+        MultipliableSparseMatrix psdfMatrix = getPsdfMatrix(flowDecompositionResults, sensitivityMatrices);
+        SparseMatrixWithIndexesCSC hvdcSensitivityMatrix = getHvdcSensitivityMatrix(flowDecompositionResults, sensitivityMatrices);
 
         // None
         computeAllocatedAndLoopFlows(flowDecompositionResults, nodalInjectionsMatrix, ptdfMatrix);
         computePstFlows(network, flowDecompositionResults, networkMatrixIndexes, psdfMatrix);
-
-        rescale(flowDecompositionResults);
+        computeHvdcFlows(flowDecompositionResults, networkMatrixIndexes, hvdcSensitivityMatrix);
 
         return flowDecompositionResults;
     }
@@ -74,12 +265,9 @@ public class FlowDecompositionComputer {
         return parameters;
     }
 
-    private Map<Country, Double> getZonesNetPosition(Network network,
-                                                     FlowDecompositionResults flowDecompositionResults) {
-        NetPositionComputer netPositionComputer = new NetPositionComputer(loadFlowParameters);
-        Map<Country, Double> netPosition = netPositionComputer.run(network);
-        flowDecompositionResults.saveACNetPosition(netPosition);
-        return netPosition;
+    private Map<String, Double> getZonesNetPosition(Network network, NetworkZones networkZones) {
+        NetPositionComputer netPositionComputer = new NetPositionComputer(loadFlowParameters, networkZones);
+        return netPositionComputer.run(network);
     }
 
     private Map<String, Double> getXnecReferenceFlows(List<Branch> xnecList) {
@@ -88,50 +276,62 @@ public class FlowDecompositionComputer {
     }
 
     private void compensateLosses(Network network) {
-        if (parameters.isLossesCompensationEnabled()) {
+        if (parameters.isLossesCompensationEnabled()
+            && parameters.getLossesCompensationMode() == LossesCompensationMode.LOAD_CREATION) {
             LossesCompensator lossesCompensator = new LossesCompensator(loadFlowParameters, parameters);
             lossesCompensator.run(network);
         }
     }
 
-    private Map<Country, Map<String, Double>> getGlsks(Network network,
-                                                       FlowDecompositionResults flowDecompositionResults) {
-        GlskComputer glskComputer = new GlskComputer();
-        Map<Country, Map<String, Double>> glsks = glskComputer.run(network);
+    private LossesInjections getLossesInjections(Network network, NetworkMatrixIndexes networkMatrixIndexes) {
+        if (parameters.isLossesCompensationEnabled()
+            && parameters.getLossesCompensationMode() == LossesCompensationMode.INJECTION_DELTA) {
+            LossesCompensator lossesCompensator = new LossesCompensator(loadFlowParameters, parameters);
+            return lossesCompensator.computeLossesInjections(network, networkMatrixIndexes);
+        }
+        return LossesInjections.none();
+    }
+
+    private IndexedGlsks getGlsks(Map<String, Map<String, Double>> glsks,
+                                  NetworkZones networkZones,
+                                  FlowDecompositionResults flowDecompositionResults,
+                                  NetworkMatrixIndexes networkMatrixIndexes) {
         flowDecompositionResults.saveGlsks(glsks);
-        return glsks;
+        return IndexedGlsks.of(glsks, networkMatrixIndexes.getNodeIndex(), networkZones);
     }
 
-    private SparseMatrixWithIndexesTriplet getNodalInjectionsMatrix(Network network,
-                                                                    FlowDecompositionResults flowDecompositionResults,
-                                                                    Map<Country, Double> netPositions,
-                                                                    NetworkMatrixIndexes networkMatrixIndexes,
-                                                                    Map<Country, Map<String, Double>> glsks) {
-        NodalInjectionComputer nodalInjectionComputer = new NodalInjectionComputer(networkMatrixIndexes);
-        Map<String, Double> dcNodalInjection = getDcNodalInjection(network, flowDecompositionResults, networkMatrixIndexes);
+    private SparseMatrixWithIndexesCSC getNodalInjectionsMatrix(Network network,
+                                                                FlowDecompositionResults flowDecompositionResults,
+                                                                Map<String, Double> netPositions,
+                                                                NetworkMatrixIndexes networkMatrixIndexes,
+                                                                NetworkZones networkZones,
+                                                                IndexedGlsks glsks,
+                                                                LossesInjections lossesInjections) {
+        NodalInjectionComputer nodalInjectionComputer = new NodalInjectionComputer(networkMatrixIndexes, networkZones);
+        Map<String, Double> dcNodalInjection = getDcNodalInjection(network, flowDecompositionResults, networkMatrixIndexes, lossesInjections);
 
-        return getNodalInjectionsMatrix(network, flowDecompositionResults, netPositions, glsks,
+        return getNodalInjectionsMatrix(flowDecompositionResults, netPositions, glsks,
             nodalInjectionComputer, dcNodalInjection);
     }
 
     private Map<String, Double> getDcNodalInjection(Network network,
                                                     FlowDecompositionResults flowDecompositionResults,
-                                                    NetworkMatrixIndexes networkMatrixIndexes) {
+                                                    NetworkMatrixIndexes networkMatrixIndexes,
+                                                    LossesInjections lossesInjections) {
         ReferenceNodalInjectionComputer referenceNodalInjectionComputer = new ReferenceNodalInjectionComputer(networkMatrixIndexes);
         Map<String, Double> dcNodalInjection = referenceNodalInjectionComputer.run(network, loadFlowParameters);
+        lossesInjections.applyOnNodalInjections(dcNodalInjection, networkMatrixIndexes.getNodeIndex());
         flowDecompositionResults.saveDcNodalInjections(dcNodalInjection);
         return dcNodalInjection;
     }
 
-    private SparseMatrixWithIndexesTriplet getNodalInjectionsMatrix(Network network,
-                                                                    FlowDecompositionResults flowDecompositionResults,
-                                                                    Map<Country, Double> netPositions,
-                                                                    Map<Country, Map<String, Double>> glsks,
-                                                                    NodalInjectionComputer nodalInjectionComputer,
-                                                                    Map<String, Double> dcNodalInjection) {
-        SparseMatrixWithIndexesTriplet nodalInjectionsMatrix =
-            nodalInjectionComputer.run(network,
-                glsks, netPositions, dcNodalInjection);
+    private SparseMatrixWithIndexesCSC getNodalInjectionsMatrix(FlowDecompositionResults flowDecompositionResults,
+                                                                Map<String, Double> netPositions,
+                                                                IndexedGlsks glsks,
+                                                                NodalInjectionComputer nodalInjectionComputer,
+                                                                Map<String, Double> dcNodalInjection) {
+        SparseMatrixWithIndexesCSC nodalInjectionsMatrix =
+            nodalInjectionComputer.run(glsks, netPositions, dcNodalInjection).toCSCMatrix();
         flowDecompositionResults.saveNodalInjectionsMatrix(nodalInjectionsMatrix);
         return nodalInjectionsMatrix;
     }
@@ -140,54 +340,157 @@ public class FlowDecompositionComputer {
         return new SensitivityAnalyser(loadFlowParameters, parameters, network, networkMatrixIndexes);
     }
 
-    private SparseMatrixWithIndexesTriplet getPtdfMatrix(FlowDecompositionResults flowDecompositionResults,
-                                                         NetworkMatrixIndexes networkMatrixIndexes,
-                                                         SensitivityAnalyser sensitivityAnalyser) {
-        SparseMatrixWithIndexesTriplet ptdfMatrix =
-            sensitivityAnalyser.run(networkMatrixIndexes.getNodeIdList(),
-                networkMatrixIndexes.getNodeIndex(),
-                SensitivityVariableType.INJECTION_ACTIVE_POWER);
+    /**
+     * PTDFs, PSDFs and HVDC sensitivities are computed in the same batched sensitivity analyses.
+     */
+    private List<SparseMatrixWithIndexesTriplet> runSensitivityAnalysis(NetworkMatrixIndexes networkMatrixIndexes,
+                                                                        SensitivityAnalyser sensitivityAnalyser) {
+        return sensitivityAnalyser.run(List.of(
+            new SensitivityAnalyser.Variables(networkMatrixIndexes.getNodeIdList(),
+                networkMatrixIndexes.getNodeIndex(), SensitivityVariableType.INJECTION_ACTIVE_POWER),
+            new SensitivityAnalyser.Variables(networkMatrixIndexes.getPstList(),
+                networkMatrixIndexes.getPstIndex(), SensitivityVariableType.TRANSFORMER_PHASE),
+            new SensitivityAnalyser.Variables(networkMatrixIndexes.getHvdcIdList(),
+                networkMatrixIndexes.getHvdcIndex(), SensitivityVariableType.HVDC_LINE_ACTIVE_POWER)));
+    }
+
+    /**
+     * Removes a sensitivity matrix from the list, so that its triplets can be garbage collected once converted.
+     */
+    private static SparseMatrixWithIndexesTriplet takeSensitivityMatrix(List<SparseMatrixWithIndexesTriplet> sensitivityMatrices, int matrix) {
+        return sensitivityMatrices.set(matrix, null);
+    }
+
+    /**
+     * Double precision PTDFs are needed to store them in double precision, to compute zonal PTDFs,
+     * to apply losses injections on the DC reference flows and to sparsify them.
+     */
+    private boolean needsDoublePrecisionPtdfs(LossesInjections lossesInjections) {
+        return !parameters.doesStoreSensitivitiesAsFloat32()
+            || parameters.doesSave(IntermediateResult.ZONAL_PTDF)
+            || !lossesInjections.isNone()
+            || parameters.getPtdfSparsificationMode() != PtdfSparsificationMode.NONE;
+    }
+
+    /**
+     * PTDFs stored in single precision straight from the sensitivity triplets.
+     */
+    private MultipliableSparseMatrix getPtdfMatrix(FlowDecompositionResults flowDecompositionResults,
+                                                   List<SparseMatrixWithIndexesTriplet> sensitivityMatrices) {
+        MultipliableSparseMatrix ptdfMatrix = SparseMatrixWithIndexesFloatCSC.of(takeSensitivityMatrix(sensitivityMatrices, PTDF_MATRIX));
         flowDecompositionResults.savePtdfMatrix(ptdfMatrix);
         return ptdfMatrix;
     }
 
+    /**
+     * PTDFs computed in double precision, then sparsified and stored in the precision chosen in the parameters.
+     * The complete double precision PTDFs are only referenced here, so they can be garbage collected
+     * before the allocated and loop flows are computed.
+     */
+    private MultipliableSparseMatrix getPtdfMatrix(FlowDecompositionResults flowDecompositionResults,
+                                                   List<SparseMatrixWithIndexesTriplet> sensitivityMatrices,
+                                                   NetworkMatrixIndexes networkMatrixIndexes,
+                                                   NetworkZones networkZones,
+                                                   IndexedGlsks glsks,
+                                                   LossesInjections lossesInjections,
+                                                   Map<String, Double> dcReferenceFlows,
+                                                   SparseMatrixWithIndexesCSC nodalInjectionsMatrix) {
+        SparseMatrixWithIndexesCSC ptdfMatrix = takeSensitivityMatrix(sensitivityMatrices, PTDF_MATRIX).toCSCMatrix();
+        computeZonalPtdfs(flowDecompositionResults, networkMatrixIndexes, networkZones, glsks, ptdfMatrix);
+        lossesInjections.applyOnReferenceFlows(dcReferenceFlows, ptdfMatrix);
+        return sparsifyPtdfMatrix(flowDecompositionResults, ptdfMatrix, nodalInjectionsMatrix);
+    }
+
+    /**
+     * Zonal PTDFs are only computed when saved. They are computed with all the PTDFs, in double precision.
+     */
+    private void computeZonalPtdfs(FlowDecompositionResults flowDecompositionResults,
+                                   NetworkMatrixIndexes networkMatrixIndexes,
+                                   NetworkZones networkZones,
+                                   IndexedGlsks glsks,
+                                   SparseMatrixWithIndexesCSC ptdfMatrix) {
+        if (parameters.doesSave(IntermediateResult.ZONAL_PTDF)) {
+            SparseMatrixWithIndexesCSC glskMatrix = glsks.toMatrix(networkMatrixIndexes.getNodeIndex(), networkZones.getZoneIndex());
+            SparseMatrixWithIndexesCSC zonalPtdfMatrix = SparseMatrixWithIndexesCSC.mult(ptdfMatrix, glskMatrix, parameters.getParallelism());
+            flowDecompositionResults.saveZonalPtdfMatrix(DenseMatrixWithIndexes.of(zonalPtdfMatrix));
+        }
+    }
+
+    /**
+     * DC reference flows are computed with all the PTDFs, the sparsified ones are only used for allocated and loop flows.
+     */
+    private MultipliableSparseMatrix sparsifyPtdfMatrix(FlowDecompositionResults flowDecompositionResults,
+                                                        SparseMatrixWithIndexesCSC ptdfMatrix,
+                                                        SparseMatrixWithIndexesCSC nodalInjectionsMatrix) {
+        SparseMatrixWithIndexesCSC sparsePtdfMatrix = ptdfMatrix;
+        if (parameters.getPtdfSparsificationMode() != PtdfSparsificationMode.NONE) {
+            PtdfSparsifier ptdfSparsifier = new PtdfSparsifier(parameters);
+            sparsePtdfMatrix = ptdfSparsifier.run(ptdfMatrix, nodalInjectionsMatrix);
+            flowDecompositionResults.savePtdfSparsificationReport(ptdfSparsifier.getReport());
+        }
+        MultipliableSparseMatrix storedPtdfMatrix = toStoragePrecision(sparsePtdfMatrix);
+        flowDecompositionResults.savePtdfMatrix(storedPtdfMatrix);
+        return storedPtdfMatrix;
+    }
+
+    /**
+     * Sensitivities are computed in double precision and kept in the precision chosen in the parameters.
+     */
+    private MultipliableSparseMatrix toStoragePrecision(SparseMatrixWithIndexesCSC sensitivityMatrix) {
+        return parameters.doesStoreSensitivitiesAsFloat32() ? SparseMatrixWithIndexesFloatCSC.of(sensitivityMatrix) : sensitivityMatrix;
+    }
+
     private void computeAllocatedAndLoopFlows(FlowDecompositionResults flowDecompositionResults,
-                                              SparseMatrixWithIndexesTriplet nodalInjectionsMatrix,
-                                              SparseMatrixWithIndexesTriplet ptdfMatrix) {
-        SparseMatrixWithIndexesCSC allocatedLoopFlowsMatrix =
-            SparseMatrixWithIndexesCSC.mult(ptdfMatrix.toCSCMatrix(), nodalInjectionsMatrix.toCSCMatrix());
+                                              SparseMatrixWithIndexesCSC nodalInjectionsMatrix,
+                                              MultipliableSparseMatrix ptdfMatrix) {
+        SparseMatrixWithIndexesCSC allocatedLoopFlowsMatrix = ptdfMatrix.mult(nodalInjectionsMatrix, parameters.getParallelism());
         flowDecompositionResults.saveAllocatedAndLoopFlowsMatrix(allocatedLoopFlowsMatrix);
     }
 
-    private SparseMatrixWithIndexesTriplet getPsdfMatrix(FlowDecompositionResults flowDecompositionResults,
-                                                         NetworkMatrixIndexes networkMatrixIndexes,
-                                                         SensitivityAnalyser sensitivityAnalyser) {
-        SparseMatrixWithIndexesTriplet psdfMatrix =
-            sensitivityAnalyser.run(networkMatrixIndexes.getPstList(),
-                networkMatrixIndexes.getPstIndex(), SensitivityVariableType.TRANSFORMER_PHASE);
+    private MultipliableSparseMatrix getPsdfMatrix(FlowDecompositionResults flowDecompositionResults,
+                                                   List<SparseMatrixWithIndexesTriplet> sensitivityMatrices) {
+        SparseMatrixWithIndexesTriplet psdfTriplets = takeSensitivityMatrix(sensitivityMatrices, PSDF_MATRIX);
+        MultipliableSparseMatrix psdfMatrix = parameters.doesStoreSensitivitiesAsFloat32()
+            ? SparseMatrixWithIndexesFloatCSC.of(psdfTriplets)
+            : psdfTriplets.toCSCMatrix();
         flowDecompositionResults.savePsdfMatrix(psdfMatrix);
         return psdfMatrix;
     }
 
+    private SparseMatrixWithIndexesCSC getHvdcSensitivityMatrix(FlowDecompositionResults flowDecompositionResults,
+                                                                List<SparseMatrixWithIndexesTriplet> sensitivityMatrices) {
+        SparseMatrixWithIndexesCSC hvdcSensitivityMatrix = takeSensitivityMatrix(sensitivityMatrices, HVDC_SENSITIVITY_MATRIX).toCSCMatrix();
+        flowDecompositionResults.saveHvdcSensitivityMatrix(hvdcSensitivityMatrix);
+        return hvdcSensitivityMatrix;
+    }
+
     private void computePstFlows(Network network,
                                  FlowDecompositionResults flowDecompositionResults,
                                  NetworkMatrixIndexes networkMatrixIndexes,
-                                 SparseMatrixWithIndexesTriplet psdfMatrix) {
+                                 MultipliableSparseMatrix psdfMatrix) {
         PstFlowComputer pstFlowComputer = new PstFlowComputer();
         SparseMatrixWithIndexesCSC pstFlowMatrix = pstFlowComputer.run(network, networkMatrixIndexes, psdfMatrix);
         flowDecompositionResults.savePstFlowMatrix(pstFlowMatrix);
     }
 
-    private void rescale(FlowDecompositionResults flowDecompositionResults) {
-        flowDecompositionResults.saveRescaledDecomposedFlowMap(getRescaledDecomposedFlowMap(flowDecompositionResults));
+    private void computeHvdcFlows(FlowDecompositionResults flowDecompositionResults,
+                                  NetworkMatrixIndexes networkMatrixIndexes,
+                                  SparseMatrixWithIndexesCSC hvdcSensitivityMatrix) {
+        HvdcFlowComputer hvdcFlowComputer = new HvdcFlowComputer();
+        SparseMatrixWithIndexesCSC hvdcFlowMatrix = hvdcFlowComputer.run(networkMatrixIndexes, hvdcSensitivityMatrix);
+        flowDecompositionResults.saveHvdcFlowMatrix(hvdcFlowMatrix);
     }
 
-    private Map<String, DecomposedFlow> getRescaledDecomposedFlowMap(FlowDecompositionResults flowDecompositionResults) {
-        Map<String, DecomposedFlow> decomposedFlowMap = flowDecompositionResults.getDecomposedFlowMapBeforeRescaling();
-        if (parameters.isRescaleEnabled()) {
-            DecomposedFlowsRescaler decomposedFlowsRescaler = new DecomposedFlowsRescaler();
-            return decomposedFlowsRescaler.rescale(decomposedFlowMap);
+    private void rescale(FlowDecompositionResults flowDecompositionResults) {
+        List<RescaleMode> rescaleModes = parameters.getRescaleModes();
+        if (rescaleModes.isEmpty()) {
+            flowDecompositionResults.saveRescaledDecomposedFlowMap(flowDecompositionResults.getDecomposedFlowMapBeforeRescaling());
+            return;
         }
-        return decomposedFlowMap;
+        Map<RescaleMode, DecomposedFlowBlock> rescaledBlocks =
+            DecomposedFlowsRescaler.rescale(flowDecompositionResults.getDecomposedFlowBlockBeforeRescaling(), rescaleModes);
+        rescaledBlocks.forEach((rescaleMode, rescaledBlock) ->
+            flowDecompositionResults.saveRescaledDecomposedFlowMap(rescaleMode, rescaledBlock.toDecomposedFlowMap()));
+        flowDecompositionResults.saveRescaledDecomposedFlowMap(flowDecompositionResults.getDecomposedFlowMap(rescaleModes.get(0)).orElseThrow());
     }
 }
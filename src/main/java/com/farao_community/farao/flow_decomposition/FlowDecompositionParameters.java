@@ -6,6 +6,10 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
+import com.powsybl.commons.PowsyblException;
+
+import java.util.*;
+
 /**
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
@@ -19,31 +23,78 @@ public class FlowDecompositionParameters {
     static final boolean DISABLE_LOSSES_COMPENSATION = false;
     static final boolean ENABLE_LOSSES_COMPENSATION = true;
     static final double DISABLE_LOSSES_COMPENSATION_EPSILON = -1;
-    private static final boolean DEFAULT_SAVE_INTERMEDIATES = DO_NOT_SAVE_INTERMEDIATES;
+    static final boolean ALL_SYNCHRONOUS_COMPONENTS = true;
+    static final boolean MAIN_SYNCHRONOUS_COMPONENT_ONLY = false;
+    static final boolean FLOAT32_SENSITIVITIES = true;
+    static final boolean FLOAT64_SENSITIVITIES = false;
     private static final boolean DEFAULT_ENABLE_LOSSES_COMPENSATION = DISABLE_LOSSES_COMPENSATION;
     private static final double DEFAULT_LOSSES_COMPENSATION_EPSILON = 1e-5;
+    private static final LossesCompensationMode DEFAULT_LOSSES_COMPENSATION_MODE = LossesCompensationMode.LOAD_CREATION;
     private static final double DEFAULT_SENSITIVITY_EPSILON = 1e-5;
-    private static final boolean DEFAULT_RESCALE_MODE = DISABLE_RESCALED_RESULTS;
-    private boolean saveIntermediates;
+    private static final PtdfSparsificationMode DEFAULT_PTDF_SPARSIFICATION_MODE = PtdfSparsificationMode.NONE;
+    private static final double DEFAULT_PTDF_RELATIVE_EPSILON = 1e-3;
+    private static final int DEFAULT_PTDF_TOP_K = 100;
+    private static final double DEFAULT_PTDF_ERROR_BUDGET = 1.;
+    private static final boolean DEFAULT_STORE_SENSITIVITIES_AS_FLOAT32 = FLOAT64_SENSITIVITIES;
+    private static final int DEFAULT_PARALLELISM = 1;
+    private static final boolean DEFAULT_DECOMPOSE_ALL_SYNCHRONOUS_COMPONENTS = MAIN_SYNCHRONOUS_COMPONENT_ONLY;
+    private Set<IntermediateResult> intermediatesToSave;
     private boolean enableLossesCompensation;
     private double lossesCompensationEpsilon;
+    private LossesCompensationMode lossesCompensationMode;
     private double sensitivityEpsilon;
-    private boolean rescaleEnabled;
+    private PtdfSparsificationMode ptdfSparsificationMode;
+    private double ptdfRelativeEpsilon;
+    private int ptdfTopK;
+    private double ptdfErrorBudget;
+    private boolean storeSensitivitiesAsFloat32;
+    private List<RescaleMode> rescaleModes;
+    private int parallelism;
+    private boolean decomposeAllSynchronousComponents;
 
     public FlowDecompositionParameters() {
-        this.saveIntermediates = DEFAULT_SAVE_INTERMEDIATES;
+        this.intermediatesToSave = EnumSet.noneOf(IntermediateResult.class);
         this.enableLossesCompensation = DEFAULT_ENABLE_LOSSES_COMPENSATION;
         this.lossesCompensationEpsilon = DEFAULT_LOSSES_COMPENSATION_EPSILON;
+        this.lossesCompensationMode = DEFAULT_LOSSES_COMPENSATION_MODE;
         this.sensitivityEpsilon = DEFAULT_SENSITIVITY_EPSILON;
-        this.rescaleEnabled = DEFAULT_RESCALE_MODE;
+        this.ptdfSparsificationMode = DEFAULT_PTDF_SPARSIFICATION_MODE;
+        this.ptdfRelativeEpsilon = DEFAULT_PTDF_RELATIVE_EPSILON;
+        this.ptdfTopK = DEFAULT_PTDF_TOP_K;
+        this.ptdfErrorBudget = DEFAULT_PTDF_ERROR_BUDGET;
+        this.storeSensitivitiesAsFloat32 = DEFAULT_STORE_SENSITIVITIES_AS_FLOAT32;
+        this.rescaleModes = Collections.emptyList();
+        this.parallelism = DEFAULT_PARALLELISM;
+        this.decomposeAllSynchronousComponents = DEFAULT_DECOMPOSE_ALL_SYNCHRONOUS_COMPONENTS;
     }
 
+    /**
+     * @return {@code true} if at least one intermediate result is saved.
+     */
     public boolean doesSaveIntermediates() {
-        return saveIntermediates;
+        return !intermediatesToSave.isEmpty();
     }
 
+    /**
+     * @param saveIntermediates Equivalent to saving all intermediate results when {@code true}, none otherwise.
+     */
     public void setSaveIntermediates(boolean saveIntermediates) {
-        this.saveIntermediates = saveIntermediates;
+        setIntermediatesToSave(saveIntermediates ? EnumSet.allOf(IntermediateResult.class) : EnumSet.noneOf(IntermediateResult.class));
+    }
+
+    public boolean doesSave(IntermediateResult intermediateResult) {
+        return intermediatesToSave.contains(intermediateResult);
+    }
+
+    public Set<IntermediateResult> getIntermediatesToSave() {
+        return Collections.unmodifiableSet(intermediatesToSave);
+    }
+
+    /**
+     * @param intermediatesToSave Intermediate results retained in {@link FlowDecompositionResults}. The others are dropped as soon as they are used.
+     */
+    public void setIntermediatesToSave(Collection<IntermediateResult> intermediatesToSave) {
+        this.intermediatesToSave = intermediatesToSave.isEmpty() ? EnumSet.noneOf(IntermediateResult.class) : EnumSet.copyOf(intermediatesToSave);
     }
 
     public void setEnableLossesCompensation(boolean enableLossesCompensation) {
@@ -62,6 +113,18 @@ public class FlowDecompositionParameters {
         this.lossesCompensationEpsilon = lossesCompensationEpsilon;
     }
 
+    public LossesCompensationMode getLossesCompensationMode() {
+        return lossesCompensationMode;
+    }
+
+    /**
+     * @param lossesCompensationMode How losses are compensated when losses compensation is enabled.
+     *                               {@link LossesCompensationMode#LOAD_CREATION} by default.
+     */
+    public void setLossesCompensationMode(LossesCompensationMode lossesCompensationMode) {
+        this.lossesCompensationMode = lossesCompensationMode;
+    }
+
     public double getSensitivityEpsilon() {
         return sensitivityEpsilon;
     }
@@ -70,11 +133,121 @@ public class FlowDecompositionParameters {
         this.sensitivityEpsilon = sensitivityEpsilon;
     }
 
+    public PtdfSparsificationMode getPtdfSparsificationMode() {
+        return ptdfSparsificationMode;
+    }
+
+    /**
+     * @param ptdfSparsificationMode How PTDFs are dropped XNEC by XNEC before computing allocated and loop flows.
+     *                               {@link PtdfSparsificationMode#NONE} by default.
+     */
+    public void setPtdfSparsificationMode(PtdfSparsificationMode ptdfSparsificationMode) {
+        this.ptdfSparsificationMode = ptdfSparsificationMode;
+    }
+
+    public double getPtdfRelativeEpsilon() {
+        return ptdfRelativeEpsilon;
+    }
+
+    /**
+     * @param ptdfRelativeEpsilon Ratio to the largest PTDF of a XNEC below which its PTDFs are dropped,
+     *                            used by {@link PtdfSparsificationMode#RELATIVE_EPSILON}. It must be between 0 and 1,
+     *                            as a larger ratio would drop every PTDF.
+     */
+    public void setPtdfRelativeEpsilon(double ptdfRelativeEpsilon) {
+        if (!(ptdfRelativeEpsilon >= 0 && ptdfRelativeEpsilon <= 1)) {
+            throw new PowsyblException(String.format("PTDF relative epsilon must be between 0 and 1, got %s", ptdfRelativeEpsilon));
+        }
+        this.ptdfRelativeEpsilon = ptdfRelativeEpsilon;
+    }
+
+    public int getPtdfTopK() {
+        return ptdfTopK;
+    }
+
+    /**
+     * @param ptdfTopK Number of PTDFs kept per XNEC, used by {@link PtdfSparsificationMode#TOP_K}. It must be positive.
+     */
+    public void setPtdfTopK(int ptdfTopK) {
+        if (ptdfTopK <= 0) {
+            throw new PowsyblException(String.format("PTDF top K must be positive, got %d", ptdfTopK));
+        }
+        this.ptdfTopK = ptdfTopK;
+    }
+
+    public double getPtdfErrorBudget() {
+        return ptdfErrorBudget;
+    }
+
+    /**
+     * @param ptdfErrorBudget Bound in MW of the error on each allocated and loop flow,
+     *                        used by {@link PtdfSparsificationMode#ERROR_BUDGET}. It must not be negative.
+     */
+    public void setPtdfErrorBudget(double ptdfErrorBudget) {
+        if (!(ptdfErrorBudget >= 0)) {
+            throw new PowsyblException(String.format("PTDF error budget must not be negative, got %s", ptdfErrorBudget));
+        }
+        this.ptdfErrorBudget = ptdfErrorBudget;
+    }
+
+    public boolean doesStoreSensitivitiesAsFloat32() {
+        return storeSensitivitiesAsFloat32;
+    }
+
+    /**
+     * @param storeSensitivitiesAsFloat32 Store PTDFs and PSDFs in single precision when {@code true}, halving the memory of their values.
+     *                                    Allocated, loop and PST flows are still accumulated in double precision.
+     */
+    public void setStoreSensitivitiesAsFloat32(boolean storeSensitivitiesAsFloat32) {
+        this.storeSensitivitiesAsFloat32 = storeSensitivitiesAsFloat32;
+    }
+
     public boolean isRescaleEnabled() {
-        return rescaleEnabled;
+        return !rescaleModes.isEmpty();
     }
 
+    /**
+     * @param rescaleEnabled Equivalent to rescale modes {@link RescaleMode#ACER_METHODOLOGY} when {@code true}, none otherwise.
+     */
     public void setRescaleEnabled(boolean rescaleEnabled) {
-        this.rescaleEnabled = rescaleEnabled;
+        setRescaleModes(rescaleEnabled ? List.of(RescaleMode.ACER_METHODOLOGY) : Collections.emptyList());
+    }
+
+    public List<RescaleMode> getRescaleModes() {
+        return rescaleModes;
+    }
+
+    /**
+     * @param rescaleModes Rescaling strategies evaluated in a single pass over the unscaled decomposition.
+     *                     The first one gives {@link FlowDecompositionResults#getDecomposedFlowMap()},
+     *                     all of them are available through {@link FlowDecompositionResults#getDecomposedFlowMap(RescaleMode)}.
+     */
+    public void setRescaleModes(Collection<RescaleMode> rescaleModes) {
+        this.rescaleModes = Collections.unmodifiableList(new ArrayList<>(rescaleModes));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism Number of threads used by the parallel steps of the flow decomposition.
+     *                    The default value 1 runs everything in the calling thread.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean doesDecomposeAllSynchronousComponents() {
+        return decomposeAllSynchronousComponents;
+    }
+
+    /**
+     * @param decomposeAllSynchronousComponents Decompose the XNECs of every synchronous component when {@code true},
+     *                                          each component independently and concurrently with its own PTDFs.
+     *                                          Only the main synchronous component is decomposed otherwise.
+     */
+    public void setDecomposeAllSynchronousComponents(boolean decomposeAllSynchronousComponents) {
+        this.decomposeAllSynchronousComponents = decomposeAllSynchronousComponents;
     }
 }
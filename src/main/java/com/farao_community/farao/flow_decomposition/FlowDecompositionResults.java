@@ -12,14 +12,16 @@ import com.powsybl.iidm.network.Network;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * This class provides flow decomposition results from a network.
  * Those results are returned by a flowDecompositionComputer when run on a network.
  * By default, the results only contain the flow decomposition of the XNECs.
- * If this runner has its argument {@code saveIntermediates} set to {@code true},
- * then the results will contain supplementary information.
+ * Intermediate results are only retained if they are part of
+ * {@link FlowDecompositionParameters#getIntermediatesToSave()}.
  *
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
@@ -30,29 +32,93 @@ public class FlowDecompositionResults {
     static final boolean FILL_ZEROS = true;
     static final boolean NOT_FILL_ZEROS = false;
     private static final boolean DEFAULT_FILL_ZEROS = NOT_FILL_ZEROS;
-    private final boolean saveIntermediates;
+    private final Set<IntermediateResult> intermediatesToSave;
     private final String id;
     private final String networkId;
     private SparseMatrixWithIndexesCSC allocatedAndLoopFlowsMatrix;
-    private Map<String, Map<String, Double>> pstFlowMap;
+    private SparseMatrixWithIndexesCSC pstFlowMatrix;
+    private SparseMatrixWithIndexesCSC hvdcFlowMatrix;
     private Map<String, Double> acReferenceFlow;
     private Map<String, Double> dcReferenceFlow;
-    private Map<Country, Double> acNetPosition;
-    private Map<Country, Map<String, Double>> glsks;
-    private SparseMatrixWithIndexesTriplet ptdfMatrix;
-    private SparseMatrixWithIndexesTriplet psdfMatrix;
-    private SparseMatrixWithIndexesTriplet nodalInjectionsMatrix;
+    private Map<String, Double> acNetPosition;
+    private Map<String, Map<String, Double>> glsks;
+    private MultipliableSparseMatrix ptdfMatrix;
+    private PtdfSparsificationReport ptdfSparsificationReport;
+    private DenseMatrixWithIndexes zonalPtdfMatrix;
+    private final Map<String, double[]> nodalInjectionColumns = new ConcurrentHashMap<>();
+    private SparseMatrixView psdfMatrix;
+    private SparseMatrixWithIndexesCSC hvdcSensitivityMatrix;
+    private SparseMatrixWithIndexesCSC nodalInjectionsMatrix;
     private Map<String, Double> dcNodalInjections;
+    private DecomposedFlowBlock decomposedFlowBlockBeforeRescaling;
     private Map<String, DecomposedFlow> decomposedFlowsMapBeforeRescaling;
     private Map<String, DecomposedFlow> decomposedFlowMapAfterRescaling;
+    private final Map<RescaleMode, Map<String, DecomposedFlow>> decomposedFlowMapsByRescaleMode = new EnumMap<>(RescaleMode.class);
 
     FlowDecompositionResults(Network network, FlowDecompositionParameters parameters) {
-        this.saveIntermediates = parameters.doesSaveIntermediates();
+        this.intermediatesToSave = EnumSet.noneOf(IntermediateResult.class);
+        this.intermediatesToSave.addAll(parameters.getIntermediatesToSave());
         this.networkId = network.getNameOrId();
         String date = new SimpleDateFormat("yyyyMMdd-HHmmss").format(Date.from(Instant.now()));
         this.id = "Flow_Decomposition_Results_of_" + date + "_on_network_" + networkId;
     }
 
+    /**
+     * Merges the results of the synchronous components of a network, decomposed independently.
+     * XNECs and nodes of different components do not overlap, so their matrices and maps are merged by union.
+     * Net positions of each component are restricted to it, so they are summed by zone.
+     * GLSKs of each component are renormalised over it, so they are not merged: the GLSKs of the whole network are saved instead.
+     */
+    static FlowDecompositionResults merge(Network network, FlowDecompositionParameters parameters,
+                                          List<FlowDecompositionResults> componentResults) {
+        FlowDecompositionResults mergedResults = new FlowDecompositionResults(network, parameters);
+        mergedResults.allocatedAndLoopFlowsMatrix = mergeMatrices(componentResults, results -> results.allocatedAndLoopFlowsMatrix);
+        mergedResults.pstFlowMatrix = mergeMatrices(componentResults, results -> results.pstFlowMatrix);
+        mergedResults.hvdcFlowMatrix = mergeMatrices(componentResults, results -> results.hvdcFlowMatrix);
+        mergedResults.acReferenceFlow = mergeMaps(componentResults, results -> results.acReferenceFlow);
+        mergedResults.dcReferenceFlow = mergeMaps(componentResults, results -> results.dcReferenceFlow);
+        mergedResults.acNetPosition = mergeNetPositions(componentResults);
+        mergedResults.ptdfMatrix = mergeMatrices(componentResults, results -> results.ptdfMatrix);
+        SparseMatrixWithIndexesCSC mergedZonalPtdfMatrix = mergeMatrices(componentResults, results -> results.zonalPtdfMatrix);
+        mergedResults.zonalPtdfMatrix = mergedZonalPtdfMatrix == null ? null : DenseMatrixWithIndexes.of(mergedZonalPtdfMatrix);
+        List<PtdfSparsificationReport> ptdfSparsificationReports = componentResults.stream()
+            .map(results -> results.ptdfSparsificationReport).filter(Objects::nonNull).collect(Collectors.toList());
+        mergedResults.ptdfSparsificationReport = ptdfSparsificationReports.isEmpty() ? null : PtdfSparsificationReport.merge(ptdfSparsificationReports);
+        mergedResults.psdfMatrix = mergeMatrices(componentResults, results -> results.psdfMatrix);
+        mergedResults.hvdcSensitivityMatrix = mergeMatrices(componentResults, results -> results.hvdcSensitivityMatrix);
+        mergedResults.nodalInjectionsMatrix = mergeMatrices(componentResults, results -> results.nodalInjectionsMatrix);
+        mergedResults.dcNodalInjections = mergeMaps(componentResults, results -> results.dcNodalInjections);
+        return mergedResults;
+    }
+
+    private static SparseMatrixWithIndexesCSC mergeMatrices(List<FlowDecompositionResults> componentResults,
+                                                            Function<FlowDecompositionResults, ? extends SparseMatrixView> matrixGetter) {
+        List<SparseMatrixView> matrices = componentResults.stream().map(matrixGetter).filter(Objects::nonNull).collect(Collectors.toList());
+        return matrices.isEmpty() ? null : SparseMatrixWithIndexesCSC.merge(matrices);
+    }
+
+    private static Map<String, Double> mergeMaps(List<FlowDecompositionResults> componentResults,
+                                                 Function<FlowDecompositionResults, Map<String, Double>> mapGetter) {
+        List<Map<String, Double>> maps = componentResults.stream().map(mapGetter).filter(Objects::nonNull).collect(Collectors.toList());
+        if (maps.isEmpty()) {
+            return null;
+        }
+        Map<String, Double> mergedMap = new HashMap<>();
+        maps.forEach(mergedMap::putAll);
+        return mergedMap;
+    }
+
+    private static Map<String, Double> mergeNetPositions(List<FlowDecompositionResults> componentResults) {
+        List<Map<String, Double>> netPositionsList = componentResults.stream().map(results -> results.acNetPosition).filter(Objects::nonNull).collect(Collectors.toList());
+        if (netPositionsList.isEmpty()) {
+            return null;
+        }
+        Map<String, Double> mergedNetPositions = new TreeMap<>();
+        netPositionsList.forEach(netPositionsOfComponent -> netPositionsOfComponent.forEach((zone, netPosition) ->
+            mergedNetPositions.merge(zone, netPosition, Double::sum)));
+        return mergedNetPositions;
+    }
+
     /**
      * @return Network Id
      */
@@ -85,14 +151,32 @@ public class FlowDecompositionResults {
     }
 
     /**
-     * GLSKs are an intermediate results.
-     * They are represented as a sparse map of map.
-     * The first key is a zone, the second key is a node id and the value is the GLSK of the node in the country.
-     * They will be saved if this runner has its argument {@code saveIntermediates} set to {@code true}.
+     * @return An optional containing the flow decomposition map rescaled with the given strategy.
+     * It is present for every strategy of {@link FlowDecompositionParameters#getRescaleModes()}.
+     */
+    public Optional<Map<String, DecomposedFlow>> getDecomposedFlowMap(RescaleMode rescaleMode) {
+        return Optional.ofNullable(decomposedFlowMapsByRescaleMode.get(rescaleMode));
+    }
+
+    /**
+     * AC net positions are an intermediate results.
+     * They will be saved if {@link IntermediateResult#AC_NET_POSITIONS} is part of the intermediates to save.
+     * Only zones that are countries are returned, see {@link #getAcNetPositionsByZone()} for other zones.
      *
-     * @return An optional containing GLSKs.
+     * @return An optional containing AC net positions by country.
      */
     public Optional<Map<Country, Double>> getAcNetPositions() {
+        return getAcNetPositionsByZone().map(FlowDecompositionResults::toCountryMap);
+    }
+
+    /**
+     * AC net positions are an intermediate results.
+     * They will be saved if {@link IntermediateResult#AC_NET_POSITIONS} is part of the intermediates to save.
+     * The key is a zone id, as given by the zone mapping of the computer.
+     *
+     * @return An optional containing AC net positions by zone.
+     */
+    public Optional<Map<String, Double>> getAcNetPositionsByZone() {
         return Optional.ofNullable(acNetPosition);
     }
 
@@ -100,38 +184,200 @@ public class FlowDecompositionResults {
      * GLSKs are an intermediate results.
      * They are represented as a sparse map of map.
      * The first key is a zone, the second key is a node id and the value is the GLSK of the node in the country.
-     * They will be saved if this runner has its argument {@code saveIntermediates} set to {@code true}.
+     * They will be saved if {@link IntermediateResult#GLSKS} is part of the intermediates to save.
+     * Only zones that are countries are returned, see {@link #getGlsksByZone()} for other zones.
      * @return An optional containing GLSKs.
      */
     public Optional<Map<Country, Map<String, Double>>> getGlsks() {
+        return getGlsksByZone().map(FlowDecompositionResults::toCountryMap);
+    }
+
+    /**
+     * GLSKs are an intermediate results.
+     * They are represented as a sparse map of map.
+     * The first key is a zone id, the second key is a node id and the value is the GLSK of the node in the zone.
+     * They will be saved if {@link IntermediateResult#GLSKS} is part of the intermediates to save.
+     * @return An optional containing GLSKs by zone.
+     */
+    public Optional<Map<String, Map<String, Double>>> getGlsksByZone() {
         return Optional.ofNullable(glsks);
     }
 
+    private static <T> Map<Country, T> toCountryMap(Map<String, T> zoneMap) {
+        Map<Country, T> countryMap = new EnumMap<>(Country.class);
+        for (Country country : Country.values()) {
+            T value = zoneMap.get(country.toString());
+            if (value != null) {
+                countryMap.put(country, value);
+            }
+        }
+        return countryMap;
+    }
+
     /**
      * PTDFs are an intermediate results.
-     * They will be saved if this runner has its argument {@code saveIntermediates} set to {@code true}.
+     * They will be saved if {@link IntermediateResult#PTDF} is part of the intermediates to save.
      * They are represented as a sparse map of map.
      * The first key is a XNEC id, the second key is a node id and the value is the PTDF.
      * @return An optional containing PTDFs
      */
     public Optional<Map<String, Map<String, Double>>> getPtdfMap() {
-        return Optional.ofNullable(ptdfMatrix).map(SparseMatrixWithIndexesTriplet::toMap);
+        return Optional.ofNullable(ptdfMatrix).map(FlowDecompositionResults::toMap);
+    }
+
+    private static Map<String, Map<String, Double>> toMap(SparseMatrixView matrix) {
+        Map<String, Map<String, Double>> matrixMap = new TreeMap<>();
+        matrix.forEachNonZero((rowId, columnId, value) -> matrixMap.computeIfAbsent(rowId, v -> new TreeMap<>()).put(columnId, value));
+        return matrixMap;
+    }
+
+    /**
+     * @return An optional containing a view over the PTDF matrix, XNECs as rows and nodes as columns.
+     */
+    public Optional<SparseMatrixView> getPtdfMatrix() {
+        return Optional.ofNullable(ptdfMatrix);
+    }
+
+    /**
+     * PTDFs are an intermediate results.
+     * They will be saved if {@link IntermediateResult#PTDF} is part of the intermediates to save.
+     * A row-oriented copy of the PTDF matrix is built on the first call, then each call only costs the number of PTDFs of the XNEC.
+     * @return An optional containing the PTDFs of the XNEC, keyed by node id. The map is empty if the XNEC has no PTDF.
+     */
+    public Optional<Map<String, Double>> getPtdfRow(String xnecId) {
+        if (ptdfMatrix == null) {
+            return Optional.empty();
+        }
+        SparseMatrixRows rows = ptdfMatrix.getRows();
+        Map<String, Double> ptdfRow = new TreeMap<>();
+        int row = rows.getRow(xnecId);
+        if (row != IdIndex.NOT_FOUND) {
+            for (int entry = rows.getRowStart(row); entry < rows.getRowEnd(row); entry++) {
+                ptdfRow.put(rows.getColIndex().getId(rows.getColumn(entry)), rows.getValue(entry));
+            }
+        }
+        return Optional.of(ptdfRow);
+    }
+
+    /**
+     * Nodal injections that contribute the most to one allocated or loop flow of a XNEC, in absolute value.
+     * It needs {@link IntermediateResult#PTDF} and {@link IntermediateResult#NODAL_INJECTIONS} to be part of the intermediates to save.
+     * Once the row-oriented PTDFs and the nodal injections of the column are cached by a first call,
+     * each call only costs the number of PTDFs of the XNEC.
+     * @param columnId {@code "Allocated Flow"} or a loop flow id such as {@code "Loop Flow from FR"}
+     * @param count Maximum number of contributions returned
+     * @return An optional containing the non-zero contributions, largest first, ties broken by node id.
+     * The list is empty if the column is not one of the nodal injections matrix.
+     */
+    public Optional<List<NodalInjectionContribution>> getTopContributingInjections(String xnecId, String columnId, int count) {
+        if (ptdfMatrix == null || nodalInjectionsMatrix == null) {
+            return Optional.empty();
+        }
+        if (nodalInjectionsMatrix.colIndex.indexOf(columnId) == IdIndex.NOT_FOUND) {
+            return Optional.of(List.of());
+        }
+        SparseMatrixRows rows = ptdfMatrix.getRows();
+        double[] nodalInjections = getNodalInjectionColumn(rows, columnId);
+        Comparator<NodalInjectionContribution> byContribution = Comparator
+            .comparingDouble((NodalInjectionContribution contribution) -> Math.abs(contribution.getContribution()))
+            .thenComparing(NodalInjectionContribution::getNodeId, Comparator.reverseOrder());
+        PriorityQueue<NodalInjectionContribution> topContributions = new PriorityQueue<>(byContribution);
+        int row = rows.getRow(xnecId);
+        if (row != IdIndex.NOT_FOUND && count > 0) {
+            for (int entry = rows.getRowStart(row); entry < rows.getRowEnd(row); entry++) {
+                int node = rows.getColumn(entry);
+                if (nodalInjections[node] != 0.) {
+                    topContributions.add(new NodalInjectionContribution(rows.getColIndex().getId(node), rows.getValue(entry), nodalInjections[node]));
+                    if (topContributions.size() > count) {
+                        topContributions.poll();
+                    }
+                }
+            }
+        }
+        List<NodalInjectionContribution> contributions = new ArrayList<>(topContributions);
+        contributions.sort(byContribution.reversed());
+        return Optional.of(contributions);
+    }
+
+    /**
+     * @param columnId Column of the nodal injections matrix, so that only its columns are cached
+     * @return Nodal injections of the column, indexed by PTDF column ordinal
+     */
+    private double[] getNodalInjectionColumn(SparseMatrixRows rows, String columnId) {
+        return nodalInjectionColumns.computeIfAbsent(columnId, id -> {
+            double[] nodalInjections = new double[rows.getColIndex().size()];
+            nodalInjectionsMatrix.forEachNonZeroInColumn(id, (nodeId, column, value) -> {
+                int node = rows.getColIndex().indexOf(nodeId);
+                if (node != IdIndex.NOT_FOUND) {
+                    nodalInjections[node] = value;
+                }
+            });
+            return nodalInjections;
+        });
+    }
+
+    /**
+     * Zonal PTDFs are an intermediate results.
+     * They will be saved if {@link IntermediateResult#ZONAL_PTDF} is part of the intermediates to save.
+     * They are the PTDFs collapsed on zones with the GLSKs, oriented like the PTDFs.
+     * They are represented as a dense map of map.
+     * The first key is a XNEC id, the second key is a zone id and the value is the zonal PTDF.
+     * @return An optional containing zonal PTDFs
+     */
+    public Optional<Map<String, Map<String, Double>>> getZonalPtdfMap() {
+        return Optional.ofNullable(zonalPtdfMatrix).map(DenseMatrixWithIndexes::toMap);
+    }
+
+    /**
+     * @return An optional containing a view over the dense zonal PTDF matrix, XNECs as rows and zones as columns.
+     */
+    public Optional<SparseMatrixView> getZonalPtdfMatrix() {
+        return Optional.ofNullable(zonalPtdfMatrix);
+    }
+
+    Optional<DenseMatrixWithIndexes> getZonalPtdfDenseMatrix() {
+        return Optional.ofNullable(zonalPtdfMatrix);
+    }
+
+    /**
+     * The PTDF sparsification report is always available when {@link FlowDecompositionParameters#getPtdfSparsificationMode()}
+     * is not {@link PtdfSparsificationMode#NONE}. Saved PTDFs are then the sparsified ones.
+     * @return An optional containing the number of PTDFs kept and the bound of the induced flow error
+     */
+    public Optional<PtdfSparsificationReport> getPtdfSparsificationReport() {
+        return Optional.ofNullable(ptdfSparsificationReport);
     }
 
     /**
      * PSDFs are an intermediate results.
-     * They will be saved if this runner has its argument {@code saveIntermediates} set to {@code true}.
+     * They will be saved if {@link IntermediateResult#PSDF} is part of the intermediates to save.
      * They are represented as a sparse map of map.
      * The first key is a XNEC id, the second key is a node id and the value is the PSDF.
      * @return An optional containing PSDFs
      */
     public Optional<Map<String, Map<String, Double>>> getPsdfMap() {
-        return Optional.ofNullable(psdfMatrix).map(SparseMatrixWithIndexesTriplet::toMap);
+        return Optional.ofNullable(psdfMatrix).map(FlowDecompositionResults::toMap);
+    }
+
+    /**
+     * @return An optional containing a view over the PSDF matrix, XNECs as rows and PSTs as columns.
+     */
+    public Optional<SparseMatrixView> getPsdfMatrix() {
+        return Optional.ofNullable(psdfMatrix);
+    }
+
+    /**
+     * HVDC sensitivities are an intermediate results.
+     * They will be saved if {@link IntermediateResult#HVDC_SENSITIVITIES} is part of the intermediates to save.
+     * @return An optional containing a view over the HVDC sensitivity matrix, XNECs as rows and HVDC lines as columns.
+     */
+    public Optional<SparseMatrixView> getHvdcSensitivityMatrix() {
+        return Optional.ofNullable(hvdcSensitivityMatrix);
     }
 
     /**
      * Nodal injections are an intermediate results.
-     * They will be saved if this runner has its argument {@code saveIntermediates} set to {@code true}.
+     * They will be saved if {@link IntermediateResult#NODAL_INJECTIONS} is part of the intermediates to save.
      * They are represented as a sparse map of map.
      * The first key is a node id, the second key is a column identifier and the value is the nodal injection.
      * The one of the column id is the {@code "Allocated Flow"}. It corresponds to the allocated nodal injection.
@@ -149,9 +395,16 @@ public class FlowDecompositionResults {
         return getAllocatedAndLoopFlowNodalInjectionsMap(DEFAULT_FILL_ZEROS);
     }
 
+    /**
+     * @return An optional containing a view over the nodal injections matrix, nodes as rows and allocated or loop flow ids as columns.
+     */
+    public Optional<SparseMatrixView> getAllocatedAndLoopFlowNodalInjectionsMatrix() {
+        return Optional.ofNullable(nodalInjectionsMatrix);
+    }
+
     /**
      * DC Nodal injections are an intermediate results.
-     * They will be saved if this runner has its argument {@code saveIntermediates} set to {@code true}.
+     * They will be saved if {@link IntermediateResult#DC_NODAL_INJECTIONS} is part of the intermediates to save.
      * They are represented as a map.
      * The key is a node id and the value is the DC nodal injection.
      * @return An optional containing DC nodal injections
@@ -166,23 +419,30 @@ public class FlowDecompositionResults {
 
     private void initializeDecomposedFlowMapCache() {
         invalidateDecomposedFlowMapCache();
-        decomposedFlowsMapBeforeRescaling = new TreeMap<>();
-        allocatedAndLoopFlowsMatrix.toMap()
-            .forEach((xnecId, decomposedFlow) -> decomposedFlowsMapBeforeRescaling.put(xnecId, createDecomposedFlow(xnecId, decomposedFlow)));
+        decomposedFlowsMapBeforeRescaling = getDecomposedFlowBlockBeforeRescaling().toDecomposedFlowMap();
     }
 
-    private void invalidateDecomposedFlowMapCache() {
-        this.decomposedFlowsMapBeforeRescaling = null;
+    /**
+     * @return Decomposed flows before rescaling, as a columnar block. Callers must not modify it, see {@link DecomposedFlowBlock#copy()}.
+     */
+    DecomposedFlowBlock getDecomposedFlowBlockBeforeRescaling() {
+        if (Objects.isNull(decomposedFlowBlockBeforeRescaling)) {
+            decomposedFlowBlockBeforeRescaling = DecomposedFlowBlock.of(allocatedAndLoopFlowsMatrix, pstFlowMatrix, hvdcFlowMatrix,
+                acReferenceFlow, dcReferenceFlow);
+        }
+        return decomposedFlowBlockBeforeRescaling;
+    }
+
+    /**
+     * @return Reader of the decomposed flows before rescaling, XNEC after XNEC, that does not build the columnar block
+     */
+    DecomposedFlowRowReader getDecomposedFlowRowReaderBeforeRescaling() {
+        return new DecomposedFlowRowReader(allocatedAndLoopFlowsMatrix, pstFlowMatrix, hvdcFlowMatrix, acReferenceFlow, dcReferenceFlow);
     }
 
-    private DecomposedFlow createDecomposedFlow(String xnecId, Map<String, Double> allocatedAndLoopFlowMap) {
-        Map<String, Double> loopFlowsMap = allocatedAndLoopFlowMap.entrySet().stream()
-                .filter(entry -> entry.getKey().startsWith(NetworkUtil.LOOP_FLOWS_COLUMN_PREFIX))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        double allocatedFlow = allocatedAndLoopFlowMap.get(DecomposedFlow.ALLOCATED_COLUMN_NAME);
-        double pstFlow = pstFlowMap.get(xnecId).get(DecomposedFlow.PST_COLUMN_NAME);
-        return new DecomposedFlow(loopFlowsMap, allocatedFlow, pstFlow,
-            acReferenceFlow.get(xnecId), dcReferenceFlow.get(xnecId));
+    private void invalidateDecomposedFlowMapCache() {
+        this.decomposedFlowBlockBeforeRescaling = null;
+        this.decomposedFlowsMapBeforeRescaling = null;
     }
 
     void saveAllocatedAndLoopFlowsMatrix(SparseMatrixWithIndexesCSC allocatedAndLoopFlowsMatrix) {
@@ -191,7 +451,12 @@ public class FlowDecompositionResults {
     }
 
     void savePstFlowMatrix(SparseMatrixWithIndexesCSC pstFlowMatrix) {
-        this.pstFlowMap = pstFlowMatrix.toMap(FILL_ZEROS);
+        this.pstFlowMatrix = pstFlowMatrix;
+        invalidateDecomposedFlowMapCache();
+    }
+
+    void saveHvdcFlowMatrix(SparseMatrixWithIndexesCSC hvdcFlowMatrix) {
+        this.hvdcFlowMatrix = hvdcFlowMatrix;
         invalidateDecomposedFlowMapCache();
     }
 
@@ -209,38 +474,64 @@ public class FlowDecompositionResults {
         this.decomposedFlowMapAfterRescaling = decomposedFlowMap;
     }
 
-    void saveACNetPosition(Map<Country, Double> acNetPosition) {
-        if (saveIntermediates) {
+    void saveRescaledDecomposedFlowMap(RescaleMode rescaleMode, Map<String, DecomposedFlow> decomposedFlowMap) {
+        this.decomposedFlowMapsByRescaleMode.put(rescaleMode, decomposedFlowMap);
+    }
+
+    void saveACNetPosition(Map<String, Double> acNetPosition) {
+        if (intermediatesToSave.contains(IntermediateResult.AC_NET_POSITIONS)) {
             this.acNetPosition = acNetPosition;
         }
     }
 
-    void saveGlsks(Map<Country, Map<String, Double>> glsks) {
-        if (saveIntermediates) {
+    void saveGlsks(Map<String, Map<String, Double>> glsks) {
+        if (intermediatesToSave.contains(IntermediateResult.GLSKS)) {
             this.glsks = glsks;
         }
     }
 
-    void savePtdfMatrix(SparseMatrixWithIndexesTriplet ptdfMatrix) {
-        if (saveIntermediates) {
+    void savePtdfMatrix(MultipliableSparseMatrix ptdfMatrix) {
+        if (intermediatesToSave.contains(IntermediateResult.PTDF)) {
             this.ptdfMatrix = ptdfMatrix;
+            invalidateNodalInjectionColumnCache();
         }
     }
 
-    void savePsdfMatrix(SparseMatrixWithIndexesTriplet psdfMatrix) {
-        if (saveIntermediates) {
+    void saveZonalPtdfMatrix(DenseMatrixWithIndexes zonalPtdfMatrix) {
+        if (intermediatesToSave.contains(IntermediateResult.ZONAL_PTDF)) {
+            this.zonalPtdfMatrix = zonalPtdfMatrix;
+        }
+    }
+
+    void savePtdfSparsificationReport(PtdfSparsificationReport ptdfSparsificationReport) {
+        this.ptdfSparsificationReport = ptdfSparsificationReport;
+    }
+
+    void savePsdfMatrix(SparseMatrixView psdfMatrix) {
+        if (intermediatesToSave.contains(IntermediateResult.PSDF)) {
             this.psdfMatrix = psdfMatrix;
         }
     }
 
-    void saveNodalInjectionsMatrix(SparseMatrixWithIndexesTriplet nodalInjectionsMatrix) {
-        if (saveIntermediates) {
+    void saveHvdcSensitivityMatrix(SparseMatrixWithIndexesCSC hvdcSensitivityMatrix) {
+        if (intermediatesToSave.contains(IntermediateResult.HVDC_SENSITIVITIES)) {
+            this.hvdcSensitivityMatrix = hvdcSensitivityMatrix;
+        }
+    }
+
+    void saveNodalInjectionsMatrix(SparseMatrixWithIndexesCSC nodalInjectionsMatrix) {
+        if (intermediatesToSave.contains(IntermediateResult.NODAL_INJECTIONS)) {
             this.nodalInjectionsMatrix = nodalInjectionsMatrix;
+            invalidateNodalInjectionColumnCache();
         }
     }
 
+    private void invalidateNodalInjectionColumnCache() {
+        this.nodalInjectionColumns.clear();
+    }
+
     void saveDcNodalInjections(Map<String, Double> dcNodalInjections) {
-        if (saveIntermediates) {
+        if (intermediatesToSave.contains(IntermediateResult.DC_NODAL_INJECTIONS)) {
             this.dcNodalInjections = dcNodalInjections;
         }
     }
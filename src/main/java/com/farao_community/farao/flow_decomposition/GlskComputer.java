@@ -6,11 +6,11 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
-import com.powsybl.iidm.network.Country;
 import com.powsybl.iidm.network.Network;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -18,23 +18,27 @@ import java.util.stream.Collectors;
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  */
-class GlskComputer {
-    Map<Country, Map<String, Double>> run(Network network) {
-        return buildAutoGlsks(network);
+class GlskComputer implements GlskProvider {
+    @Override
+    public Map<String, Map<String, Double>> getGlsks(Network network, ZoneMapping zoneMapping) {
+        return buildAutoGlsks(network, zoneMapping);
     }
 
-    private Map<Country, Map<String, Double>> buildAutoGlsks(Network network) {
-        Map<Country, Map<String, Double>> glsks = network.getCountries().stream().collect(Collectors.toMap(
-            Function.identity(),
-            country -> new HashMap<>()));
+    private Map<String, Map<String, Double>> buildAutoGlsks(Network network, ZoneMapping zoneMapping) {
+        Map<String, Map<String, Double>> glsks = network.getVoltageLevelStream()
+            .map(zoneMapping::getZone)
+            .distinct()
+            .collect(Collectors.toMap(
+                Function.identity(),
+                zone -> new HashMap<>()));
         network.getGeneratorStream()
             .forEach(generator -> {
-                Country generatorCountry = NetworkUtil.getInjectionCountry(generator);
-                glsks.get(generatorCountry).put(generator.getId(), generator.getTargetP());
+                String generatorZone = zoneMapping.getZone(generator.getTerminal().getVoltageLevel());
+                glsks.get(generatorZone).put(generator.getId(), generator.getTargetP());
             });
-        glsks.forEach((country, glsk) -> {
-            double glskSum = glsk.values().stream().mapToDouble(factor -> factor).sum();
-            glsk.forEach((key, value) -> glsk.put(key, value / glskSum));
+        glsks.values().forEach(glsk -> {
+            double glskSum = ReproducibleSum.sum(new TreeMap<>(glsk).values());
+            glsk.replaceAll((generatorId, factor) -> factor / glskSum);
         });
         return glsks;
     }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+import com.powsybl.glsk.api.AbstractGlskPoint;
+import com.powsybl.glsk.api.GlskDocument;
+import com.powsybl.glsk.api.io.GlskDocumentImporters;
+import com.powsybl.glsk.api.util.converters.GlskPointLinearGlskConverter;
+import com.powsybl.glsk.commons.CountryEICode;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.sensitivity.WeightedSensitivityVariable;
+
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Provides GLSKs from a GLSK document (UCTE, CIM... any format with an importer on the classpath).
+ * The document is parsed once, and its GLSK points are indexed by zone and by start of time interval.
+ * Each call only converts the points valid at the requested instant, so it is cheap enough
+ * to be done for every timestamp of a batch run.
+ * Zones of the network that are not described in the document use the fallback provider.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+public class GlskDocumentProvider implements GlskProvider {
+    private final Map<String, NavigableMap<Instant, AbstractGlskPoint>> glskPointsByZone = new HashMap<>();
+    private final GlskProvider fallbackGlskProvider;
+
+    public GlskDocumentProvider(GlskDocument glskDocument, GlskProvider fallbackGlskProvider) {
+        this.fallbackGlskProvider = fallbackGlskProvider;
+        glskDocument.getZones().forEach(zone -> indexGlskPoints(getZoneId(zone), glskDocument.getGlskPoints(zone)));
+    }
+
+    public GlskDocumentProvider(GlskDocument glskDocument) {
+        this(glskDocument, GlskProvider.auto());
+    }
+
+    public static GlskDocumentProvider importGlskDocument(Path glskDocumentPath) {
+        try {
+            return new GlskDocumentProvider(GlskDocumentImporters.importGlsk(glskDocumentPath));
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Country EIC codes are translated to country names, so that they match the zones of {@link ZoneMapping#byCountry()}.
+     * Any other EIC code, e.g. a bidding zone that is not a country, is used as is.
+     */
+    private static String getZoneId(String eicCode) {
+        try {
+            return new CountryEICode(eicCode).getCountry().toString();
+        } catch (IllegalArgumentException e) {
+            return eicCode;
+        }
+    }
+
+    private void indexGlskPoints(String zone, List<AbstractGlskPoint> glskPoints) {
+        NavigableMap<Instant, AbstractGlskPoint> zoneGlskPoints = glskPointsByZone.computeIfAbsent(zone, z -> new TreeMap<>());
+        glskPoints.forEach(glskPoint -> zoneGlskPoints.put(glskPoint.getPointInterval().getStart(), glskPoint));
+    }
+
+    /**
+     * @return GLSKs valid at the case date of the network.
+     */
+    @Override
+    public Map<String, Map<String, Double>> getGlsks(Network network, ZoneMapping zoneMapping) {
+        return getGlsks(network, zoneMapping, Instant.ofEpochMilli(network.getCaseDate().getMillis()));
+    }
+
+    public Map<String, Map<String, Double>> getGlsks(Network network, ZoneMapping zoneMapping, Instant instant) {
+        Map<String, Map<String, Double>> glsks = new HashMap<>();
+        Map<String, Map<String, Double>> fallbackGlsks = null;
+        Set<String> networkZones = network.getVoltageLevelStream().map(zoneMapping::getZone).collect(Collectors.toSet());
+        for (String zone : networkZones) {
+            if (glskPointsByZone.containsKey(zone)) {
+                glsks.put(zone, convert(network, getGlskPoint(zone, instant)));
+            } else {
+                if (fallbackGlsks == null) {
+                    fallbackGlsks = fallbackGlskProvider.getGlsks(network, zoneMapping);
+                }
+                glsks.put(zone, fallbackGlsks.get(zone));
+            }
+        }
+        return glsks;
+    }
+
+    private AbstractGlskPoint getGlskPoint(String zone, Instant instant) {
+        Map.Entry<Instant, AbstractGlskPoint> candidate = glskPointsByZone.get(zone).floorEntry(instant);
+        if (candidate == null || !candidate.getValue().containsInstant(instant)) {
+            throw new PowsyblException(String.format("GLSK document does not define GLSK of %s at %s", zone, instant));
+        }
+        return candidate.getValue();
+    }
+
+    private static Map<String, Double> convert(Network network, AbstractGlskPoint glskPoint) {
+        Map<String, Double> glsk = new HashMap<>();
+        for (WeightedSensitivityVariable variable : GlskPointLinearGlskConverter.convert(network, glskPoint).getVariables()) {
+            glsk.merge(variable.getId(), variable.getWeight(), Double::sum);
+        }
+        return glsk;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.Network;
+
+import java.util.Map;
+
+/**
+ * Provides the GLSKs used to compute allocated flows.
+ * GLSKs are represented as a sparse map of map.
+ * The first key is a zone id, the second key is an injection id and the value is the GLSK factor of the injection in the zone.
+ * Every zone of the network, as defined by the zone mapping, must be a key of the returned map.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see GlskDocumentProvider
+ */
+@FunctionalInterface
+public interface GlskProvider {
+    Map<String, Map<String, Double>> getGlsks(Network network, ZoneMapping zoneMapping);
+
+    /**
+     * @return A provider building GLSKs from generators target active power. This is the default strategy.
+     */
+    static GlskProvider auto() {
+        return new GlskComputer();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.HvdcLine;
+
+/**
+ * Flow due to HVDC lines, as the product of the HVDC sensitivities by the active power setpoints.
+ * Setpoints are oriented from converter station 1 to converter station 2.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class HvdcFlowComputer {
+    SparseMatrixWithIndexesCSC run(NetworkMatrixIndexes networkMatrixIndexes,
+                                   SparseMatrixWithIndexesCSC hvdcSensitivityMatrix) {
+        SparseMatrixWithIndexesTriplet setpointMatrix = getSetpointMatrix(networkMatrixIndexes);
+        return SparseMatrixWithIndexesCSC.mult(hvdcSensitivityMatrix, setpointMatrix.toCSCMatrix());
+    }
+
+    private SparseMatrixWithIndexesTriplet getSetpointMatrix(NetworkMatrixIndexes networkMatrixIndexes) {
+        SparseMatrixWithIndexesTriplet setpointMatrix =
+            new SparseMatrixWithIndexesTriplet(networkMatrixIndexes.getHvdcIndex(),
+                DecomposedFlow.HVDC_COLUMN_NAME, networkMatrixIndexes.getHvdcList().size());
+        for (HvdcLine hvdcLine : networkMatrixIndexes.getHvdcList()) {
+            setpointMatrix.addItem(hvdcLine.getId(), DecomposedFlow.HVDC_COLUMN_NAME, getOrientedSetpoint(hvdcLine));
+        }
+        return setpointMatrix;
+    }
+
+    private static double getOrientedSetpoint(HvdcLine hvdcLine) {
+        return hvdcLine.getConvertersMode() == HvdcLine.ConvertersMode.SIDE_1_RECTIFIER_SIDE_2_INVERTER ?
+            hvdcLine.getActivePowerSetpoint() : -hvdcLine.getActivePowerSetpoint();
+    }
+}
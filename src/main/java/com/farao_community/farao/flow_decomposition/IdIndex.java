@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable bijection between string ids and their ordinal in a matrix dimension.
+ * Lookups use an open addressing table with primitive int values,
+ * and the inverse mapping is the id array itself, so it never has to be rebuilt.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class IdIndex {
+    static final int NOT_FOUND = -1;
+    private static final int EMPTY_SLOT = -1;
+    private final String[] ids;
+    private final int[] slots;
+    private final int mask;
+
+    private IdIndex(String[] ids) {
+        this.ids = ids;
+        this.slots = new int[getTableSize(ids.length)];
+        this.mask = slots.length - 1;
+        Arrays.fill(slots, EMPTY_SLOT);
+        for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+            insert(ordinal);
+        }
+    }
+
+    static IdIndex of(List<String> idList) {
+        return new IdIndex(idList.toArray(new String[0]));
+    }
+
+    static IdIndex of(String id) {
+        return new IdIndex(new String[]{id});
+    }
+
+    private static int getTableSize(int size) {
+        int tableSize = 2;
+        while (tableSize < 2 * size) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+    private static int hash(String id) {
+        int hash = id.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private void insert(int ordinal) {
+        String id = ids[ordinal];
+        int slot = hash(id) & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            if (ids[slots[slot]].equals(id)) {
+                throw new PowsyblException(String.format("Duplicate id %s in matrix index", id));
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = ordinal;
+    }
+
+    /**
+     * @return Ordinal of the id, or {@link #NOT_FOUND} if the id is not indexed
+     */
+    int indexOf(String id) {
+        int slot = hash(id) & mask;
+        int ordinal = slots[slot];
+        while (ordinal != EMPTY_SLOT) {
+            if (ids[ordinal].equals(id)) {
+                return ordinal;
+            }
+            slot = (slot + 1) & mask;
+            ordinal = slots[slot];
+        }
+        return NOT_FOUND;
+    }
+
+    int getIndex(String id) {
+        int ordinal = indexOf(id);
+        if (ordinal == NOT_FOUND) {
+            throw new PowsyblException(String.format("Id %s is not part of the matrix index", id));
+        }
+        return ordinal;
+    }
+
+    boolean contains(String id) {
+        return indexOf(id) != NOT_FOUND;
+    }
+
+    String getId(int ordinal) {
+        return ids[ordinal];
+    }
+
+    List<String> getIds() {
+        return Collections.unmodifiableList(Arrays.asList(ids));
+    }
+
+    int size() {
+        return ids.length;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * GLSKs aligned on the node ordinals of a {@link NetworkMatrixIndexes}.
+ * Zones are identified by their ordinal in the {@link NetworkZones}, and each zone stores the ordinals of its nodes and the matching factors in two parallel arrays.
+ * Nodes that are not part of the node index are dropped.
+ * Instances are immutable and can be shared between concurrent computations.
+ *
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ */
+final class IndexedGlsks {
+    private final int[][] nodeOrdinals;
+    private final double[][] factors;
+    private final int nodeCount;
+
+    private IndexedGlsks(int[][] nodeOrdinals, double[][] factors, int nodeCount) {
+        this.nodeOrdinals = nodeOrdinals;
+        this.factors = factors;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * @param glsks GLSKs keyed by zone id. Zones that are not part of the network zones are dropped.
+     */
+    static IndexedGlsks of(Map<String, Map<String, Double>> glsks, IdIndex nodeIndex, NetworkZones networkZones) {
+        int zoneCount = networkZones.getZoneCount();
+        int[][] nodeOrdinals = new int[zoneCount][];
+        double[][] factors = new double[zoneCount][];
+        for (int zone = 0; zone < zoneCount; zone++) {
+            Map<String, Double> zoneGlsk = glsks.getOrDefault(networkZones.getZone(zone), Collections.emptyMap());
+            int[] zoneNodeOrdinals = new int[zoneGlsk.size()];
+            double[] zoneFactors = new double[zoneGlsk.size()];
+            int zoneSize = 0;
+            for (Map.Entry<String, Double> nodeFactor : zoneGlsk.entrySet()) {
+                int nodeOrdinal = nodeIndex.indexOf(nodeFactor.getKey());
+                if (nodeOrdinal != IdIndex.NOT_FOUND) {
+                    zoneNodeOrdinals[zoneSize] = nodeOrdinal;
+                    zoneFactors[zoneSize] = nodeFactor.getValue();
+                    zoneSize++;
+                }
+            }
+            nodeOrdinals[zone] = trim(zoneNodeOrdinals, zoneSize);
+            factors[zone] = trim(zoneFactors, zoneSize);
+        }
+        return new IndexedGlsks(nodeOrdinals, factors, nodeIndex.size());
+    }
+
+    private static int[] trim(int[] array, int size) {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    private static double[] trim(double[] array, int size) {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    int getZoneCount() {
+        return nodeOrdinals.length;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param nodeIndex Node index these GLSKs were built with
+     * @param zoneIndex Zone index of the network zones these GLSKs were built with
+     * @return GLSK matrix, nodes as rows and zones as columns
+     */
+    SparseMatrixWithIndexesCSC toMatrix(IdIndex nodeIndex, IdIndex zoneIndex) {
+        int factorCount = Arrays.stream(factors).mapToInt(zoneFactors -> zoneFactors.length).sum();
+        SparseMatrixWithIndexesTriplet glskMatrix = new SparseMatrixWithIndexesTriplet(nodeIndex, zoneIndex, factorCount);
+        for (int zone = 0; zone < nodeOrdinals.length; zone++) {
+            for (int i = 0; i < nodeOrdinals[zone].length; i++) {
+                glskMatrix.addItem(nodeOrdinals[zone][i], zone, factors[zone][i]);
+            }
+        }
+        return glskMatrix.toCSCMatrix();
+    }
+
+    /**
+     * Scatters each zone net position on its nodes according to their GLSK factor.
+     * @param netPositions Net positions indexed by zone ordinal
+     * @return Nodal injections for allocated flows, indexed by node ordinal
+     */
+    double[] computeAllocatedInjections(double[] netPositions) {
+        double[] injections = new double[nodeCount];
+        for (int zone = 0; zone < nodeOrdinals.length; zone++) {
+            double netPosition = netPositions[zone];
+            int[] zoneNodeOrdinals = nodeOrdinals[zone];
+            double[] zoneFactors = factors[zone];
+            for (int i = 0; i < zoneNodeOrdinals.length; i++) {
+                injections[zoneNodeOrdinals[i]] += zoneFactors[i] * netPosition;
+            }
+        }
+        return injections;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+/**
+ * Intermediate results of a flow decomposition that can be retained in {@link FlowDecompositionResults}.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see FlowDecompositionParameters#setIntermediatesToSave(java.util.Collection)
+ */
+public enum IntermediateResult {
+    AC_NET_POSITIONS,
+    GLSKS,
+    PTDF,
+    PSDF,
+    HVDC_SENSITIVITIES,
+    NODAL_INJECTIONS,
+    DC_NODAL_INJECTIONS,
+    ZONAL_PTDF
+}
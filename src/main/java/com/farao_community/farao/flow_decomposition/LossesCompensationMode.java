@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+/**
+ * Ways of compensating AC losses in the DC part of the flow decomposition.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see FlowDecompositionParameters#setLossesCompensationMode(LossesCompensationMode)
+ */
+public enum LossesCompensationMode {
+    /**
+     * Losses of each branch are added to the network as a load on its sending bus, before the DC load flow.
+     * The network is permanently modified.
+     */
+    LOAD_CREATION,
+    /**
+     * Losses of each branch are added as a negative injection on an existing node of its sending bus,
+     * directly in the DC nodal injections and, through the PTDFs, in the DC reference flows.
+     * The network is not modified. With a distributed slack, the total losses are also injected on the nodes
+     * participating to the load flow balance type, as the slack distribution would do, so this balancing
+     * shows up in the nodal injections, and thus in the allocated and loop flows, of their zones.
+     */
+    INJECTION_DELTA
+}
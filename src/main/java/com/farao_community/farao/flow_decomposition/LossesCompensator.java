@@ -6,27 +6,55 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
-import com.powsybl.iidm.network.Branch;
-import com.powsybl.iidm.network.Network;
-import com.powsybl.iidm.network.Terminal;
-import com.powsybl.iidm.network.TieLine;
+import com.powsybl.commons.PowsyblException;
+import com.powsybl.iidm.network.*;
 import com.powsybl.loadflow.LoadFlow;
 import com.powsybl.loadflow.LoadFlowParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
+ * Losses of all branches are computed in two phases. Losses values are first computed in parallel,
+ * branch partitions in their own thread, into one array per branch side. They are then applied in a single sequential pass,
+ * which is the only one touching the network or the losses injections.
+ *
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
  */
 class LossesCompensator extends AbstractAcLoadFlowRunner<Void> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LossesCompensator.class);
+    private static final double NO_LOSSES = Double.NaN;
     private final double epsilon;
+    private final int parallelism;
 
-    LossesCompensator(LoadFlowParameters initialLoadFlowParameters, double epsilon) {
+    @FunctionalInterface
+    private interface LossesConsumer {
+        void accept(Terminal terminal, String lossesId, double losses);
+    }
+
+    LossesCompensator(LoadFlowParameters initialLoadFlowParameters, double epsilon, int parallelism) {
         super(initialLoadFlowParameters);
         this.epsilon = epsilon;
+        this.parallelism = parallelism;
+    }
+
+    LossesCompensator(LoadFlowParameters initialLoadFlowParameters, double epsilon) {
+        this(initialLoadFlowParameters, epsilon, 1);
     }
 
     LossesCompensator(LoadFlowParameters initialLoadFlowParameters, FlowDecompositionParameters parameters) {
-        this(initialLoadFlowParameters, parameters.getLossesCompensationEpsilon());
+        this(initialLoadFlowParameters, parameters.getLossesCompensationEpsilon(), parameters.getParallelism());
     }
 
     private boolean hasBus(Terminal terminal) {
@@ -46,57 +74,199 @@ class LossesCompensator extends AbstractAcLoadFlowRunner<Void> {
     }
 
     Void run(Network network) {
-        LoadFlow.run(network, loadFlowParameters);
-        network.getBranchStream()
-            .filter(this::hasBuses)
-            .filter(this::hasP0s)
-            .forEach(this::compensateLossesOnBranch);
+        computeLosses(network, this::createLoadForLossesOnTerminal);
         return null;
     }
 
-    private String getLossesId(String id) {
-        return String.format("LOSSES %s", id);
+    /**
+     * Computes the losses of each branch as a negative injection on a node of its sending bus, without modifying the network.
+     * Losses on a bus without any node are dropped, as nodes are the only injections sensitivities are computed on.
+     * The compensated losses are then balanced on the nodes the DC load flow slack would be distributed on,
+     * as the DC load flow would do with loads created by {@link #run(Network)}.
+     * @return Losses injections indexed by node ordinal
+     */
+    LossesInjections computeLossesInjections(Network network, NetworkMatrixIndexes networkMatrixIndexes) {
+        List<Injection<?>> nodeList = networkMatrixIndexes.getNodeList();
+        Map<String, Integer> nodeOrdinalByBus = getNodeOrdinalByBus(nodeList);
+        double[] lossesInjections = new double[nodeList.size()];
+        int[] droppedLossesCount = new int[1];
+        computeLosses(network, (terminal, lossesId, losses) -> {
+            Integer nodeOrdinal = nodeOrdinalByBus.get(getBusId(terminal));
+            if (nodeOrdinal == null) {
+                droppedLossesCount[0]++;
+            } else {
+                lossesInjections[nodeOrdinal] -= losses;
+            }
+        });
+        if (droppedLossesCount[0] > 0) {
+            LOGGER.warn("{} losses could not be compensated, their sending bus has no node", droppedLossesCount[0]);
+        }
+        balanceOnSlack(lossesInjections, nodeList);
+        return new LossesInjections(lossesInjections);
+    }
+
+    private void balanceOnSlack(double[] lossesInjections, List<Injection<?>> nodeList) {
+        if (!loadFlowParameters.isDistributedSlack()) {
+            return;
+        }
+        double[] participations = new double[nodeList.size()];
+        for (int nodeOrdinal = 0; nodeOrdinal < nodeList.size(); nodeOrdinal++) {
+            participations[nodeOrdinal] = getParticipation(nodeList.get(nodeOrdinal), loadFlowParameters.getBalanceType());
+        }
+        double totalParticipation = ReproducibleSum.sum(participations);
+        if (totalParticipation == 0.) {
+            LOGGER.debug("Losses are not balanced, no node participates to balance type {}", loadFlowParameters.getBalanceType());
+            return;
+        }
+        double totalLosses = -ReproducibleSum.sum(lossesInjections);
+        for (int nodeOrdinal = 0; nodeOrdinal < nodeList.size(); nodeOrdinal++) {
+            lossesInjections[nodeOrdinal] += totalLosses * participations[nodeOrdinal] / totalParticipation;
+        }
+    }
+
+    private static double getParticipation(Injection<?> node, LoadFlowParameters.BalanceType balanceType) {
+        switch (balanceType) {
+            case PROPORTIONAL_TO_GENERATION_P_MAX:
+                return node instanceof Generator ? Math.max(((Generator) node).getMaxP(), 0.) : 0.;
+            case PROPORTIONAL_TO_GENERATION_P:
+                return node instanceof Generator ? Math.max(((Generator) node).getTargetP(), 0.) : 0.;
+            case PROPORTIONAL_TO_LOAD:
+                return node instanceof Load ? Math.max(((Load) node).getP0(), 0.) : 0.;
+            default:
+                return 0.;
+        }
+    }
+
+    private static Map<String, Integer> getNodeOrdinalByBus(List<Injection<?>> nodeList) {
+        Map<String, Integer> nodeOrdinalByBus = new HashMap<>();
+        for (int nodeOrdinal = 0; nodeOrdinal < nodeList.size(); nodeOrdinal++) {
+            String busId = getBusId(nodeList.get(nodeOrdinal).getTerminal());
+            if (busId != null) {
+                nodeOrdinalByBus.putIfAbsent(busId, nodeOrdinal);
+            }
+        }
+        return nodeOrdinalByBus;
+    }
+
+    private static String getBusId(Terminal terminal) {
+        Bus bus = terminal.getBusView().getBus();
+        return bus == null ? null : bus.getId();
+    }
+
+    private void computeLosses(Network network, LossesConsumer lossesConsumer) {
+        LoadFlow.run(network, loadFlowParameters);
+        List<Branch> branches = network.getBranchStream().collect(Collectors.toList());
+        double[] lossesSide1 = new double[branches.size()];
+        double[] lossesSide2 = new double[branches.size()];
+        Arrays.fill(lossesSide1, NO_LOSSES);
+        Arrays.fill(lossesSide2, NO_LOSSES);
+        computeLossesValues(network, branches, lossesSide1, lossesSide2);
+        for (int branch = 0; branch < branches.size(); branch++) {
+            applyLosses(branches.get(branch), lossesSide1[branch], lossesSide2[branch], lossesConsumer);
+        }
+    }
+
+    private void computeLossesValues(Network network, List<Branch> branches, double[] lossesSide1, double[] lossesSide2) {
+        int partitionCount = Math.min(parallelism, branches.size());
+        if (partitionCount <= 1) {
+            computeLossesValues(branches, 0, branches.size(), lossesSide1, lossesSide2);
+            return;
+        }
+        // Bus topologies are lazily computed and cached, they are computed once before being read concurrently
+        network.getVoltageLevelStream().forEach(voltageLevel -> voltageLevel.getBusBreakerView().getBuses());
+        VariantManager variantManager = network.getVariantManager();
+        String workingVariantId = variantManager.getWorkingVariantId();
+        ExecutorService executor = Executors.newFixedThreadPool(partitionCount);
+        try {
+            List<Future<?>> partitions = new ArrayList<>();
+            for (int partition = 0; partition < partitionCount; partition++) {
+                int firstBranch = partition * branches.size() / partitionCount;
+                int lastBranch = (partition + 1) * branches.size() / partitionCount;
+                partitions.add(executor.submit(() -> {
+                    variantManager.setWorkingVariant(workingVariantId);
+                    computeLossesValues(branches, firstBranch, lastBranch, lossesSide1, lossesSide2);
+                }));
+            }
+            for (Future<?> partition : partitions) {
+                waitFor(partition);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void waitFor(Future<?> partition) {
+        try {
+            partition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PowsyblException("Interrupted during parallel losses computation", e);
+        } catch (ExecutionException e) {
+            throw new PowsyblException("Parallel losses computation failed", e.getCause());
+        }
+    }
+
+    private void computeLossesValues(List<Branch> branches, int firstBranch, int lastBranch, double[] lossesSide1, double[] lossesSide2) {
+        for (int branch = firstBranch; branch < lastBranch; branch++) {
+            computeLossesValues(branches.get(branch), branch, lossesSide1, lossesSide2);
+        }
     }
 
-    private void compensateLossesOnBranch(Branch<?> branch) {
+    private void computeLossesValues(Branch<?> branch, int branchOrdinal, double[] lossesSide1, double[] lossesSide2) {
+        if (!hasBuses(branch) || !hasP0s(branch)) {
+            return;
+        }
+        double p1 = branch.getTerminal1().getP();
+        double losses = p1 + branch.getTerminal2().getP();
         if (branch instanceof TieLine) {
-            compensateLossesOnTieLine((TieLine) branch);
+            TieLine tieLine = (TieLine) branch;
+            double r1 = tieLine.getHalf1().getR();
+            double r2 = tieLine.getHalf2().getR();
+            double r = r1 + r2;
+            lossesSide1[branchOrdinal] = losses * r1 / r;
+            lossesSide2[branchOrdinal] = losses * r2 / r;
+        } else if (isSendingSide1(p1)) {
+            lossesSide1[branchOrdinal] = losses;
         } else {
-            Terminal sendingTerminal = getSendingTerminal(branch);
-            String lossesId = getLossesId(branch.getId());
-            double losses = branch.getTerminal1().getP() + branch.getTerminal2().getP();
-            createLoadForLossesOnTerminal(sendingTerminal, lossesId, losses);
+            lossesSide2[branchOrdinal] = losses;
         }
     }
 
-    private void compensateLossesOnTieLine(TieLine tieLine) {
-        double r1 = tieLine.getHalf1().getR();
-        double r2 = tieLine.getHalf2().getR();
-        double r = r1 + r2;
-        Terminal terminal1 = tieLine.getTerminal1();
-        Terminal terminal2 = tieLine.getTerminal2();
-        double losses = terminal1.getP() + terminal2.getP();
-        double lossesSide1 = losses * r1 / r;
-        double lossesSide2 = losses * r2 / r;
-        String lossesIdSide1 = getLossesId(tieLine.getHalf1().getId());
-        String lossesIdSide2 = getLossesId(tieLine.getHalf2().getId());
+    private boolean isCompensated(double losses) {
+        return !Double.isNaN(losses) && Math.abs(losses) > epsilon;
+    }
 
-        createLoadForLossesOnTerminal(terminal1, lossesIdSide1, lossesSide1);
-        createLoadForLossesOnTerminal(terminal2, lossesIdSide2, lossesSide2);
+    private void applyLosses(Branch<?> branch, double lossesSide1, double lossesSide2, LossesConsumer lossesConsumer) {
+        if (isCompensated(lossesSide1)) {
+            lossesConsumer.accept(branch.getTerminal1(), getLossesId(branch, true), lossesSide1);
+        }
+        if (isCompensated(lossesSide2)) {
+            lossesConsumer.accept(branch.getTerminal2(), getLossesId(branch, false), lossesSide2);
+        }
     }
 
-    private void createLoadForLossesOnTerminal(Terminal terminal, String lossesId, double losses) {
-        if (Math.abs(losses) > epsilon) {
-            terminal.getVoltageLevel().newLoad()
-                .setId(lossesId)
-                .setBus(terminal.getBusBreakerView().getBus().getId())
-                .setP0(losses)
-                .setQ0(0)
-                .add();
+    private static String getLossesId(Branch<?> branch, boolean side1) {
+        if (branch instanceof TieLine) {
+            TieLine tieLine = (TieLine) branch;
+            return getLossesId(side1 ? tieLine.getHalf1().getId() : tieLine.getHalf2().getId());
         }
+        return getLossesId(branch.getId());
+    }
+
+    private static String getLossesId(String id) {
+        return String.format("LOSSES %s", id);
+    }
+
+    private void createLoadForLossesOnTerminal(Terminal terminal, String lossesId, double losses) {
+        terminal.getVoltageLevel().newLoad()
+            .setId(lossesId)
+            .setBus(terminal.getBusBreakerView().getBus().getId())
+            .setP0(losses)
+            .setQ0(0)
+            .add();
     }
 
-    private Terminal getSendingTerminal(Branch<?> branch) {
-        return branch.getTerminal1().getP() > 0 ? branch.getTerminal1() : branch.getTerminal2();
+    private static boolean isSendingSide1(double p1) {
+        return p1 > 0;
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.DMatrixSparseCSC;
+
+import java.util.Map;
+
+/**
+ * Losses compensation as a delta on the injection of each node, indexed by node ordinal.
+ * The losses are applied by linearity on the DC results computed without them, so the network is never modified.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class LossesInjections {
+    private static final LossesInjections NONE = new LossesInjections(new double[0]);
+    private final double[] injectionDeltas;
+
+    LossesInjections(double[] injectionDeltas) {
+        this.injectionDeltas = injectionDeltas;
+    }
+
+    static LossesInjections none() {
+        return NONE;
+    }
+
+    boolean isNone() {
+        return injectionDeltas.length == 0;
+    }
+
+    /**
+     * Adds the losses injections to the DC nodal injections, in place.
+     */
+    void applyOnNodalInjections(Map<String, Double> dcNodalInjections, IdIndex nodeIndex) {
+        for (int node = 0; node < injectionDeltas.length; node++) {
+            if (injectionDeltas[node] != 0.) {
+                dcNodalInjections.merge(nodeIndex.getId(node), injectionDeltas[node], Double::sum);
+            }
+        }
+    }
+
+    /**
+     * Adds the flows induced by the losses injections to the DC reference flows, in place.
+     * PTDF columns are expected in node ordinal order.
+     * PTDFs are oriented like the DC reference flows they were computed with, so the induced flows are oriented back
+     * to side 1 before being added.
+     */
+    void applyOnReferenceFlows(Map<String, Double> dcReferenceFlows, SparseMatrixWithIndexesCSC ptdfMatrix) {
+        if (isNone()) {
+            return;
+        }
+        DMatrixSparseCSC ptdf = ptdfMatrix.getCscMatrix();
+        ReproducibleSum.Accumulators inducedFlowSums = new ReproducibleSum.Accumulators(ptdf.numRows);
+        for (int column = 0; column < ptdf.numCols; column++) {
+            double injectionDelta = injectionDeltas[column];
+            if (injectionDelta != 0.) {
+                for (int entry = ptdf.col_idx[column]; entry < ptdf.col_idx[column + 1]; entry++) {
+                    inducedFlowSums.add(ptdf.nz_rows[entry], ptdf.nz_values[entry] * injectionDelta);
+                }
+            }
+        }
+        double[] inducedFlows = inducedFlowSums.toArray();
+        for (int xnec = 0; xnec < inducedFlows.length; xnec++) {
+            String xnecId = ptdfMatrix.rowIndex.getId(xnec);
+            double referenceFlow = dcReferenceFlows.get(xnecId);
+            dcReferenceFlows.put(xnecId, referenceFlow + (referenceFlow < 0 ? -inducedFlows[xnec] : inducedFlows[xnec]));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+/**
+ * Sparse matrix, whatever its storage precision, that can be multiplied on the right by a double precision matrix.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see FlowDecompositionParameters#setStoreSensitivitiesAsFloat32(boolean)
+ */
+interface MultipliableSparseMatrix extends SparseMatrixView {
+    /**
+     * @param parallelism Number of threads the columns of the right matrix are split between
+     * @return Product of this matrix by the given one, accumulated in double precision
+     */
+    SparseMatrixWithIndexesCSC mult(SparseMatrixWithIndexesCSC matrix, int parallelism);
+
+    /**
+     * @return Row-oriented copy of this matrix, built on the first call and kept
+     */
+    SparseMatrixRows getRows();
+}
@@ -9,10 +9,8 @@ package com.farao_community.farao.flow_decomposition;
 import com.powsybl.iidm.network.*;
 
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -24,18 +22,22 @@ class NetworkMatrixIndexes {
     private final List<Injection<?>> nodeList;
     private final List<String> nodeIdList;
     private final List<String> pstList;
-    private final Map<String, Integer> xnecIndex;
-    private final Map<String, Integer> nodeIndex;
-    private final Map<String, Integer> pstIndex;
+    private final List<HvdcLine> hvdcList;
+    private final IdIndex xnecIndex;
+    private final IdIndex nodeIndex;
+    private final IdIndex pstIndex;
+    private final IdIndex hvdcIndex;
 
     NetworkMatrixIndexes(Network network, List<Branch> xnecList) {
         this.xnecList = xnecList;
-        nodeList = getNodeList(network);
+        hvdcList = getHvdcList(network);
+        nodeList = getNodeList(network, getConverterStationIds(hvdcList));
         nodeIdList = getNodeIdList(nodeList);
         pstList = getPstIdList(network);
         xnecIndex = getXnecIndex(this.xnecList);
         nodeIndex = NetworkUtil.getIndex(nodeIdList);
         pstIndex = NetworkUtil.getIndex(pstList);
+        hvdcIndex = NetworkUtil.getIndex(getHvdcIdList());
     }
 
     List<Branch> getXnecList() {
@@ -54,29 +56,60 @@ class NetworkMatrixIndexes {
         return pstList;
     }
 
-    Map<String, Integer> getXnecIndex() {
+    IdIndex getXnecIndex() {
         return xnecIndex;
     }
 
-    Map<String, Integer> getNodeIndex() {
+    IdIndex getNodeIndex() {
         return nodeIndex;
     }
 
-    Map<String, Integer> getPstIndex() {
+    IdIndex getPstIndex() {
         return pstIndex;
     }
 
+    /**
+     * HVDC lines whose flow is a component of its own. Their converter stations are not nodes.
+     */
+    List<HvdcLine> getHvdcList() {
+        return hvdcList;
+    }
+
+    List<String> getHvdcIdList() {
+        return hvdcList.stream().map(Identifiable::getId).collect(Collectors.toList());
+    }
+
+    IdIndex getHvdcIndex() {
+        return hvdcIndex;
+    }
+
     int getPstCount() {
         return xnecList.size();
     }
 
-    private List<Injection<?>> getNodeList(Network network) {
+    private List<Injection<?>> getNodeList(Network network, Set<String> converterStationIds) {
         return getAllNetworkInjections(network)
             .filter(this::isInjectionConnected)
             .filter(this::isInjectionInMainSynchronousComponent)
+            .filter(injection -> !converterStationIds.contains(injection.getId()))
             .collect(Collectors.toList());
     }
 
+    private List<HvdcLine> getHvdcList(Network network) {
+        return network.getHvdcLineStream()
+            .filter(hvdcLine -> isInjectionConnected(hvdcLine.getConverterStation1()) && isInjectionConnected(hvdcLine.getConverterStation2()))
+            .filter(hvdcLine -> isInjectionInMainSynchronousComponent(hvdcLine.getConverterStation1())
+                && isInjectionInMainSynchronousComponent(hvdcLine.getConverterStation2()))
+            .collect(Collectors.toList());
+    }
+
+    private static Set<String> getConverterStationIds(List<HvdcLine> hvdcList) {
+        return hvdcList.stream()
+            .flatMap(hvdcLine -> Stream.of(hvdcLine.getConverterStation1(), hvdcLine.getConverterStation2()))
+            .map(Identifiable::getId)
+            .collect(Collectors.toSet());
+    }
+
     private Stream<Injection<?>> getAllNetworkInjections(Network network) {
         return network.getConnectableStream()
             .filter(Injection.class::isInstance)
@@ -113,12 +146,9 @@ class NetworkMatrixIndexes {
         return pst.getPhaseTapChanger().getNeutralStep().isPresent();
     }
 
-    private Map<String, Integer> getXnecIndex(List<Branch> xnecList) {
-        return IntStream.range(0, xnecList.size())
-            .boxed()
-            .collect(Collectors.toMap(
-                i -> xnecList.get(i).getId(),
-                Function.identity()
-            ));
+    private IdIndex getXnecIndex(List<Branch> xnecList) {
+        return NetworkUtil.getIndex(xnecList.stream()
+            .map(Identifiable::getId)
+            .collect(Collectors.toList()));
     }
 }
@@ -10,11 +10,7 @@ import com.powsybl.commons.PowsyblException;
 import com.powsybl.iidm.network.*;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * @author Hugo Schindler{@literal <hugo.schindler@rte-france.com>}
@@ -28,14 +24,22 @@ final class NetworkUtil {
     }
 
     static String getLoopFlowIdFromCountry(Country country) {
-        return String.format("%s %s", LOOP_FLOWS_COLUMN_PREFIX, country.toString());
+        return getLoopFlowIdFromZone(country.toString());
+    }
+
+    static String getLoopFlowIdFromZone(String zone) {
+        return String.format("%s %s", LOOP_FLOWS_COLUMN_PREFIX, zone);
     }
 
     static Country getTerminalCountry(Terminal terminal) {
-        Optional<Substation> optionalSubstation = terminal.getVoltageLevel().getSubstation();
+        return getVoltageLevelCountry(terminal.getVoltageLevel());
+    }
+
+    static Country getVoltageLevelCountry(VoltageLevel voltageLevel) {
+        Optional<Substation> optionalSubstation = voltageLevel.getSubstation();
         if (optionalSubstation.isEmpty()) {
             throw new PowsyblException(String.format("Voltage level %s does not belong to any substation. " +
-                    "Cannot retrieve country info needed for the algorithm.", terminal.getVoltageLevel().getId()));
+                    "Cannot retrieve country info needed for the algorithm.", voltageLevel.getId()));
         }
         Substation substation = optionalSubstation.get();
         Optional<Country> optionalCountry = substation.getCountry();
@@ -50,21 +54,8 @@ final class NetworkUtil {
         return getTerminalCountry(injection.getTerminal());
     }
 
-    static String getLoopFlowIdFromCountry(Network network, String identifiableId) {
-        Identifiable<?> identifiable = network.getIdentifiable(identifiableId);
-        if (identifiable instanceof Injection) {
-            return getLoopFlowIdFromCountry(getInjectionCountry((Injection<?>) identifiable));
-        }
-        throw new PowsyblException(String.format("Identifiable %s must be an Injection", identifiableId));
-    }
-
-    static Map<String, Integer> getIndex(List<String> idList) {
-        return IntStream.range(0, idList.size())
-            .boxed()
-            .collect(Collectors.toMap(
-                idList::get,
-                Function.identity()
-            ));
+    static IdIndex getIndex(List<String> idList) {
+        return IdIndex.of(idList);
     }
 
     static boolean isTerminalInMainSynchronousComponent(Terminal terminal) {
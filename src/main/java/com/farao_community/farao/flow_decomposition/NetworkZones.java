@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.Identifiable;
+import com.powsybl.iidm.network.Injection;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.Terminal;
+import com.powsybl.iidm.network.VoltageLevel;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Zone of every voltage level of a network, resolved once through a {@link ZoneMapping}.
+ * Zones are identified by their ordinal in a sorted zone index,
+ * so later stages only handle int ordinals and double arrays indexed by zone.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class NetworkZones {
+    private final IdIndex zoneIndex;
+    private final IdIndex voltageLevelIndex;
+    private final int[] voltageLevelZoneOrdinals;
+
+    NetworkZones(Network network, ZoneMapping zoneMapping) {
+        List<VoltageLevel> voltageLevels = network.getVoltageLevelStream().collect(Collectors.toList());
+        String[] voltageLevelZones = voltageLevels.stream().map(zoneMapping::getZone).toArray(String[]::new);
+        zoneIndex = NetworkUtil.getIndex(Arrays.stream(voltageLevelZones).distinct().sorted().collect(Collectors.toList()));
+        voltageLevelIndex = NetworkUtil.getIndex(voltageLevels.stream().map(Identifiable::getId).collect(Collectors.toList()));
+        voltageLevelZoneOrdinals = Arrays.stream(voltageLevelZones).mapToInt(zoneIndex::getIndex).toArray();
+    }
+
+    IdIndex getZoneIndex() {
+        return zoneIndex;
+    }
+
+    int getZoneCount() {
+        return zoneIndex.size();
+    }
+
+    String getZone(int zoneOrdinal) {
+        return zoneIndex.getId(zoneOrdinal);
+    }
+
+    int getZoneOrdinal(Terminal terminal) {
+        return voltageLevelZoneOrdinals[voltageLevelIndex.getIndex(terminal.getVoltageLevel().getId())];
+    }
+
+    String getZone(Terminal terminal) {
+        return getZone(getZoneOrdinal(terminal));
+    }
+
+    int[] getZoneOrdinals(List<Injection<?>> injections) {
+        return injections.stream()
+            .mapToInt(injection -> getZoneOrdinal(injection.getTerminal()))
+            .toArray();
+    }
+
+    double[] toZoneArray(Map<String, Double> valuesByZone) {
+        double[] values = new double[getZoneCount()];
+        valuesByZone.forEach((zone, value) -> {
+            int zoneOrdinal = zoneIndex.indexOf(zone);
+            if (zoneOrdinal != IdIndex.NOT_FOUND) {
+                values[zoneOrdinal] = value;
+            }
+        });
+        return values;
+    }
+}
@@ -6,9 +6,7 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
-import com.powsybl.iidm.network.Country;
 import com.powsybl.iidm.network.Injection;
-import com.powsybl.iidm.network.Network;
 
 import java.util.List;
 import java.util.Map;
@@ -19,81 +17,61 @@ import java.util.stream.Collectors;
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  */
 class NodalInjectionComputer {
-    private static final double DEFAULT_GLSK_FACTOR = 0.0;
     private final NetworkMatrixIndexes networkMatrixIndexes;
+    private final NetworkZones networkZones;
 
-    NodalInjectionComputer(NetworkMatrixIndexes networkMatrixIndexes) {
+    NodalInjectionComputer(NetworkMatrixIndexes networkMatrixIndexes, NetworkZones networkZones) {
         this.networkMatrixIndexes = networkMatrixIndexes;
+        this.networkZones = networkZones;
     }
 
     SparseMatrixWithIndexesTriplet run(
-        Network network,
-        Map<Country, Map<String, Double>> glsks,
-        Map<Country, Double> netPositions,
+        IndexedGlsks glsks,
+        Map<String, Double> netPositions,
         Map<String, Double> dcNodalInjection) {
-        Map<String, Double> nodalInjectionsForAllocatedFlow = getNodalInjectionsForAllocatedFlows(glsks, netPositions);
-        return convertToNodalInjectionMatrix(network, glsks, nodalInjectionsForAllocatedFlow, dcNodalInjection);
+        double[] nodalInjectionsForAllocatedFlow = glsks.computeAllocatedInjections(networkZones.toZoneArray(netPositions));
+        return convertToNodalInjectionMatrix(nodalInjectionsForAllocatedFlow, dcNodalInjection);
     }
 
-    private Map<String, Double> getNodalInjectionsForAllocatedFlows(
-        Map<Country, Map<String, Double>> glsks,
-        Map<Country, Double> netPositions) {
-        return networkMatrixIndexes.getNodeList().stream()
-            .collect(Collectors.toMap(
-                    Injection::getId,
-                    injection -> getIndividualNodalInjectionForAllocatedFlows(injection, glsks, netPositions)
-                )
-            );
-    }
-
-    private double getIndividualNodalInjectionForAllocatedFlows(
-        Injection<?> injection,
-        Map<Country, Map<String, Double>> glsks,
-        Map<Country, Double> netPositions) {
-        Country injectionCountry = NetworkUtil.getInjectionCountry(injection);
-        return glsks.get(injectionCountry).getOrDefault(injection.getId(), DEFAULT_GLSK_FACTOR)
-            * netPositions.get(injectionCountry);
-    }
-
-    private SparseMatrixWithIndexesTriplet getEmptyNodalInjectionMatrix(Map<Country, Map<String, Double>> glsks, Integer size) {
-        List<String> columns = glsks.keySet().stream()
-            .map(NetworkUtil::getLoopFlowIdFromCountry)
-            .collect(Collectors.toList());
-        columns.add(DecomposedFlow.ALLOCATED_COLUMN_NAME);
+    private SparseMatrixWithIndexesTriplet getEmptyNodalInjectionMatrix(List<String> columns, Integer size) {
         return new SparseMatrixWithIndexesTriplet(
             networkMatrixIndexes.getNodeIndex(), NetworkUtil.getIndex(columns), size);
     }
 
     private SparseMatrixWithIndexesTriplet convertToNodalInjectionMatrix(
-        Network network,
-        Map<Country, Map<String, Double>> glsks,
-        Map<String, Double> nodalInjectionsForAllocatedFlow,
+        double[] nodalInjectionsForAllocatedFlow,
         Map<String, Double> dcNodalInjection) {
-        SparseMatrixWithIndexesTriplet nodalInjectionMatrix = getEmptyNodalInjectionMatrix(glsks,
-            nodalInjectionsForAllocatedFlow.size() + dcNodalInjection.size());
-        fillNodalInjectionsWithAllocatedFlow(nodalInjectionsForAllocatedFlow, nodalInjectionMatrix);
-        fillNodalInjectionsWithLoopFlow(network, nodalInjectionsForAllocatedFlow, dcNodalInjection, nodalInjectionMatrix);
+        List<String> columns = networkZones.getZoneIndex().getIds().stream()
+            .map(NetworkUtil::getLoopFlowIdFromZone)
+            .collect(Collectors.toList());
+        columns.add(DecomposedFlow.ALLOCATED_COLUMN_NAME);
+        SparseMatrixWithIndexesTriplet nodalInjectionMatrix = getEmptyNodalInjectionMatrix(columns,
+            nodalInjectionsForAllocatedFlow.length + dcNodalInjection.size());
+        fillNodalInjectionsWithAllocatedFlow(nodalInjectionsForAllocatedFlow, nodalInjectionMatrix, columns.size() - 1);
+        fillNodalInjectionsWithLoopFlow(nodalInjectionsForAllocatedFlow, dcNodalInjection, nodalInjectionMatrix);
         return nodalInjectionMatrix;
     }
 
-    private void fillNodalInjectionsWithAllocatedFlow(Map<String, Double> nodalInjectionsForAllocatedFlow,
-                                                      SparseMatrixWithIndexesTriplet nodalInjectionMatrix) {
-        nodalInjectionsForAllocatedFlow.forEach(
-            (injectionId, injectionValue) -> nodalInjectionMatrix.addItem(injectionId,
-                DecomposedFlow.ALLOCATED_COLUMN_NAME, injectionValue)
-        );
+    private void fillNodalInjectionsWithAllocatedFlow(double[] nodalInjectionsForAllocatedFlow,
+                                                      SparseMatrixWithIndexesTriplet nodalInjectionMatrix,
+                                                      int allocatedColumn) {
+        for (int node = 0; node < nodalInjectionsForAllocatedFlow.length; node++) {
+            nodalInjectionMatrix.addItem(node, allocatedColumn, nodalInjectionsForAllocatedFlow[node]);
+        }
     }
 
-    private void fillNodalInjectionsWithLoopFlow(Network network,
-                                                 Map<String, Double> nodalInjectionsForAllocatedFlow,
+    private void fillNodalInjectionsWithLoopFlow(double[] nodalInjectionsForAllocatedFlow,
                                                  Map<String, Double> dcNodalInjection,
                                                  SparseMatrixWithIndexesTriplet nodalInjectionMatrix) {
-        dcNodalInjection.forEach(
-            (dcInjectionId, dcInjectionValue) -> nodalInjectionMatrix.addItem(
-                dcInjectionId,
-                NetworkUtil.getLoopFlowIdFromCountry(network, dcInjectionId),
-                computeNodalInjectionForLoopFLow(nodalInjectionsForAllocatedFlow.get(dcInjectionId), dcInjectionValue)
-            ));
+        List<Injection<?>> nodeList = networkMatrixIndexes.getNodeList();
+        int[] nodeZones = networkZones.getZoneOrdinals(nodeList);
+        for (int node = 0; node < nodeList.size(); node++) {
+            nodalInjectionMatrix.addItem(
+                node,
+                nodeZones[node],
+                computeNodalInjectionForLoopFLow(nodalInjectionsForAllocatedFlow[node], dcNodalInjection.get(nodeList.get(node).getId()))
+            );
+        }
     }
 
     private double computeNodalInjectionForLoopFLow(double nodalInjectionForAllocatedFlow, double dcInjectionValue) {
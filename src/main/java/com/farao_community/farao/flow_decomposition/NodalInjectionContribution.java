@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+/**
+ * Contribution of the nodal injection of one node to an allocated or loop flow of a XNEC,
+ * that is the PTDF of the node on the XNEC times its nodal injection.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see FlowDecompositionResults#getTopContributingInjections(String, String, int)
+ */
+public final class NodalInjectionContribution {
+    private final String nodeId;
+    private final double ptdf;
+    private final double nodalInjection;
+
+    NodalInjectionContribution(String nodeId, double ptdf, double nodalInjection) {
+        this.nodeId = nodeId;
+        this.ptdf = ptdf;
+        this.nodalInjection = nodalInjection;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public double getPtdf() {
+        return ptdf;
+    }
+
+    public double getNodalInjection() {
+        return nodalInjection;
+    }
+
+    /**
+     * @return Flow induced on the XNEC by the nodal injection, in MW
+     */
+    public double getContribution() {
+        return ptdf * nodalInjection;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s * %s = %s MW", nodeId, ptdf, nodalInjection, getContribution());
+    }
+}
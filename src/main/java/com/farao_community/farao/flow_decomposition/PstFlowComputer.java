@@ -17,11 +17,13 @@ import java.util.Optional;
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  */
 class PstFlowComputer {
+    private static final int SINGLE_THREAD = 1;
+
     SparseMatrixWithIndexesCSC run(Network network,
                                    NetworkMatrixIndexes networkMatrixIndexes,
-                                   SparseMatrixWithIndexesTriplet psdfMatrix) {
+                                   MultipliableSparseMatrix psdfMatrix) {
         SparseMatrixWithIndexesTriplet deltaTapMatrix = getDeltaTapMatrix(network, networkMatrixIndexes);
-        return SparseMatrixWithIndexesCSC.mult(psdfMatrix.toCSCMatrix(), deltaTapMatrix.toCSCMatrix());
+        return psdfMatrix.mult(deltaTapMatrix.toCSCMatrix(), SINGLE_THREAD);
     }
 
     private SparseMatrixWithIndexesTriplet getDeltaTapMatrix(Network network, NetworkMatrixIndexes networkMatrixIndexes) {
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+/**
+ * Ways of dropping small PTDFs, XNEC by XNEC, before computing allocated and loop flows.
+ * They apply on top of the absolute sensitivity epsilon, and trade accuracy of the allocated and loop flows
+ * for a smaller PTDF matrix and a faster multiplication.
+ * DC reference flows are always computed with the unfiltered PTDFs.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see FlowDecompositionParameters#setPtdfSparsificationMode(PtdfSparsificationMode)
+ * @see PtdfSparsificationReport
+ */
+public enum PtdfSparsificationMode {
+    /**
+     * PTDFs are only filtered by the absolute sensitivity epsilon.
+     */
+    NONE,
+    /**
+     * PTDFs of a XNEC lower, in absolute value, than the relative epsilon times its largest PTDF are dropped.
+     */
+    RELATIVE_EPSILON,
+    /**
+     * Only the top-k PTDFs of a XNEC, in absolute value, are kept.
+     */
+    TOP_K,
+    /**
+     * PTDFs of a XNEC are dropped, smallest contribution first, as long as the bound of the error
+     * they induce on any of its allocated and loop flows stays below the error budget in MW.
+     * The contribution of a node is its PTDF times its largest nodal injection in absolute value.
+     */
+    ERROR_BUDGET
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import java.util.List;
+
+/**
+ * Size of the PTDF matrix before and after sparsification, and bound of the error it induces.
+ * The error bound is the largest, over all XNECs, of the sum of the dropped PTDFs times the largest
+ * nodal injection of their node, in absolute value. It bounds the error on every allocated and loop flow, in MW.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see PtdfSparsificationMode
+ */
+public final class PtdfSparsificationReport {
+    private final PtdfSparsificationMode mode;
+    private final int nonZeroCountBefore;
+    private final int nonZeroCountAfter;
+    private final double maxFlowErrorBound;
+
+    PtdfSparsificationReport(PtdfSparsificationMode mode, int nonZeroCountBefore, int nonZeroCountAfter, double maxFlowErrorBound) {
+        this.mode = mode;
+        this.nonZeroCountBefore = nonZeroCountBefore;
+        this.nonZeroCountAfter = nonZeroCountAfter;
+        this.maxFlowErrorBound = maxFlowErrorBound;
+    }
+
+    /**
+     * Merges the reports of the synchronous components of a network, whose XNECs do not overlap.
+     */
+    static PtdfSparsificationReport merge(List<PtdfSparsificationReport> reports) {
+        int nonZeroCountBefore = 0;
+        int nonZeroCountAfter = 0;
+        double maxFlowErrorBound = 0.;
+        for (PtdfSparsificationReport report : reports) {
+            nonZeroCountBefore += report.nonZeroCountBefore;
+            nonZeroCountAfter += report.nonZeroCountAfter;
+            maxFlowErrorBound = Math.max(maxFlowErrorBound, report.maxFlowErrorBound);
+        }
+        return new PtdfSparsificationReport(reports.get(0).mode, nonZeroCountBefore, nonZeroCountAfter, maxFlowErrorBound);
+    }
+
+    public PtdfSparsificationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Number of PTDFs kept by the absolute sensitivity epsilon.
+     */
+    public int getNonZeroCountBefore() {
+        return nonZeroCountBefore;
+    }
+
+    /**
+     * @return Number of PTDFs used to compute allocated and loop flows.
+     */
+    public int getNonZeroCountAfter() {
+        return nonZeroCountAfter;
+    }
+
+    /**
+     * @return Bound in MW of the error on any allocated or loop flow induced by the dropped PTDFs.
+     */
+    public double getMaxFlowErrorBound() {
+        return maxFlowErrorBound;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d -> %d PTDFs, flow error <= %s MW", mode, nonZeroCountBefore, nonZeroCountAfter, maxFlowErrorBound);
+    }
+}
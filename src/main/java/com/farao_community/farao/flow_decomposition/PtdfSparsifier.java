@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.DMatrixSparseCSC;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Drops PTDFs XNEC by XNEC, following a {@link PtdfSparsificationMode}.
+ * The PTDF matrix is stored by node, so the entries of each XNEC are first gathered in a row-wise index of primitive entry ordinals,
+ * which is sorted in place, row by row, when a mode needs it. The kept entries are then copied in a new matrix, in the same order.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class PtdfSparsifier {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PtdfSparsifier.class);
+    private final FlowDecompositionParameters parameters;
+    private PtdfSparsificationReport report;
+
+    PtdfSparsifier(FlowDecompositionParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    PtdfSparsificationReport getReport() {
+        return report;
+    }
+
+    /**
+     * @param ptdfMatrix PTDFs, XNECs as rows and nodes as columns
+     * @param nodalInjectionsMatrix Allocated and loop flow nodal injections, nodes as rows, which the PTDFs will be multiplied by
+     * @return The sparsified PTDF matrix, with the same indexes
+     */
+    SparseMatrixWithIndexesCSC run(SparseMatrixWithIndexesCSC ptdfMatrix, SparseMatrixWithIndexesCSC nodalInjectionsMatrix) {
+        DMatrixSparseCSC ptdf = ptdfMatrix.getCscMatrix();
+        double[] nodeWeights = getNodeWeights(ptdfMatrix, nodalInjectionsMatrix);
+        double[] costs = new double[ptdf.col_idx[ptdf.numCols]];
+        for (int column = 0; column < ptdf.numCols; column++) {
+            for (int entry = ptdf.col_idx[column]; entry < ptdf.col_idx[column + 1]; entry++) {
+                costs[entry] = Math.abs(ptdf.nz_values[entry]) * nodeWeights[column];
+            }
+        }
+
+        int[] rowStarts = new int[ptdf.numRows + 1];
+        int[] rowEntries = getRowEntries(ptdf, rowStarts);
+        double[] sortKeys = getSortKeys(ptdf, costs);
+        int[] sortBuffer = new int[ptdf.numCols];
+        boolean[] kept = new boolean[costs.length];
+        double[] droppedCosts = new double[ptdf.numCols];
+        double maxFlowErrorBound = 0.;
+        for (int row = 0; row < ptdf.numRows; row++) {
+            int from = rowStarts[row];
+            int to = rowStarts[row + 1];
+            if (sortKeys != null) {
+                sortByKey(rowEntries, from, to, sortKeys, sortBuffer);
+            }
+            markKeptEntries(ptdf, costs, rowEntries, from, to, kept);
+            int droppedCount = 0;
+            for (int i = from; i < to; i++) {
+                int entry = rowEntries[i];
+                if (!kept[entry]) {
+                    droppedCosts[droppedCount++] = costs[entry];
+                }
+            }
+            maxFlowErrorBound = Math.max(maxFlowErrorBound, ReproducibleSum.sum(droppedCosts, 0, droppedCount));
+        }
+
+        DMatrixSparseCSC sparsePtdf = copyKeptEntries(ptdf, kept);
+        report = new PtdfSparsificationReport(parameters.getPtdfSparsificationMode(),
+            ptdf.col_idx[ptdf.numCols], sparsePtdf.col_idx[sparsePtdf.numCols], maxFlowErrorBound);
+        LOGGER.debug("PTDF sparsification {}", report);
+        return new SparseMatrixWithIndexesCSC(ptdfMatrix.rowIndex, ptdfMatrix.colIndex, sparsePtdf);
+    }
+
+    /**
+     * @return For each PTDF column, the largest nodal injection of its node in absolute value
+     */
+    private static double[] getNodeWeights(SparseMatrixWithIndexesCSC ptdfMatrix, SparseMatrixWithIndexesCSC nodalInjectionsMatrix) {
+        DMatrixSparseCSC injections = nodalInjectionsMatrix.getCscMatrix();
+        double[] injectionWeights = new double[injections.numRows];
+        for (int entry = 0; entry < injections.col_idx[injections.numCols]; entry++) {
+            int node = injections.nz_rows[entry];
+            injectionWeights[node] = Math.max(injectionWeights[node], Math.abs(injections.nz_values[entry]));
+        }
+        double[] nodeWeights = new double[ptdfMatrix.colIndex.size()];
+        for (int column = 0; column < nodeWeights.length; column++) {
+            int node = nodalInjectionsMatrix.rowIndex.indexOf(ptdfMatrix.colIndex.getId(column));
+            nodeWeights[column] = node == IdIndex.NOT_FOUND ? 0. : injectionWeights[node];
+        }
+        return nodeWeights;
+    }
+
+    /**
+     * @return Entries of the matrix sorted by row, then by column. Entries of row {@code i} start at {@code rowStarts[i]}.
+     */
+    private static int[] getRowEntries(DMatrixSparseCSC matrix, int[] rowStarts) {
+        int nonZeroCount = matrix.col_idx[matrix.numCols];
+        for (int entry = 0; entry < nonZeroCount; entry++) {
+            rowStarts[matrix.nz_rows[entry] + 1]++;
+        }
+        for (int row = 0; row < matrix.numRows; row++) {
+            rowStarts[row + 1] += rowStarts[row];
+        }
+        int[] nextEntry = Arrays.copyOf(rowStarts, matrix.numRows);
+        int[] rowEntries = new int[nonZeroCount];
+        for (int entry = 0; entry < nonZeroCount; entry++) {
+            rowEntries[nextEntry[matrix.nz_rows[entry]]++] = entry;
+        }
+        return rowEntries;
+    }
+
+    /**
+     * @return Key by which the entries of each row are sorted before being marked, indexed by entry,
+     * or null if the mode does not sort: largest PTDFs first for {@link PtdfSparsificationMode#TOP_K},
+     * cheapest entries first for {@link PtdfSparsificationMode#ERROR_BUDGET}
+     */
+    private double[] getSortKeys(DMatrixSparseCSC ptdf, double[] costs) {
+        switch (parameters.getPtdfSparsificationMode()) {
+            case TOP_K:
+                double[] sortKeys = new double[costs.length];
+                for (int entry = 0; entry < sortKeys.length; entry++) {
+                    sortKeys[entry] = -Math.abs(ptdf.nz_values[entry]);
+                }
+                return sortKeys;
+            case ERROR_BUDGET:
+                return costs;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Stable merge sort of {@code entries[from, to)} by increasing key, so that entries keep their column order between equal keys.
+     * @param buffer Scratch space, at least half as long as the sorted range
+     */
+    private static void sortByKey(int[] entries, int from, int to, double[] keys, int[] buffer) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByKey(entries, from, middle, keys, buffer);
+        sortByKey(entries, middle, to, keys, buffer);
+        if (Double.compare(keys[entries[middle - 1]], keys[entries[middle]]) <= 0) {
+            return;
+        }
+        int leftLength = middle - from;
+        System.arraycopy(entries, from, buffer, 0, leftLength);
+        int left = 0;
+        int right = middle;
+        int next = from;
+        while (left < leftLength && right < to) {
+            entries[next++] = Double.compare(keys[entries[right]], keys[buffer[left]]) < 0 ? entries[right++] : buffer[left++];
+        }
+        System.arraycopy(buffer, left, entries, next, leftLength - left);
+    }
+
+    /**
+     * Entries of the row are {@code rowEntries[from, to)}, in column order or sorted by {@link #getSortKeys(DMatrixSparseCSC, double[])}.
+     * Column order breaks ties between equal PTDFs or contributions.
+     * The error budget is checked with the same summation, in the same order, as the reported flow error bound.
+     */
+    private void markKeptEntries(DMatrixSparseCSC ptdf, double[] costs, int[] rowEntries, int from, int to, boolean[] kept) {
+        switch (parameters.getPtdfSparsificationMode()) {
+            case RELATIVE_EPSILON:
+                double maxPtdf = 0.;
+                for (int i = from; i < to; i++) {
+                    maxPtdf = Math.max(maxPtdf, Math.abs(ptdf.nz_values[rowEntries[i]]));
+                }
+                double threshold = parameters.getPtdfRelativeEpsilon() * maxPtdf;
+                for (int i = from; i < to; i++) {
+                    kept[rowEntries[i]] = Math.abs(ptdf.nz_values[rowEntries[i]]) >= threshold;
+                }
+                break;
+            case TOP_K:
+                for (int i = from; i < to; i++) {
+                    kept[rowEntries[i]] = i - from < parameters.getPtdfTopK();
+                }
+                break;
+            case ERROR_BUDGET:
+                ReproducibleSum droppedCost = new ReproducibleSum();
+                for (int i = from; i < to; i++) {
+                    droppedCost.add(costs[rowEntries[i]]);
+                    kept[rowEntries[i]] = droppedCost.getSum() > parameters.getPtdfErrorBudget();
+                }
+                break;
+            case NONE:
+            default:
+                for (int i = from; i < to; i++) {
+                    kept[rowEntries[i]] = true;
+                }
+        }
+    }
+
+    private static DMatrixSparseCSC copyKeptEntries(DMatrixSparseCSC matrix, boolean[] kept) {
+        int keptCount = 0;
+        for (boolean isKept : kept) {
+            keptCount += isKept ? 1 : 0;
+        }
+        DMatrixSparseCSC sparseMatrix = new DMatrixSparseCSC(matrix.numRows, matrix.numCols, keptCount);
+        int nextEntry = 0;
+        for (int column = 0; column < matrix.numCols; column++) {
+            for (int entry = matrix.col_idx[column]; entry < matrix.col_idx[column + 1]; entry++) {
+                if (kept[entry]) {
+                    sparseMatrix.nz_rows[nextEntry] = matrix.nz_rows[entry];
+                    sparseMatrix.nz_values[nextEntry] = matrix.nz_values[entry];
+                    nextEntry++;
+                }
+            }
+            sparseMatrix.col_idx[column + 1] = nextEntry;
+        }
+        sparseMatrix.nz_length = keptCount;
+        sparseMatrix.indicesSorted = matrix.indicesSorted;
+        return sparseMatrix;
+    }
+}
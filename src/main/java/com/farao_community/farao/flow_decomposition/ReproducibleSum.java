@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compensated (Neumaier) summation in a fixed order, used by every reduction of the flow decomposition.
+ * Terms are always added in the order they are given, never split between threads,
+ * so that results are bitwise identical whatever the parallelism, and the rounding error does not grow with the number of terms.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class ReproducibleSum {
+    private double sum;
+    private double compensation;
+
+    /**
+     * Running sum, for checks made on partial sums while terms are added.
+     */
+    ReproducibleSum() {
+    }
+
+    void add(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    double getSum() {
+        return sum + compensation;
+    }
+
+    static double sum(double[] values, int from, int to) {
+        ReproducibleSum reproducibleSum = new ReproducibleSum();
+        for (int i = from; i < to; i++) {
+            reproducibleSum.add(values[i]);
+        }
+        return reproducibleSum.getSum();
+    }
+
+    static double sum(double... values) {
+        return sum(values, 0, values.length);
+    }
+
+    /**
+     * @param values Terms, added in their iteration order
+     */
+    static double sum(Iterable<Double> values) {
+        ReproducibleSum reproducibleSum = new ReproducibleSum();
+        values.forEach(reproducibleSum::add);
+        return reproducibleSum.getSum();
+    }
+
+    static double sumOf(double[] values, int from, int to, DoubleUnaryOperator term) {
+        ReproducibleSum reproducibleSum = new ReproducibleSum();
+        for (int i = from; i < to; i++) {
+            reproducibleSum.add(term.applyAsDouble(values[i]));
+        }
+        return reproducibleSum.getSum();
+    }
+
+    /**
+     * Compensated sums indexed by ordinal, for scattered accumulations such as net positions by zone.
+     */
+    static final class Accumulators {
+        private final ReproducibleSum[] sums;
+
+        Accumulators(int size) {
+            sums = new ReproducibleSum[size];
+            for (int i = 0; i < size; i++) {
+                sums[i] = new ReproducibleSum();
+            }
+        }
+
+        void add(int ordinal, double value) {
+            sums[ordinal].add(value);
+        }
+
+        double[] toArray() {
+            double[] result = new double[sums.length];
+            for (int i = 0; i < sums.length; i++) {
+                result[i] = sums[i].getSum();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+/**
+ * Strategies spreading the difference between AC and DC reference flows over the decomposed flow of a XNEC.
+ * Each strategy works on one row of a {@link DecomposedFlowBlock}:
+ * the allocated flow, the PST flow, the HVDC flow, then the loop flows, oriented like the AC reference flow.
+ * If a strategy has no component to spread the difference on, the row is left unchanged.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see FlowDecompositionParameters#setRescaleModes(java.util.Collection)
+ */
+public enum RescaleMode {
+    /**
+     * Difference spread over positive components, proportionally to their value, as defined by ACER methodology.
+     */
+    ACER_METHODOLOGY {
+        @Override
+        void rescaleRow(double[] flows, int rowStart, int rowEnd, double deltaToRescale) {
+            rescaleReLUProportional(flows, rowStart, rowEnd, deltaToRescale);
+        }
+    },
+    /**
+     * Difference spread over all components, proportionally to their absolute value.
+     */
+    PROPORTIONAL {
+        @Override
+        void rescaleRow(double[] flows, int rowStart, int rowEnd, double deltaToRescale) {
+            double sumOfAbsoluteFlows = ReproducibleSum.sumOf(flows, rowStart, rowEnd, Math::abs);
+            if (sumOfAbsoluteFlows == 0.) {
+                return;
+            }
+            for (int i = rowStart; i < rowEnd; i++) {
+                flows[i] += deltaToRescale * Math.abs(flows[i]) / sumOfAbsoluteFlows;
+            }
+        }
+    },
+    /**
+     * Difference spread over positive loop flows only, proportionally to their value.
+     * Allocated, PST and HVDC flows are kept as computed in DC.
+     */
+    LOOP_FLOWS_ONLY {
+        @Override
+        void rescaleRow(double[] flows, int rowStart, int rowEnd, double deltaToRescale) {
+            rescaleReLUProportional(flows, rowStart + DecomposedFlowBlock.FIRST_LOOP_FLOW_COMPONENT, rowEnd, deltaToRescale);
+        }
+    };
+
+    abstract void rescaleRow(double[] flows, int rowStart, int rowEnd, double deltaToRescale);
+
+    private static double reLU(double value) {
+        return value > 0 ? value : 0.;
+    }
+
+    private static void rescaleReLUProportional(double[] flows, int start, int end, double deltaToRescale) {
+        double sumOfReLUFlows = ReproducibleSum.sumOf(flows, start, end, RescaleMode::reLU);
+        if (sumOfReLUFlows == 0.) {
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            flows[i] += deltaToRescale * reLU(flows[i]) / sumOfReLUFlows;
+        }
+    }
+}
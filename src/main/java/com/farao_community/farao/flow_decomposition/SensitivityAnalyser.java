@@ -6,6 +6,7 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
+import com.powsybl.commons.reporter.Reporter;
 import com.powsybl.contingency.ContingencyContext;
 import com.powsybl.iidm.network.Branch;
 import com.powsybl.iidm.network.Network;
@@ -15,8 +16,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
@@ -29,19 +31,21 @@ class SensitivityAnalyser {
     private final SensitivityAnalysisParameters sensitivityAnalysisParameters;
     private final Network network;
     private final List<Branch> functionList;
-    private final Map<String, Integer> functionIndex;
+    private final IdIndex functionIndex;
+    private final int[] functionOrdinals;
     private final FlowDecompositionParameters parameters;
 
     SensitivityAnalyser(LoadFlowParameters loadFlowParameters,
                         FlowDecompositionParameters parameters,
                         Network network,
                         List<Branch> functionList,
-                        Map<String, Integer> functionIndex) {
+                        IdIndex functionIndex) {
         this.sensitivityAnalysisParameters = initSensitivityAnalysisParameters(loadFlowParameters);
         this.parameters = parameters;
         this.network = network;
         this.functionList = functionList;
         this.functionIndex = functionIndex;
+        this.functionOrdinals = getOrdinals(functionList.stream().map(Branch::getId).collect(Collectors.toList()), functionIndex);
     }
 
     SensitivityAnalyser(LoadFlowParameters loadFlowParameters, FlowDecompositionParameters parameters, Network network, NetworkMatrixIndexes networkMatrixIndexes) {
@@ -55,18 +59,61 @@ class SensitivityAnalyser {
         return parameters;
     }
 
+    private static int[] getOrdinals(List<String> idList, IdIndex index) {
+        return idList.stream().mapToInt(index::getIndex).toArray();
+    }
+
+    /**
+     * Variables of the same type whose sensitivities are gathered in one matrix, functions as rows and variables as columns.
+     */
+    static final class Variables {
+        private final List<String> variableList;
+        private final IdIndex variableIndex;
+        private final SensitivityVariableType sensitivityVariableType;
+
+        Variables(List<String> variableList, IdIndex variableIndex, SensitivityVariableType sensitivityVariableType) {
+            this.variableList = variableList;
+            this.variableIndex = variableIndex;
+            this.sensitivityVariableType = sensitivityVariableType;
+        }
+    }
+
     SparseMatrixWithIndexesTriplet run(List<String> variableList,
-                                       Map<String, Integer> variableIndex,
+                                       IdIndex variableIndex,
                                        SensitivityVariableType sensitivityVariableType) {
-        SparseMatrixWithIndexesTriplet sensiMatrixTriplet = initSensitivityMatrixTriplet(variableIndex);
+        return run(List.of(new Variables(variableList, variableIndex, sensitivityVariableType))).get(0);
+    }
+
+    /**
+     * Computes the sensitivities of several variable groups in the same batched sensitivity analyses,
+     * so that adding a group does not add a load flow.
+     * @return One sensitivity matrix per variable group, in the same order
+     */
+    List<SparseMatrixWithIndexesTriplet> run(List<Variables> variableGroups) {
+        List<SparseMatrixWithIndexesTriplet> sensiMatrixTriplets = new ArrayList<>();
+        List<String> variableList = new ArrayList<>();
+        List<SensitivityVariableType> variableTypes = new ArrayList<>();
+        List<SparseMatrixWithIndexesTriplet> variableTriplets = new ArrayList<>();
+        List<Integer> variableOrdinals = new ArrayList<>();
+        for (Variables variables : variableGroups) {
+            SparseMatrixWithIndexesTriplet sensiMatrixTriplet = initSensitivityMatrixTriplet(variables.variableIndex);
+            sensiMatrixTriplets.add(sensiMatrixTriplet);
+            for (String variable : variables.variableList) {
+                variableList.add(variable);
+                variableTypes.add(variables.sensitivityVariableType);
+                variableTriplets.add(sensiMatrixTriplet);
+                variableOrdinals.add(variables.variableIndex.getIndex(variable));
+            }
+        }
         for (int i = 0; i < variableList.size(); i += SENSITIVITY_VARIABLE_BATCH_SIZE) {
-            List<String> localNodeList = variableList.subList(i, Math.min(variableList.size(), i + SENSITIVITY_VARIABLE_BATCH_SIZE));
-            partialFillSensitivityMatrix(sensitivityVariableType, sensiMatrixTriplet, localNodeList);
+            int end = Math.min(variableList.size(), i + SENSITIVITY_VARIABLE_BATCH_SIZE);
+            partialFillSensitivityMatrices(variableList.subList(i, end), variableTypes.subList(i, end),
+                variableTriplets.subList(i, end), variableOrdinals.subList(i, end));
         }
-        return sensiMatrixTriplet;
+        return sensiMatrixTriplets;
     }
 
-    private SparseMatrixWithIndexesTriplet initSensitivityMatrixTriplet(Map<String, Integer> variableIndex) {
+    private SparseMatrixWithIndexesTriplet initSensitivityMatrixTriplet(IdIndex variableIndex) {
         LOGGER.debug("Filtering Sensitivity values with epsilon = {}", parameters.getSensitivityEpsilon());
         return new SparseMatrixWithIndexesTriplet(functionIndex,
             variableIndex,
@@ -74,20 +121,31 @@ class SensitivityAnalyser {
             parameters.getSensitivityEpsilon());
     }
 
-    private void partialFillSensitivityMatrix(SensitivityVariableType sensitivityVariableType,
-                                              SparseMatrixWithIndexesTriplet sensitivityMatrixTriplet,
-                                              List<String> localNodeList) {
-        List<SensitivityFactor> factors = getFactors(localNodeList, sensitivityVariableType);
+    private void partialFillSensitivityMatrices(List<String> localVariableList,
+                                                List<SensitivityVariableType> localVariableTypes,
+                                                List<SparseMatrixWithIndexesTriplet> localVariableTriplets,
+                                                List<Integer> localVariableOrdinals) {
+        List<SensitivityFactor> factors = getFactors(localVariableList, localVariableTypes);
         SensitivityAnalysisResult sensitivityResult = getSensitivityAnalysisResult(factors);
-        fillSensibilityMatrixTriplet(sensitivityMatrixTriplet, factors, sensitivityResult);
+        for (SensitivityValue sensitivityValue : sensitivityResult.getValues()) {
+            // Factors are generated variable by variable, each one against the whole function list
+            int factorIndex = sensitivityValue.getFactorIndex();
+            int localVariable = factorIndex / functionOrdinals.length;
+            fillSensitivityMatrixCell(localVariableTriplets.get(localVariable),
+                functionOrdinals[factorIndex % functionOrdinals.length],
+                localVariableOrdinals.get(localVariable),
+                sensitivityValue);
+        }
     }
 
     private List<SensitivityFactor> getFactors(List<String> variableList,
-                                               SensitivityVariableType sensitivityVariableType) {
+                                               List<SensitivityVariableType> variableTypes) {
         List<SensitivityFactor> factors = new ArrayList<>();
-        variableList.forEach(
-            variable -> functionList.forEach(
-                function -> factors.add(getSensitivityFactor(variable, function, sensitivityVariableType))));
+        for (int variable = 0; variable < variableList.size(); variable++) {
+            String variableId = variableList.get(variable);
+            SensitivityVariableType sensitivityVariableType = variableTypes.get(variable);
+            functionList.forEach(function -> factors.add(getSensitivityFactor(variableId, function, sensitivityVariableType)));
+        }
         return factors;
     }
 
@@ -103,24 +161,16 @@ class SensitivityAnalyser {
     }
 
     private SensitivityAnalysisResult getSensitivityAnalysisResult(List<SensitivityFactor> factors) {
-        return SensitivityAnalysis.run(network, factors, sensitivityAnalysisParameters);
-    }
-
-    private void fillSensibilityMatrixTriplet(
-        SparseMatrixWithIndexesTriplet sensitivityMatrixTriplet,
-        List<SensitivityFactor> factors,
-        SensitivityAnalysisResult sensiResult) {
-        for (SensitivityValue sensitivityValue : sensiResult.getValues()) {
-            fillSensitivityMatrixCell(sensitivityMatrixTriplet, factors, sensitivityValue);
-        }
+        return SensitivityAnalysis.run(network, network.getVariantManager().getWorkingVariantId(), factors,
+            Collections.emptyList(), Collections.emptyList(), sensitivityAnalysisParameters,
+            new CallerThreadComputationManager(), Reporter.NO_OP);
     }
 
     private void fillSensitivityMatrixCell(SparseMatrixWithIndexesTriplet sensitivityMatrixTriplet,
-                                           List<SensitivityFactor> factors, SensitivityValue sensitivityValue) {
-        SensitivityFactor factor = factors.get(sensitivityValue.getFactorIndex());
+                                           int functionOrdinal, int variableOrdinal, SensitivityValue sensitivityValue) {
         double sensitivity = sensitivityValue.getValue();
         double referenceOrientedSensitivity = sensitivityValue.getFunctionReference() < 0 ?
             -sensitivity : sensitivity;
-        sensitivityMatrixTriplet.addItem(factor.getFunctionId(), factor.getVariableId(), referenceOrientedSensitivity);
+        sensitivityMatrixTriplet.addItem(functionOrdinal, variableOrdinal, referenceOrientedSensitivity);
     }
 }
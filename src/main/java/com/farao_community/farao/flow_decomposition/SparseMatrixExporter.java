@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.DMatrixSparseCSC;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Exports a sparse matrix, such as the PTDF or PSDF matrices of {@link FlowDecompositionResults}, in a compact binary file
+ * that {@link SparseMatrixLoader} reads back.
+ * The compressed sparse column arrays are written as they are stored, without going through maps nor boxed values.
+ * <p>
+ * The file starts with an uncompressed header: the {@link #MAGIC} number, the {@link #VERSION}, the {@link Precision}
+ * and the {@link Compression} ordinals. The rest of the file, possibly compressed, holds the row count, the column count,
+ * the non-zero count, the row ids, the column ids, the column pointers, the row indexes of the non-zero entries,
+ * and their values. Numbers are big-endian, ids are modified UTF-8 strings as written by {@link DataOutputStream#writeUTF(String)}.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+public class SparseMatrixExporter {
+    static final int MAGIC = 0x46445350;
+    static final int VERSION = 1;
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Precision of the stored values.
+     */
+    public enum Precision {
+        FLOAT64,
+        /**
+         * Values are rounded to the nearest float, halving their size. Sensitivities keep about 7 significant digits.
+         */
+        FLOAT32
+    }
+
+    public enum Compression {
+        NONE,
+        DEFLATE
+    }
+
+    public void export(Path path, SparseMatrixView matrix) {
+        export(path, matrix, Precision.FLOAT64, Compression.NONE);
+    }
+
+    public void export(Path path, SparseMatrixView matrix, Precision precision, Compression compression) {
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE)) {
+            export(outputStream, toCscMatrix(matrix), precision, compression);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SparseMatrixWithIndexesCSC toCscMatrix(SparseMatrixView matrix) {
+        if (matrix instanceof SparseMatrixWithIndexesCSC) {
+            return (SparseMatrixWithIndexesCSC) matrix;
+        }
+        SparseMatrixWithIndexesTriplet tripletMatrix = new SparseMatrixWithIndexesTriplet(
+            IdIndex.of(matrix.getRowIds()), IdIndex.of(matrix.getColumnIds()), matrix.getNonZeroCount());
+        matrix.forEachNonZero(tripletMatrix::addItem);
+        return tripletMatrix.toCSCMatrix();
+    }
+
+    private static void export(OutputStream outputStream, SparseMatrixWithIndexesCSC matrix,
+                               Precision precision, Compression compression) throws IOException {
+        DataOutputStream header = new DataOutputStream(outputStream);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeByte(precision.ordinal());
+        header.writeByte(compression.ordinal());
+        header.flush();
+        if (compression == Compression.NONE) {
+            writeBody(header, matrix, precision);
+            return;
+        }
+        // The deflater holds native memory until it is ended, which closing the stream would also do to the file stream
+        Deflater deflater = new Deflater();
+        try {
+            DeflaterOutputStream bodyStream = new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE, true);
+            writeBody(new DataOutputStream(bodyStream), matrix, precision);
+            bodyStream.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeBody(DataOutputStream body, SparseMatrixWithIndexesCSC matrix, Precision precision) throws IOException {
+        DMatrixSparseCSC cscMatrix = matrix.getCscMatrix();
+        int nonZeroCount = cscMatrix.col_idx[cscMatrix.numCols];
+        body.writeInt(cscMatrix.numRows);
+        body.writeInt(cscMatrix.numCols);
+        body.writeInt(nonZeroCount);
+        writeIds(body, matrix.getRowIds());
+        writeIds(body, matrix.getColumnIds());
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        writeInts(body, buffer, cscMatrix.col_idx, cscMatrix.numCols + 1);
+        writeInts(body, buffer, cscMatrix.nz_rows, nonZeroCount);
+        if (precision == Precision.FLOAT32) {
+            writeFloats(body, buffer, cscMatrix.nz_values, nonZeroCount);
+        } else {
+            writeDoubles(body, buffer, cscMatrix.nz_values, nonZeroCount);
+        }
+        body.flush();
+    }
+
+    private static void writeIds(DataOutputStream body, List<String> ids) throws IOException {
+        for (String id : ids) {
+            body.writeUTF(id);
+        }
+    }
+
+    private static void writeInts(DataOutputStream body, ByteBuffer buffer, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush(body, buffer);
+            }
+            buffer.putInt(values[i]);
+        }
+        flush(body, buffer);
+    }
+
+    private static void writeFloats(DataOutputStream body, ByteBuffer buffer, double[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < Float.BYTES) {
+                flush(body, buffer);
+            }
+            buffer.putFloat((float) values[i]);
+        }
+        flush(body, buffer);
+    }
+
+    private static void writeDoubles(DataOutputStream body, ByteBuffer buffer, double[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < Double.BYTES) {
+                flush(body, buffer);
+            }
+            buffer.putDouble(values[i]);
+        }
+        flush(body, buffer);
+    }
+
+    private static void flush(DataOutputStream body, ByteBuffer buffer) throws IOException {
+        body.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+import org.ejml.data.DMatrixSparseCSC;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Loads a sparse matrix written by {@link SparseMatrixExporter}, directly into compressed sparse column arrays.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+public class SparseMatrixLoader {
+    public SparseMatrixView load(Path path) {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path), SparseMatrixExporter.BUFFER_SIZE)) {
+            return load(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SparseMatrixWithIndexesCSC load(InputStream inputStream) throws IOException {
+        DataInputStream header = new DataInputStream(inputStream);
+        if (header.readInt() != SparseMatrixExporter.MAGIC) {
+            throw new PowsyblException("Not a sparse matrix file");
+        }
+        int version = header.readInt();
+        if (version != SparseMatrixExporter.VERSION) {
+            throw new PowsyblException(String.format("Unsupported sparse matrix file version %d", version));
+        }
+        SparseMatrixExporter.Precision precision = readOrdinal(header, SparseMatrixExporter.Precision.values(), "precision");
+        SparseMatrixExporter.Compression compression = readOrdinal(header, SparseMatrixExporter.Compression.values(), "compression");
+        if (compression == SparseMatrixExporter.Compression.NONE) {
+            return readBody(header, precision);
+        }
+        // The inflater holds native memory until it is ended, which closing the stream would also do to the file stream
+        Inflater inflater = new Inflater();
+        try {
+            return readBody(new DataInputStream(new InflaterInputStream(inputStream, inflater)), precision);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static <E extends Enum<E>> E readOrdinal(DataInputStream header, E[] values, String headerName) throws IOException {
+        byte ordinal = header.readByte();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new PowsyblException(String.format("Unsupported sparse matrix file %s %d", headerName, ordinal));
+        }
+        return values[ordinal];
+    }
+
+    private static SparseMatrixWithIndexesCSC readBody(DataInputStream body, SparseMatrixExporter.Precision precision) throws IOException {
+        int rowCount = body.readInt();
+        int columnCount = body.readInt();
+        int nonZeroCount = body.readInt();
+        IdIndex rowIndex = IdIndex.of(readIds(body, rowCount));
+        IdIndex columnIndex = IdIndex.of(readIds(body, columnCount));
+        DMatrixSparseCSC cscMatrix = new DMatrixSparseCSC(rowCount, columnCount, nonZeroCount);
+        readInts(body, cscMatrix.col_idx, columnCount + 1);
+        readInts(body, cscMatrix.nz_rows, nonZeroCount);
+        if (precision == SparseMatrixExporter.Precision.FLOAT32) {
+            readFloats(body, cscMatrix.nz_values, nonZeroCount);
+        } else {
+            readDoubles(body, cscMatrix.nz_values, nonZeroCount);
+        }
+        cscMatrix.nz_length = nonZeroCount;
+        // Exported matrices may keep their insertion order within columns, while lookups rely on sorted row indexes
+        cscMatrix.sortIndices(null);
+        return new SparseMatrixWithIndexesCSC(rowIndex, columnIndex, cscMatrix);
+    }
+
+    private static List<String> readIds(DataInputStream body, int count) throws IOException {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(body.readUTF());
+        }
+        return ids;
+    }
+
+    private static ByteBuffer readBlock(DataInputStream body, byte[] bytes, int length) throws IOException {
+        body.readFully(bytes, 0, length);
+        return ByteBuffer.wrap(bytes, 0, length);
+    }
+
+    private static void readInts(DataInputStream body, int[] values, int length) throws IOException {
+        byte[] bytes = new byte[SparseMatrixExporter.BUFFER_SIZE];
+        int blockLength = SparseMatrixExporter.BUFFER_SIZE / Integer.BYTES;
+        for (int start = 0; start < length; start += blockLength) {
+            int count = Math.min(blockLength, length - start);
+            readBlock(body, bytes, count * Integer.BYTES).asIntBuffer().get(values, start, count);
+        }
+    }
+
+    private static void readFloats(DataInputStream body, double[] values, int length) throws IOException {
+        byte[] bytes = new byte[SparseMatrixExporter.BUFFER_SIZE];
+        int blockLength = SparseMatrixExporter.BUFFER_SIZE / Float.BYTES;
+        for (int start = 0; start < length; start += blockLength) {
+            int count = Math.min(blockLength, length - start);
+            ByteBuffer block = readBlock(body, bytes, count * Float.BYTES);
+            for (int i = 0; i < count; i++) {
+                values[start + i] = block.getFloat();
+            }
+        }
+    }
+
+    private static void readDoubles(DataInputStream body, double[] values, int length) throws IOException {
+        byte[] bytes = new byte[SparseMatrixExporter.BUFFER_SIZE];
+        int blockLength = SparseMatrixExporter.BUFFER_SIZE / Double.BYTES;
+        for (int start = 0; start < length; start += blockLength) {
+            int count = Math.min(blockLength, length - start);
+            readBlock(body, bytes, count * Double.BYTES).asDoubleBuffer().get(values, start, count);
+        }
+    }
+}
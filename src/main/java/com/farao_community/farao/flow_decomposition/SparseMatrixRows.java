@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import java.util.Arrays;
+
+/**
+ * Row-oriented (CSR) copy of a sparse matrix, so that reading a row only costs its number of non-zero entries.
+ * Entries of row {@code i} are stored from {@code rowStarts[i]} to {@code rowStarts[i + 1]}, by increasing column ordinal.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class SparseMatrixRows {
+    private final IdIndex rowIndex;
+    private final IdIndex colIndex;
+    private final int[] rowStarts;
+    private final int[] columns;
+    private final double[] values;
+
+    private SparseMatrixRows(IdIndex rowIndex, IdIndex colIndex, int[] rowStarts, int[] columns, double[] values) {
+        this.rowIndex = rowIndex;
+        this.colIndex = colIndex;
+        this.rowStarts = rowStarts;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Copies the matrix in two passes over its entries, visited column after column.
+     */
+    static SparseMatrixRows of(SparseMatrixView matrix) {
+        IdIndex rowIndex = IdIndex.of(matrix.getRowIds());
+        IdIndex colIndex = IdIndex.of(matrix.getColumnIds());
+        int[] rowStarts = new int[rowIndex.size() + 1];
+        matrix.forEachNonZero((rowId, columnId, value) -> rowStarts[rowIndex.getIndex(rowId) + 1]++);
+        for (int row = 0; row < rowIndex.size(); row++) {
+            rowStarts[row + 1] += rowStarts[row];
+        }
+        int[] columns = new int[rowStarts[rowIndex.size()]];
+        double[] values = new double[columns.length];
+        int[] nextEntry = Arrays.copyOf(rowStarts, rowIndex.size());
+        matrix.forEachNonZero((rowId, columnId, value) -> {
+            int entry = nextEntry[rowIndex.getIndex(rowId)]++;
+            columns[entry] = colIndex.getIndex(columnId);
+            values[entry] = value;
+        });
+        return new SparseMatrixRows(rowIndex, colIndex, rowStarts, columns, values);
+    }
+
+    IdIndex getColIndex() {
+        return colIndex;
+    }
+
+    /**
+     * @return Ordinal of the row, {@link IdIndex#NOT_FOUND} if the matrix has no such row
+     */
+    int getRow(String rowId) {
+        return rowIndex.indexOf(rowId);
+    }
+
+    int getRowStart(int row) {
+        return rowStarts[row];
+    }
+
+    int getRowEnd(int row) {
+        return rowStarts[row + 1];
+    }
+
+    void forEachNonZeroInRow(String rowId, SparseMatrixView.EntryConsumer entryConsumer) {
+        int row = rowIndex.getIndex(rowId);
+        for (int entry = rowStarts[row]; entry < rowStarts[row + 1]; entry++) {
+            entryConsumer.accept(rowId, colIndex.getId(columns[entry]), values[entry]);
+        }
+    }
+
+    int getColumn(int entry) {
+        return columns[entry];
+    }
+
+    double getValue(int entry) {
+        return values[entry];
+    }
+}
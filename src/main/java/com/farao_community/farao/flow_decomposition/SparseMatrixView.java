@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import java.util.List;
+
+/**
+ * Read-only view over a matrix retained by a flow decomposition, sparse or dense.
+ * Views read the storage of the matrix in place, and visits only go through its non-zero entries.
+ * Matrices stored by column copy themselves by row the first time a row is visited, see {@link #forEachNonZeroInRow(String, EntryConsumer)}.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+public interface SparseMatrixView {
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(String rowId, String columnId, double value);
+    }
+
+    List<String> getRowIds();
+
+    List<String> getColumnIds();
+
+    int getNonZeroCount();
+
+    /**
+     * @return Value of the cell, 0 if it is not stored.
+     */
+    double get(String rowId, String columnId);
+
+    /**
+     * Visits the non-zero entries column after column.
+     */
+    void forEachNonZero(EntryConsumer entryConsumer);
+
+    /**
+     * Visits the non-zero entries of one column. Its cost only depends on the number of entries of the column.
+     */
+    void forEachNonZeroInColumn(String columnId, EntryConsumer entryConsumer);
+
+    /**
+     * Visits the non-zero entries of one row, by increasing column ordinal.
+     * Matrices stored by column build a row-oriented copy of themselves on the first call and keep it,
+     * then each call only depends on the number of entries of the row.
+     */
+    void forEachNonZeroInRow(String rowId, EntryConsumer entryConsumer);
+}
@@ -6,40 +6,99 @@
  */
 package com.farao_community.farao.flow_decomposition;
 
+import com.powsybl.commons.PowsyblException;
 import org.ejml.data.DMatrixSparse;
 import org.ejml.data.DMatrixSparseCSC;
 import org.ejml.sparse.csc.CommonOps_DSCC;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
  */
-class SparseMatrixWithIndexesCSC extends AbstractSparseMatrixWithIndexes {
+class SparseMatrixWithIndexesCSC extends AbstractSparseMatrixWithIndexes implements MultipliableSparseMatrix {
     private final DMatrixSparseCSC cscMatrix;
+    private SparseMatrixRows rows;
 
-    SparseMatrixWithIndexesCSC(Map<String, Integer> rowIndex, Map<String, Integer> colIndex, DMatrixSparseCSC cscMatrix) {
+    SparseMatrixWithIndexesCSC(IdIndex rowIndex, IdIndex colIndex, DMatrixSparseCSC cscMatrix) {
         super(rowIndex, colIndex);
         this.cscMatrix = cscMatrix;
     }
 
-    SparseMatrixWithIndexesCSC(Map<String, Integer> rowIndex, Map<String, Integer> colIndex) {
+    SparseMatrixWithIndexesCSC(IdIndex rowIndex, IdIndex colIndex) {
         this(rowIndex, colIndex, new DMatrixSparseCSC(rowIndex.size(), colIndex.size()));
     }
 
-    private Map<Integer, String> inverseIndex(Map<String, Integer> index) {
-        return index.entrySet()
-            .stream()
-            .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+    DMatrixSparseCSC getCscMatrix() {
+        return cscMatrix;
+    }
+
+    @Override
+    public List<String> getRowIds() {
+        return rowIndex.getIds();
+    }
+
+    @Override
+    public List<String> getColumnIds() {
+        return colIndex.getIds();
+    }
+
+    @Override
+    public int getNonZeroCount() {
+        return cscMatrix.col_idx[cscMatrix.numCols];
+    }
+
+    @Override
+    public double get(String rowId, String columnId) {
+        return cscMatrix.get(rowIndex.getIndex(rowId), colIndex.getIndex(columnId));
+    }
+
+    @Override
+    public void forEachNonZero(EntryConsumer entryConsumer) {
+        for (int column = 0; column < cscMatrix.numCols; column++) {
+            forEachNonZeroInColumn(column, entryConsumer);
+        }
+    }
+
+    @Override
+    public void forEachNonZeroInColumn(String columnId, EntryConsumer entryConsumer) {
+        forEachNonZeroInColumn(colIndex.getIndex(columnId), entryConsumer);
+    }
+
+    @Override
+    public void forEachNonZeroInRow(String rowId, EntryConsumer entryConsumer) {
+        getRows().forEachNonZeroInRow(rowId, entryConsumer);
+    }
+
+    @Override
+    public synchronized SparseMatrixRows getRows() {
+        if (rows == null) {
+            rows = SparseMatrixRows.of(this);
+        }
+        return rows;
+    }
+
+    private void forEachNonZeroInColumn(int column, EntryConsumer entryConsumer) {
+        String columnId = colIndex.getId(column);
+        for (int entry = cscMatrix.col_idx[column]; entry < cscMatrix.col_idx[column + 1]; entry++) {
+            entryConsumer.accept(rowIndex.getId(cscMatrix.nz_rows[entry]), columnId, cscMatrix.nz_values[entry]);
+        }
     }
 
     private void getZeroMatrixAsMap(Map<String, Map<String, Double>> result) {
-        for (String col: colIndex.keySet()) {
-            for (String row: rowIndex.keySet()) {
+        for (String col: colIndex.getIds()) {
+            for (String row: rowIndex.getIds()) {
                 result.computeIfAbsent(row, v -> new TreeMap<>())
                     .put(col, 0.0);
             }
@@ -47,16 +106,14 @@ class SparseMatrixWithIndexesCSC extends AbstractSparseMatrixWithIndexes {
     }
 
     Map<String, Map<String, Double>> toMap(boolean fillZeros) {
-        Map<Integer, String> colIndexInverse = inverseIndex(colIndex);
-        Map<Integer, String> rowIndexInverse = inverseIndex(rowIndex);
         Map<String, Map<String, Double>> result = new TreeMap<>();
         if (fillZeros) {
             getZeroMatrixAsMap(result);
         }
         for (Iterator<DMatrixSparse.CoordinateRealValue> iterator = cscMatrix.createCoordinateIterator(); iterator.hasNext(); ) {
             DMatrixSparse.CoordinateRealValue cell = iterator.next();
-            result.computeIfAbsent(rowIndexInverse.get(cell.row), v -> new TreeMap<>())
-                    .put(colIndexInverse.get(cell.col), cell.value);
+            result.computeIfAbsent(rowIndex.getId(cell.row), v -> new TreeMap<>())
+                    .put(colIndex.getId(cell.col), cell.value);
         }
         return result;
     }
@@ -66,4 +123,99 @@ class SparseMatrixWithIndexesCSC extends AbstractSparseMatrixWithIndexes {
         CommonOps_DSCC.mult(matrix1.cscMatrix, matrix2.cscMatrix, multiplicationResult.cscMatrix);
         return multiplicationResult;
     }
+
+    /**
+     * Merges matrices whose entries do not overlap, such as matrices of different synchronous components.
+     * Rows and columns of the result are the union of the rows and columns of the matrices, in order of first appearance.
+     */
+    static SparseMatrixWithIndexesCSC merge(List<? extends SparseMatrixView> matrices) {
+        Set<String> rowIds = new LinkedHashSet<>();
+        Set<String> columnIds = new LinkedHashSet<>();
+        int nonZeroCount = 0;
+        for (SparseMatrixView matrix : matrices) {
+            rowIds.addAll(matrix.getRowIds());
+            columnIds.addAll(matrix.getColumnIds());
+            nonZeroCount += matrix.getNonZeroCount();
+        }
+        SparseMatrixWithIndexesTriplet mergedMatrix = new SparseMatrixWithIndexesTriplet(
+            IdIndex.of(new ArrayList<>(rowIds)), IdIndex.of(new ArrayList<>(columnIds)), nonZeroCount);
+        for (SparseMatrixView matrix : matrices) {
+            matrix.forEachNonZero(mergedMatrix::addItem);
+        }
+        return mergedMatrix.toCSCMatrix();
+    }
+
+    /**
+     * Multiplication where the columns of the second matrix are split in contiguous partitions,
+     * each one multiplied by the first matrix in its own thread.
+     * Each column of the result only depends on the matching column of the second matrix,
+     * so the result is the same as the sequential multiplication.
+     */
+    static SparseMatrixWithIndexesCSC mult(SparseMatrixWithIndexesCSC matrix1, SparseMatrixWithIndexesCSC matrix2, int parallelism) {
+        if (Math.min(parallelism, matrix2.colIndex.size()) <= 1) {
+            return mult(matrix1, matrix2);
+        }
+        DMatrixSparseCSC result = multByColumnPartitions(matrix2.colIndex.size(), parallelism,
+            (firstColumn, lastColumn) -> multColumns(matrix1.cscMatrix, matrix2.cscMatrix, firstColumn, lastColumn));
+        return new SparseMatrixWithIndexesCSC(matrix1.rowIndex, matrix2.colIndex, result);
+    }
+
+    @Override
+    public SparseMatrixWithIndexesCSC mult(SparseMatrixWithIndexesCSC matrix, int parallelism) {
+        return mult(this, matrix, parallelism);
+    }
+
+    /**
+     * Product of a matrix by a contiguous range of columns of the right matrix.
+     */
+    @FunctionalInterface
+    interface ColumnRangeProduct {
+        DMatrixSparseCSC mult(int firstColumn, int lastColumn);
+    }
+
+    /**
+     * Splits the columns of the right matrix in contiguous partitions, multiplies each one in its own thread,
+     * and concatenates the partial products in column order.
+     */
+    static DMatrixSparseCSC multByColumnPartitions(int columnCount, int parallelism, ColumnRangeProduct columnRangeProduct) {
+        int partitionCount = Math.min(parallelism, columnCount);
+        if (partitionCount <= 1) {
+            return columnRangeProduct.mult(0, columnCount);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(partitionCount);
+        try {
+            List<Future<DMatrixSparseCSC>> partialResults = new ArrayList<>();
+            for (int partition = 0; partition < partitionCount; partition++) {
+                int firstColumn = partition * columnCount / partitionCount;
+                int lastColumn = (partition + 1) * columnCount / partitionCount;
+                partialResults.add(executor.submit(() -> columnRangeProduct.mult(firstColumn, lastColumn)));
+            }
+            DMatrixSparseCSC result = getPartialResult(partialResults.get(0));
+            for (int partition = 1; partition < partitionCount; partition++) {
+                result = CommonOps_DSCC.concatColumns(result, getPartialResult(partialResults.get(partition)), null);
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static DMatrixSparseCSC multColumns(DMatrixSparseCSC matrix1, DMatrixSparseCSC matrix2, int firstColumn, int lastColumn) {
+        DMatrixSparseCSC columns = new DMatrixSparseCSC(matrix2.numRows, lastColumn - firstColumn, 0);
+        CommonOps_DSCC.extract(matrix2, 0, matrix2.numRows, firstColumn, lastColumn, columns, 0, 0);
+        DMatrixSparseCSC partialResult = new DMatrixSparseCSC(matrix1.numRows, columns.numCols);
+        CommonOps_DSCC.mult(matrix1, columns, partialResult);
+        return partialResult;
+    }
+
+    private static DMatrixSparseCSC getPartialResult(Future<DMatrixSparseCSC> partialResult) {
+        try {
+            return partialResult.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PowsyblException("Interrupted during parallel matrix multiplication", e);
+        } catch (ExecutionException e) {
+            throw new PowsyblException("Parallel matrix multiplication failed", e.getCause());
+        }
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.DMatrixSparseCSC;
+import org.ejml.data.DMatrixSparseTriplet;
+import org.ejml.data.FMatrixSparseCSC;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sparse matrix whose values are stored in single precision, about 7 significant digits,
+ * for sensitivities whose extra digits do not matter. It halves the memory of the values.
+ * Products are accumulated in double precision, so only the rounding of the stored values differs
+ * from {@link SparseMatrixWithIndexesCSC}.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class SparseMatrixWithIndexesFloatCSC extends AbstractSparseMatrixWithIndexes implements MultipliableSparseMatrix {
+    private final FMatrixSparseCSC cscMatrix;
+    private SparseMatrixRows rows;
+
+    private SparseMatrixWithIndexesFloatCSC(IdIndex rowIndex, IdIndex colIndex, FMatrixSparseCSC cscMatrix) {
+        super(rowIndex, colIndex);
+        this.cscMatrix = cscMatrix;
+    }
+
+    /**
+     * @return A copy of the given matrix, with the same structure and values rounded to single precision
+     */
+    static SparseMatrixWithIndexesFloatCSC of(SparseMatrixWithIndexesCSC matrix) {
+        DMatrixSparseCSC doubleMatrix = matrix.getCscMatrix();
+        int nonZeroCount = doubleMatrix.col_idx[doubleMatrix.numCols];
+        FMatrixSparseCSC floatMatrix = new FMatrixSparseCSC(doubleMatrix.numRows, doubleMatrix.numCols, nonZeroCount);
+        System.arraycopy(doubleMatrix.col_idx, 0, floatMatrix.col_idx, 0, doubleMatrix.numCols + 1);
+        System.arraycopy(doubleMatrix.nz_rows, 0, floatMatrix.nz_rows, 0, nonZeroCount);
+        for (int entry = 0; entry < nonZeroCount; entry++) {
+            floatMatrix.nz_values[entry] = (float) doubleMatrix.nz_values[entry];
+        }
+        floatMatrix.nz_length = nonZeroCount;
+        floatMatrix.indicesSorted = doubleMatrix.indicesSorted;
+        return new SparseMatrixWithIndexesFloatCSC(matrix.rowIndex, matrix.colIndex, floatMatrix);
+    }
+
+    /**
+     * Converts the triplets straight to single precision, without a double precision compressed copy.
+     * As in {@link SparseMatrixWithIndexesTriplet#toCSCMatrix()}, entries keep their insertion order within each column.
+     */
+    static SparseMatrixWithIndexesFloatCSC of(SparseMatrixWithIndexesTriplet matrix) {
+        DMatrixSparseTriplet tripletMatrix = matrix.getTripletMatrix();
+        int[] rowsAndColumns = tripletMatrix.nz_rowcol.data;
+        double[] values = tripletMatrix.nz_value.data;
+        int[] columnCounts = new int[tripletMatrix.numCols];
+        for (int item = 0; item < tripletMatrix.nz_length; item++) {
+            columnCounts[rowsAndColumns[2 * item + 1]]++;
+        }
+        FMatrixSparseCSC floatMatrix = new FMatrixSparseCSC(tripletMatrix.numRows, tripletMatrix.numCols, tripletMatrix.nz_length);
+        floatMatrix.histogramToStructure(columnCounts);
+        int[] nextEntries = Arrays.copyOf(floatMatrix.col_idx, tripletMatrix.numCols);
+        for (int item = 0; item < tripletMatrix.nz_length; item++) {
+            int entry = nextEntries[rowsAndColumns[2 * item + 1]]++;
+            floatMatrix.nz_rows[entry] = rowsAndColumns[2 * item];
+            floatMatrix.nz_values[entry] = (float) values[item];
+        }
+        floatMatrix.nz_length = tripletMatrix.nz_length;
+        floatMatrix.indicesSorted = false;
+        return new SparseMatrixWithIndexesFloatCSC(matrix.rowIndex, matrix.colIndex, floatMatrix);
+    }
+
+    FMatrixSparseCSC getCscMatrix() {
+        return cscMatrix;
+    }
+
+    @Override
+    public List<String> getRowIds() {
+        return rowIndex.getIds();
+    }
+
+    @Override
+    public List<String> getColumnIds() {
+        return colIndex.getIds();
+    }
+
+    @Override
+    public int getNonZeroCount() {
+        return cscMatrix.col_idx[cscMatrix.numCols];
+    }
+
+    @Override
+    public double get(String rowId, String columnId) {
+        return cscMatrix.get(rowIndex.getIndex(rowId), colIndex.getIndex(columnId));
+    }
+
+    @Override
+    public void forEachNonZero(EntryConsumer entryConsumer) {
+        for (int column = 0; column < cscMatrix.numCols; column++) {
+            forEachNonZeroInColumn(column, entryConsumer);
+        }
+    }
+
+    @Override
+    public void forEachNonZeroInColumn(String columnId, EntryConsumer entryConsumer) {
+        forEachNonZeroInColumn(colIndex.getIndex(columnId), entryConsumer);
+    }
+
+    @Override
+    public void forEachNonZeroInRow(String rowId, EntryConsumer entryConsumer) {
+        getRows().forEachNonZeroInRow(rowId, entryConsumer);
+    }
+
+    @Override
+    public synchronized SparseMatrixRows getRows() {
+        if (rows == null) {
+            rows = SparseMatrixRows.of(this);
+        }
+        return rows;
+    }
+
+    private void forEachNonZeroInColumn(int column, EntryConsumer entryConsumer) {
+        String columnId = colIndex.getId(column);
+        for (int entry = cscMatrix.col_idx[column]; entry < cscMatrix.col_idx[column + 1]; entry++) {
+            entryConsumer.accept(rowIndex.getId(cscMatrix.nz_rows[entry]), columnId, cscMatrix.nz_values[entry]);
+        }
+    }
+
+    @Override
+    Map<String, Map<String, Double>> toMap(boolean fillZeros) {
+        Map<String, Map<String, Double>> result = new TreeMap<>();
+        if (fillZeros) {
+            for (String row : rowIndex.getIds()) {
+                Map<String, Double> rowMap = result.computeIfAbsent(row, v -> new TreeMap<>());
+                colIndex.getIds().forEach(col -> rowMap.put(col, 0.0));
+            }
+        }
+        forEachNonZero((rowId, columnId, value) -> result.computeIfAbsent(rowId, v -> new TreeMap<>()).put(columnId, value));
+        return result;
+    }
+
+    /**
+     * Multiplication where the columns of the given matrix are split in contiguous partitions, as in
+     * {@link SparseMatrixWithIndexesCSC#mult(SparseMatrixWithIndexesCSC, SparseMatrixWithIndexesCSC, int)}.
+     * Each column of the result is accumulated in double precision, in the order of the entries of the given matrix.
+     */
+    @Override
+    public SparseMatrixWithIndexesCSC mult(SparseMatrixWithIndexesCSC matrix, int parallelism) {
+        DMatrixSparseCSC result = SparseMatrixWithIndexesCSC.multByColumnPartitions(matrix.colIndex.size(), parallelism,
+            (firstColumn, lastColumn) -> multColumns(cscMatrix, matrix.getCscMatrix(), firstColumn, lastColumn));
+        return new SparseMatrixWithIndexesCSC(rowIndex, matrix.colIndex, result);
+    }
+
+    private static DMatrixSparseCSC multColumns(FMatrixSparseCSC matrix1, DMatrixSparseCSC matrix2, int firstColumn, int lastColumn) {
+        DMatrixSparseCSC result = new DMatrixSparseCSC(matrix1.numRows, lastColumn - firstColumn, 0);
+        double[] columnValues = new double[matrix1.numRows];
+        int[] columnMarkers = new int[matrix1.numRows];
+        Arrays.fill(columnMarkers, -1);
+        int[] columnRows = new int[matrix1.numRows];
+        int nonZeroCount = 0;
+        for (int column = firstColumn; column < lastColumn; column++) {
+            int columnRowCount = 0;
+            for (int entry2 = matrix2.col_idx[column]; entry2 < matrix2.col_idx[column + 1]; entry2++) {
+                int inner = matrix2.nz_rows[entry2];
+                double value2 = matrix2.nz_values[entry2];
+                for (int entry1 = matrix1.col_idx[inner]; entry1 < matrix1.col_idx[inner + 1]; entry1++) {
+                    int row = matrix1.nz_rows[entry1];
+                    if (columnMarkers[row] != column) {
+                        columnMarkers[row] = column;
+                        columnRows[columnRowCount++] = row;
+                        columnValues[row] = 0.;
+                    }
+                    columnValues[row] += matrix1.nz_values[entry1] * value2;
+                }
+            }
+            Arrays.sort(columnRows, 0, columnRowCount);
+            if (nonZeroCount + columnRowCount > result.nz_values.length) {
+                // Only the first nz_length entries are preserved when growing
+                result.nz_length = nonZeroCount;
+                result.growMaxLength(Math.max(nonZeroCount + columnRowCount, 2 * result.nz_values.length), true);
+            }
+            for (int i = 0; i < columnRowCount; i++) {
+                result.nz_rows[nonZeroCount] = columnRows[i];
+                result.nz_values[nonZeroCount] = columnValues[columnRows[i]];
+                nonZeroCount++;
+            }
+            result.col_idx[column - firstColumn + 1] = nonZeroCount;
+        }
+        result.nz_length = nonZeroCount;
+        result.indicesSorted = true;
+        return result;
+    }
+}
@@ -21,23 +21,23 @@ class SparseMatrixWithIndexesTriplet extends AbstractSparseMatrixWithIndexes {
     private final DMatrixSparseTriplet tripletMatrix;
     private final double epsilon;
 
-    SparseMatrixWithIndexesTriplet(Map<String, Integer> rowIndex,
-                                          Map<String, Integer> colIndex,
-                                          Integer initLength,
-                                          double epsilon) {
+    SparseMatrixWithIndexesTriplet(IdIndex rowIndex,
+                                   IdIndex colIndex,
+                                   Integer initLength,
+                                   double epsilon) {
         super(rowIndex, colIndex);
         this.tripletMatrix = new DMatrixSparseTriplet(rowIndex.size(), colIndex.size(), initLength);
         this.epsilon = epsilon;
     }
 
-    SparseMatrixWithIndexesTriplet(Map<String, Integer> rowIndex,
-                                          Map<String, Integer> colIndex,
-                                          Integer initLength) {
+    SparseMatrixWithIndexesTriplet(IdIndex rowIndex,
+                                   IdIndex colIndex,
+                                   Integer initLength) {
         this(rowIndex, colIndex, initLength, NO_FILTERING_EPSILON);
     }
 
-    SparseMatrixWithIndexesTriplet(Map<String, Integer> rowIndex, String columnName, int size) {
-        this(rowIndex, Map.of(columnName, 0), size);
+    SparseMatrixWithIndexesTriplet(IdIndex rowIndex, String columnName, int size) {
+        this(rowIndex, IdIndex.of(columnName), size);
     }
 
     private boolean isNotZero(double value) {
@@ -45,11 +45,19 @@ class SparseMatrixWithIndexesTriplet extends AbstractSparseMatrixWithIndexes {
     }
 
     void addItem(String row, String col, double value) {
+        addItem(rowIndex.getIndex(row), colIndex.getIndex(col), value);
+    }
+
+    void addItem(int row, int col, double value) {
         if (!Double.isNaN(value) && isNotZero(value)) {
-            tripletMatrix.addItem(rowIndex.get(row), colIndex.get(col), value);
+            tripletMatrix.addItem(row, col, value);
         }
     }
 
+    DMatrixSparseTriplet getTripletMatrix() {
+        return tripletMatrix;
+    }
+
     SparseMatrixWithIndexesCSC toCSCMatrix() {
         DMatrixSparseCSC cscMatrix = DConvertMatrixStruct.convert(tripletMatrix, (DMatrixSparseCSC) null);
         return new SparseMatrixWithIndexesCSC(this.rowIndex, this.colIndex, cscMatrix);
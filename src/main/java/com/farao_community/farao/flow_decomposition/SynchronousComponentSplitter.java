@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Isolates each synchronous component of a network in its own variant, in which it becomes the main synchronous component.
+ * Everything outside of the component is disconnected, except HVDC converter stations,
+ * so that HVDC lines linking the component to others keep their setpoint as an injection in the component.
+ * Variants are cloned from the working variant, so they keep its load flow results.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class SynchronousComponentSplitter {
+    static final int MAIN_SYNCHRONOUS_COMPONENT = ComponentConstants.MAIN_NUM;
+    private static final String VARIANT_ID_FORMAT = "FLOW_DECOMPOSITION_SYNCHRONOUS_COMPONENT_%d_%s";
+
+    private SynchronousComponentSplitter() {
+    }
+
+    /**
+     * @return Numbers of the synchronous components having at least one branch selected by the filter, in increasing order
+     */
+    static List<Integer> getSynchronousComponents(Network network, XnecFilter xnecFilter) {
+        return network.getBranchStream()
+            .filter(branch -> branch.getTerminal1().isConnected() && branch.getTerminal2().isConnected())
+            .filter(xnecFilter::test)
+            .map(branch -> {
+                Integer component1 = getSynchronousComponent(branch.getTerminal1());
+                Integer component2 = getSynchronousComponent(branch.getTerminal2());
+                return Objects.equals(component1, component2) ? component1 : null;
+            })
+            .filter(Objects::nonNull)
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private static Integer getSynchronousComponent(Terminal terminal) {
+        Bus bus = terminal.getBusBreakerView().getBus();
+        return bus == null ? null : bus.getSynchronousComponent().getNum();
+    }
+
+    private static Stream<Terminal> getTerminals(Connectable<?> connectable) {
+        return connectable.getTerminals().stream().map(Terminal.class::cast);
+    }
+
+    /**
+     * Creates a variant where the given synchronous component is the main one. The working variant is left unchanged.
+     * @return Id of the created variant
+     */
+    static String createVariant(Network network, int synchronousComponent) {
+        VariantManager variantManager = network.getVariantManager();
+        String initialVariantId = variantManager.getWorkingVariantId();
+        String variantId = String.format(VARIANT_ID_FORMAT, synchronousComponent, UUID.randomUUID());
+        variantManager.cloneVariant(initialVariantId, variantId);
+        variantManager.setWorkingVariant(variantId);
+        try {
+            List<Terminal> terminalsOutside = network.getConnectableStream()
+                .filter(connectable -> !(connectable instanceof HvdcConverterStation))
+                .flatMap(SynchronousComponentSplitter::getTerminals)
+                .filter(terminal -> terminal.isConnected() && !Objects.equals(getSynchronousComponent(terminal), synchronousComponent))
+                .collect(Collectors.toList());
+            terminalsOutside.forEach(Terminal::disconnect);
+        } finally {
+            variantManager.setWorkingVariant(initialVariantId);
+        }
+        return variantId;
+    }
+
+    /**
+     * Restricts GLSKs to the injections of the main synchronous component of the working variant.
+     * Factors of each zone are renormalised over the component, so that the net position of a zone
+     * in the component is spread on its injections in the component only.
+     * @return GLSKs keyed by zone id, a zone without injection in the component having an empty GLSK
+     */
+    static Map<String, Map<String, Double>> getMainSynchronousComponentGlsks(Network network, Map<String, Map<String, Double>> glsks) {
+        Map<String, Map<String, Double>> componentGlsks = new TreeMap<>();
+        glsks.forEach((zone, glsk) -> {
+            Map<String, Double> componentGlsk = new TreeMap<>();
+            glsk.forEach((injectionId, factor) -> {
+                if (isInMainSynchronousComponent(network.getIdentifiable(injectionId))) {
+                    componentGlsk.put(injectionId, factor);
+                }
+            });
+            double factorSum = ReproducibleSum.sum(componentGlsk.values());
+            if (factorSum != 0) {
+                componentGlsk.replaceAll((injectionId, factor) -> factor / factorSum);
+            }
+            componentGlsks.put(zone, componentGlsk);
+        });
+        return componentGlsks;
+    }
+
+    private static boolean isInMainSynchronousComponent(Identifiable<?> identifiable) {
+        if (!(identifiable instanceof Injection)) {
+            return false;
+        }
+        Terminal terminal = ((Injection<?>) identifiable).getTerminal();
+        return terminal.isConnected() && NetworkUtil.isTerminalInMainSynchronousComponent(terminal);
+    }
+}
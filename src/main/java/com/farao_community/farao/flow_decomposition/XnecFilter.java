@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.Branch;
+import com.powsybl.iidm.network.Country;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Selects the branches whose flow is decomposed.
+ * Only connected branches of the main synchronous component are submitted to the filter.
+ * Sensitivity factors are only generated for the selected branches,
+ * so a narrow filter directly reduces the cost of a flow decomposition.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ * @see FlowDecompositionComputer#run(com.powsybl.iidm.network.Network, XnecFilter)
+ */
+@FunctionalInterface
+public interface XnecFilter {
+    boolean test(Branch<?> branch);
+
+    default XnecFilter and(XnecFilter other) {
+        return branch -> test(branch) && other.test(branch);
+    }
+
+    /**
+     * @return A filter selecting branches whose terminals are in two different countries. This is the default selection.
+     */
+    static XnecFilter interconnections() {
+        return branch -> !NetworkUtil.getTerminalCountry(branch.getTerminal1())
+            .equals(NetworkUtil.getTerminalCountry(branch.getTerminal2()));
+    }
+
+    /**
+     * @return A filter selecting branches whose terminals are in two different zones of the given mapping.
+     */
+    static XnecFilter zoneBorders(ZoneMapping zoneMapping) {
+        return branch -> !zoneMapping.getZone(branch.getTerminal1().getVoltageLevel())
+            .equals(zoneMapping.getZone(branch.getTerminal2().getVoltageLevel()));
+    }
+
+    /**
+     * @return A filter selecting every branch, interconnection or not.
+     */
+    static XnecFilter allBranches() {
+        return branch -> true;
+    }
+
+    /**
+     * @param branchIds Ids of the branches to decompose. Ids that do not match any candidate branch are ignored.
+     * @return A filter selecting only the given branches.
+     */
+    static XnecFilter byIds(Collection<String> branchIds) {
+        Set<String> branchIdSet = Set.copyOf(branchIds);
+        return branch -> branchIdSet.contains(branch.getId());
+    }
+
+    /**
+     * @param minNominalV Nominal voltage threshold in kV.
+     * @return A filter selecting branches whose both sides have a nominal voltage greater than or equal to the threshold.
+     */
+    static XnecFilter byMinNominalVoltage(double minNominalV) {
+        return branch -> branch.getTerminal1().getVoltageLevel().getNominalV() >= minNominalV
+            && branch.getTerminal2().getVoltageLevel().getNominalV() >= minNominalV;
+    }
+
+    /**
+     * @return A filter selecting branches connecting the two given countries, whatever their orientation.
+     */
+    static XnecFilter byCountryPair(Country country1, Country country2) {
+        return branch -> {
+            Country countrySide1 = NetworkUtil.getTerminalCountry(branch.getTerminal1());
+            Country countrySide2 = NetworkUtil.getTerminalCountry(branch.getTerminal2());
+            return countrySide1.equals(country1) && countrySide2.equals(country2)
+                || countrySide1.equals(country2) && countrySide2.equals(country1);
+        };
+    }
+}
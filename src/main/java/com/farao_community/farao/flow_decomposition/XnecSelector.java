@@ -7,7 +7,6 @@
 package com.farao_community.farao.flow_decomposition;
 
 import com.powsybl.iidm.network.Branch;
-import com.powsybl.iidm.network.Country;
 import com.powsybl.iidm.network.Network;
 
 import java.util.List;
@@ -18,6 +17,16 @@ import java.util.stream.Collectors;
  * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
  */
 class XnecSelector {
+    private final XnecFilter xnecFilter;
+
+    XnecSelector(XnecFilter xnecFilter) {
+        this.xnecFilter = xnecFilter;
+    }
+
+    XnecSelector() {
+        this(XnecFilter.interconnections());
+    }
+
     List<Branch> run(Network network) {
         return selectXnecs(network);
     }
@@ -26,7 +35,7 @@ class XnecSelector {
         return network.getBranchStream()
             .filter(this::isConnected)
             .filter(this::isInMainSynchronousComponent)
-            .filter(this::isAnInterconnection)
+            .filter(xnecFilter::test)
             .collect(Collectors.toList());
     }
 
@@ -38,11 +47,4 @@ class XnecSelector {
         return NetworkUtil.isTerminalInMainSynchronousComponent(branch.getTerminal1())
             && NetworkUtil.isTerminalInMainSynchronousComponent(branch.getTerminal2());
     }
-
-    private boolean isAnInterconnection(Branch<?> branch) {
-        Country country1 = NetworkUtil.getTerminalCountry(branch.getTerminal1());
-        Country country2 = NetworkUtil.getTerminalCountry(branch.getTerminal2());
-        return !country1.equals(country2);
-    }
-
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.Terminal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Cross-zone elements of a network, resolved once per topology: dangling lines, lines and HVDC lines
+ * whose sides are in different zones. Each element stores its terminals and the zone ordinals of its sides,
+ * so net positions are accumulated in a single pass reading the terminal flows only.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+final class ZoneBorders {
+    private static final int NO_ZONE = -1;
+    private final NetworkZones networkZones;
+    private final Terminal[] terminals1;
+    private final Terminal[] terminals2;
+    private final int[] zones1;
+    private final int[] zones2;
+    private final boolean[] hasCrossZoneElement;
+
+    ZoneBorders(Network network, NetworkZones networkZones) {
+        this(network, networkZones, terminal -> true);
+    }
+
+    /**
+     * @param isInScope Whether a terminal is part of the network on which net positions are computed
+     */
+    private ZoneBorders(Network network, NetworkZones networkZones, Predicate<Terminal> isInScope) {
+        this.networkZones = networkZones;
+        List<Terminal> borderTerminals1 = new ArrayList<>();
+        List<Terminal> borderTerminals2 = new ArrayList<>();
+        network.getDanglingLineStream()
+            .filter(danglingLine -> isInScope.test(danglingLine.getTerminal()))
+            .forEach(danglingLine -> {
+                borderTerminals1.add(danglingLine.getTerminal());
+                borderTerminals2.add(null);
+            });
+        network.getLineStream()
+            .filter(line -> isInScope.test(line.getTerminal1()) && isInScope.test(line.getTerminal2()))
+            .forEach(line -> addIfCrossZone(line.getTerminal1(), line.getTerminal2(), borderTerminals1, borderTerminals2));
+        network.getHvdcLineStream().forEach(hvdcLine -> {
+            Terminal terminal1 = hvdcLine.getConverterStation1().getTerminal();
+            Terminal terminal2 = hvdcLine.getConverterStation2().getTerminal();
+            if (isInScope.test(terminal1) && isInScope.test(terminal2)) {
+                addIfCrossZone(terminal1, terminal2, borderTerminals1, borderTerminals2);
+            } else if (isInScope.test(terminal1) || isInScope.test(terminal2)) {
+                borderTerminals1.add(isInScope.test(terminal1) ? terminal1 : terminal2);
+                borderTerminals2.add(null);
+            }
+        });
+
+        terminals1 = borderTerminals1.toArray(new Terminal[0]);
+        terminals2 = borderTerminals2.toArray(new Terminal[0]);
+        zones1 = new int[terminals1.length];
+        zones2 = new int[terminals1.length];
+        hasCrossZoneElement = new boolean[networkZones.getZoneCount()];
+        for (int border = 0; border < terminals1.length; border++) {
+            zones1[border] = networkZones.getZoneOrdinal(terminals1[border]);
+            zones2[border] = terminals2[border] == null ? NO_ZONE : networkZones.getZoneOrdinal(terminals2[border]);
+            hasCrossZoneElement[zones1[border]] = true;
+            if (zones2[border] != NO_ZONE) {
+                hasCrossZoneElement[zones2[border]] = true;
+            }
+        }
+    }
+
+    /**
+     * Borders of the main synchronous component of the working variant only.
+     * An HVDC line linking the component to another one is a border of the zone of its converter station in the component,
+     * even if both converter stations are in the same zone, as its flow leaves the component.
+     */
+    static ZoneBorders ofMainSynchronousComponent(Network network, NetworkZones networkZones) {
+        return new ZoneBorders(network, networkZones, ZoneBorders::isInMainSynchronousComponent);
+    }
+
+    private static boolean isInMainSynchronousComponent(Terminal terminal) {
+        return terminal.isConnected() && NetworkUtil.isTerminalInMainSynchronousComponent(terminal);
+    }
+
+    private void addIfCrossZone(Terminal terminal1, Terminal terminal2, List<Terminal> borderTerminals1, List<Terminal> borderTerminals2) {
+        if (networkZones.getZoneOrdinal(terminal1) != networkZones.getZoneOrdinal(terminal2)) {
+            borderTerminals1.add(terminal1);
+            borderTerminals2.add(terminal2);
+        }
+    }
+
+    /**
+     * @return Net position of each zone, indexed by zone ordinal, from the current flows of the network
+     */
+    double[] computeNetPositions() {
+        ReproducibleSum.Accumulators netPositions = new ReproducibleSum.Accumulators(hasCrossZoneElement.length);
+        for (int border = 0; border < terminals1.length; border++) {
+            if (zones2[border] == NO_ZONE) {
+                netPositions.add(zones1[border], getFlow(terminals1[border]));
+            } else {
+                double directFlow = (getFlow(terminals1[border]) - getFlow(terminals2[border])) / 2;
+                netPositions.add(zones1[border], directFlow);
+                netPositions.add(zones2[border], -directFlow);
+            }
+        }
+        return netPositions.toArray();
+    }
+
+    /**
+     * @return Net positions of the zones having at least one cross-zone element. The keys are zone ids.
+     */
+    Map<String, Double> computeNetPositionsByZone() {
+        double[] netPositions = computeNetPositions();
+        Map<String, Double> netPositionsByZone = new TreeMap<>();
+        for (int zone = 0; zone < netPositions.length; zone++) {
+            if (hasCrossZoneElement[zone]) {
+                netPositionsByZone.put(networkZones.getZone(zone), netPositions[zone]);
+            }
+        }
+        return netPositionsByZone;
+    }
+
+    private static double getFlow(Terminal terminal) {
+        return terminal.isConnected() && !Double.isNaN(terminal.getP()) ? terminal.getP() : 0;
+    }
+}
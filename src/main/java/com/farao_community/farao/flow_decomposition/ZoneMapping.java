@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.VoltageLevel;
+
+import java.util.Map;
+
+/**
+ * Defines the zones used by the flow decomposition: net positions, GLSKs and loop flows are computed by zone.
+ * The zone of a network element is the zone of its voltage level.
+ * It is resolved once per voltage level at the beginning of a flow decomposition,
+ * so decomposing by bidding zone costs the same as decomposing by country.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+@FunctionalInterface
+public interface ZoneMapping {
+    String getZone(VoltageLevel voltageLevel);
+
+    /**
+     * @return A mapping where zones are countries, identified by their two letters code. This is the default mapping.
+     */
+    static ZoneMapping byCountry() {
+        return voltageLevel -> NetworkUtil.getVoltageLevelCountry(voltageLevel).toString();
+    }
+
+    /**
+     * @param substationZones Zone ids by substation id
+     * @return A mapping looking up the substation of each voltage level, the country being used for substations not in the table.
+     */
+    static ZoneMapping bySubstation(Map<String, String> substationZones) {
+        ZoneMapping countryMapping = byCountry();
+        return voltageLevel -> voltageLevel.getSubstation()
+            .map(substation -> substationZones.get(substation.getId()))
+            .orElseGet(() -> countryMapping.getZone(voltageLevel));
+    }
+
+    /**
+     * @param voltageLevelZones Zone ids by voltage level id
+     * @return A mapping looking up each voltage level, the country being used for voltage levels not in the table.
+     */
+    static ZoneMapping byVoltageLevel(Map<String, String> voltageLevelZones) {
+        ZoneMapping countryMapping = byCountry();
+        return voltageLevel -> {
+            String zone = voltageLevelZones.get(voltageLevel.getId());
+            return zone != null ? zone : countryMapping.getZone(voltageLevel);
+        };
+    }
+}
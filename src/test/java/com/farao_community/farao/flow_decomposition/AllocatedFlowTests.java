@@ -11,7 +11,9 @@ import com.powsybl.iidm.network.*;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -126,4 +128,40 @@ class AllocatedFlowTests {
         assertTrue(flowDecompositionResults.getAllocatedAndLoopFlowNodalInjectionsMap().isEmpty());
     }
 
+    @Test
+    void checkThatOnlySelectedIntermediateResultsAreRetained() {
+        String networkFileName = "NETWORK_SINGLE_LOAD_TWO_GENERATORS_WITH_COUNTRIES.uct";
+        Network network = importNetwork(networkFileName);
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.GLSKS, IntermediateResult.AC_NET_POSITIONS));
+        FlowDecompositionComputer allocatedFlowComputer = new FlowDecompositionComputer(flowDecompositionParameters);
+        FlowDecompositionResults flowDecompositionResults = allocatedFlowComputer.run(network);
+        assertTrue(flowDecompositionResults.getGlsks().isPresent());
+        assertTrue(flowDecompositionResults.getAcNetPositions().isPresent());
+        assertTrue(flowDecompositionResults.getPtdfMatrix().isEmpty());
+        assertTrue(flowDecompositionResults.getPsdfMap().isEmpty());
+        assertTrue(flowDecompositionResults.getAllocatedAndLoopFlowNodalInjectionsMatrix().isEmpty());
+        assertTrue(flowDecompositionResults.getDcNodalInjectionsMap().isEmpty());
+    }
+
+    @Test
+    void checkThatPtdfMatrixViewGivesTheSameValuesAsPtdfMap() {
+        String networkFileName = "NETWORK_SINGLE_LOAD_TWO_GENERATORS_WITH_COUNTRIES.uct";
+        String genFr = "FGEN1 11_generator";
+        String xnecFrBee = "FGEN1 11 BLOAD 11 1";
+        Network network = importNetwork(networkFileName);
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF));
+        FlowDecompositionComputer allocatedFlowComputer = new FlowDecompositionComputer(flowDecompositionParameters);
+        FlowDecompositionResults flowDecompositionResults = allocatedFlowComputer.run(network);
+
+        SparseMatrixView ptdfMatrix = flowDecompositionResults.getPtdfMatrix().orElseThrow();
+        Map<String, Map<String, Double>> ptdfMap = flowDecompositionResults.getPtdfMap().orElseThrow();
+        Map<String, Map<String, Double>> viewedPtdfs = new TreeMap<>();
+        ptdfMatrix.forEachNonZero((xnecId, nodeId, ptdf) -> viewedPtdfs.computeIfAbsent(xnecId, id -> new TreeMap<>()).put(nodeId, ptdf));
+        assertEquals(ptdfMap, viewedPtdfs);
+        assertEquals(ptdfMap.values().stream().mapToInt(Map::size).sum(), ptdfMatrix.getNonZeroCount());
+        assertEquals(+0.5, ptdfMatrix.get(xnecFrBee, genFr), EPSILON);
+        ptdfMatrix.forEachNonZeroInColumn(genFr, (xnecId, nodeId, ptdf) -> assertEquals(ptdfMap.get(xnecId).get(genFr), ptdf));
+    }
 }
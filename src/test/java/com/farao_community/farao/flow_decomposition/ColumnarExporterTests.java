@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class ColumnarExporterTests {
+    private static final double EPSILON = 1e-12;
+    private static final String NETWORK_FILE_NAME = "NETWORK_PST_FLOW_WITH_COUNTRIES.uct";
+
+    @Test
+    void checkThatDecomposedFlowsAreExportedAsTypedColumns(@TempDir Path tempDir) {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer().run(network);
+        new ColumnarExporter().export(tempDir, flowDecompositionResults);
+
+        Path resultsDir = tempDir.resolve(flowDecompositionResults.getId());
+        assertFalse(Files.exists(resultsDir.resolve(ColumnarExporter.PTDF_TABLE)));
+        ColumnarTable.Reader reader = new ColumnarTable.Reader(resultsDir.resolve(ColumnarExporter.DECOMPOSED_FLOWS_TABLE));
+        Map<String, DecomposedFlow> decomposedFlowMap = flowDecompositionResults.getDecomposedFlowMap();
+        assertEquals(decomposedFlowMap.size(), reader.getRowCount());
+        assertEquals(ColumnarTable.DICTIONARY, reader.getColumnType(ColumnarExporter.XNEC_COLUMN_NAME));
+        assertEquals(ColumnarTable.DOUBLE, reader.getColumnType("Loop Flow from FR"));
+
+        List<String> xnecIds = reader.readDictionaryColumn(ColumnarExporter.XNEC_COLUMN_NAME);
+        double[] allocatedFlows = reader.readDoubleColumn(DecomposedFlow.ALLOCATED_COLUMN_NAME);
+        double[] pstFlows = reader.readDoubleColumn(DecomposedFlow.PST_COLUMN_NAME);
+        double[] frLoopFlows = reader.readDoubleColumn("Loop Flow from FR");
+        double[] acReferenceFlows = reader.readDoubleColumn(DecomposedFlow.AC_REFERENCE_FLOW_COLUMN_NAME);
+        for (int row = 0; row < xnecIds.size(); row++) {
+            DecomposedFlow decomposedFlow = decomposedFlowMap.get(xnecIds.get(row));
+            assertEquals(decomposedFlow.getAllocatedFlow(), allocatedFlows[row], EPSILON);
+            assertEquals(decomposedFlow.getPstFlow(), pstFlows[row], EPSILON);
+            assertEquals(decomposedFlow.getLoopFlow("FR"), frLoopFlows[row], EPSILON);
+            assertEquals(decomposedFlow.getAcReferenceFlow(), acReferenceFlows[row], EPSILON);
+        }
+    }
+
+    @Test
+    void checkThatColumnNamesAreNotUsedAsFileNames(@TempDir Path tempDir) {
+        Path tableDir = tempDir.resolve("table");
+        try (ColumnarTable.Writer writer = new ColumnarTable.Writer(tableDir, 2)) {
+            writer.writeDictionaryColumn("Zone/Area", List.of("a/b", "c"));
+            writer.writeDoubleColumn("Loop Flow from zone", new double[] {1., 2.});
+            writer.writeDoubleColumn("Loop Flow from ZONE", new double[] {3., 4.});
+        }
+
+        ColumnarTable.Reader reader = new ColumnarTable.Reader(tableDir);
+        assertEquals(List.of("Zone/Area", "Loop Flow from zone", "Loop Flow from ZONE"), reader.getColumns());
+        assertEquals(List.of("a/b", "c"), reader.readDictionaryColumn("Zone/Area"));
+        assertArrayEquals(new double[] {1., 2.}, reader.readDoubleColumn("Loop Flow from zone"));
+        assertArrayEquals(new double[] {3., 4.}, reader.readDoubleColumn("Loop Flow from ZONE"));
+        assertThrows(IllegalArgumentException.class, () -> reader.readDoubleColumn("Loop Flow from XX"));
+    }
+
+    @Test
+    void checkThatRetainedIntermediatesAreExportedAsSparseTriplets(@TempDir Path tempDir) {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF, IntermediateResult.DC_NODAL_INJECTIONS));
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer(flowDecompositionParameters).run(network);
+        new ColumnarExporter().export(tempDir, flowDecompositionResults, true);
+
+        Path resultsDir = tempDir.resolve(flowDecompositionResults.getId());
+        assertFalse(Files.exists(resultsDir.resolve(ColumnarExporter.PSDF_TABLE)));
+        SparseMatrixView ptdfMatrix = flowDecompositionResults.getPtdfMatrix().orElseThrow();
+        ColumnarTable.Reader ptdfReader = new ColumnarTable.Reader(resultsDir.resolve(ColumnarExporter.PTDF_TABLE));
+        assertEquals(ptdfMatrix.getNonZeroCount(), ptdfReader.getRowCount());
+        List<String> xnecIds = ptdfReader.readDictionaryColumn(ColumnarExporter.ROW_COLUMN_NAME);
+        List<String> nodeIds = ptdfReader.readDictionaryColumn(ColumnarExporter.COLUMN_COLUMN_NAME);
+        double[] values = ptdfReader.readDoubleColumn(ColumnarExporter.VALUE_COLUMN_NAME);
+        for (int row = 0; row < values.length; row++) {
+            assertEquals(ptdfMatrix.get(xnecIds.get(row), nodeIds.get(row)), values[row], EPSILON);
+        }
+
+        Map<String, Double> dcNodalInjections = flowDecompositionResults.getDcNodalInjectionsMap().orElseThrow();
+        ColumnarTable.Reader dcNodalInjectionsReader = new ColumnarTable.Reader(resultsDir.resolve(ColumnarExporter.DC_NODAL_INJECTIONS_TABLE));
+        List<String> nodes = dcNodalInjectionsReader.readDictionaryColumn(ColumnarExporter.NODE_COLUMN_NAME);
+        double[] injections = dcNodalInjectionsReader.readDoubleColumn(ColumnarExporter.VALUE_COLUMN_NAME);
+        assertEquals(dcNodalInjections.size(), nodes.size());
+        for (int row = 0; row < nodes.size(); row++) {
+            assertEquals(dcNodalInjections.get(nodes.get(row)), injections[row], EPSILON);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.powsybl.iidm.network.Country;
 import com.powsybl.iidm.network.Network;
 import org.junit.jupiter.api.Test;
 
+import java.util.EnumMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -48,4 +49,26 @@ class CountryNetPositionComputationTest {
         assertEquals(-272.0, netPositions.get(Country.DE), DOUBLE_TOLERANCE);
     }
 
+    @Test
+    void testBordersReusedOnAnotherNetworkState() {
+        Network network = Importers.loadNetwork("testCase.xiidm", getClass().getResourceAsStream("testCase.xiidm"));
+        ZoneBorders zoneBorders = new ZoneBorders(network, new NetworkZones(network, ZoneMapping.byCountry()));
+        Map<String, Double> initialNetPositions = zoneBorders.computeNetPositionsByZone();
+        assertEquals(NetPositionComputer.computeNetPositions(network), toCountryMap(initialNetPositions));
+
+        network.getLineStream().forEach(line -> {
+            line.getTerminal1().setP(line.getTerminal1().getP() * 2);
+            line.getTerminal2().setP(line.getTerminal2().getP() * 2);
+        });
+        Map<String, Double> netPositions = zoneBorders.computeNetPositionsByZone();
+        assertEquals(NetPositionComputer.computeNetPositions(network), toCountryMap(netPositions));
+        initialNetPositions.forEach((zone, netPosition) -> assertEquals(2 * netPosition, netPositions.get(zone), DOUBLE_TOLERANCE));
+    }
+
+    private static Map<Country, Double> toCountryMap(Map<String, Double> netPositionsByZone) {
+        Map<Country, Double> netPositions = new EnumMap<>(Country.class);
+        netPositionsByZone.forEach((zone, netPosition) -> netPositions.put(Country.valueOf(zone), netPosition));
+        return netPositions;
+    }
+
 }
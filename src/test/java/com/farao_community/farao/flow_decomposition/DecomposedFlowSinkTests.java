@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.import_.Importers;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class DecomposedFlowSinkTests {
+    private static final double EPSILON = 1e-6;
+    private static final String NETWORK_FILE_NAME = "NETWORK_PST_FLOW_WITH_COUNTRIES.uct";
+
+    private static FlowDecompositionComputer getRescalingComputer() {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setRescaleEnabled(FlowDecompositionParameters.ENABLE_RESCALED_RESULTS);
+        return new FlowDecompositionComputer(flowDecompositionParameters);
+    }
+
+    @Test
+    void checkThatStreamedFlowsAreTheSameAsCollectedFlows() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        Map<String, DecomposedFlow> collectedFlows = getRescalingComputer().run(network).getDecomposedFlowMap();
+
+        Map<String, DecomposedFlow> streamedFlows = new TreeMap<>();
+        getRescalingComputer().run(network, XnecFilter.interconnections(), streamedFlows::put);
+
+        assertEquals(collectedFlows.keySet(), streamedFlows.keySet());
+        collectedFlows.forEach((xnecId, decomposedFlow) -> {
+            DecomposedFlow streamedFlow = streamedFlows.get(xnecId);
+            assertEquals(decomposedFlow.getAllocatedFlow(), streamedFlow.getAllocatedFlow(), EPSILON);
+            assertEquals(decomposedFlow.getPstFlow(), streamedFlow.getPstFlow(), EPSILON);
+            assertEquals(decomposedFlow.getLoopFlows(), streamedFlow.getLoopFlows());
+            assertEquals(Math.abs(decomposedFlow.getAcReferenceFlow()), streamedFlow.getTotalFlow(), EPSILON);
+        });
+    }
+
+    @Test
+    void checkThatStreamedFlowsOfEverySynchronousComponentAreTheSameAsCollectedFlows() {
+        String networkFileName = "NETWORK_TWO_SYNCHRONOUS_ISLANDS_WITH_HVDC.xiidm";
+        Network network = Importers.loadNetwork(networkFileName, DecomposedFlowSinkTests.class.getResourceAsStream(networkFileName));
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setDecomposeAllSynchronousComponents(FlowDecompositionParameters.ALL_SYNCHRONOUS_COMPONENTS);
+        Map<String, DecomposedFlow> collectedFlows = new FlowDecompositionComputer(flowDecompositionParameters)
+            .run(network, XnecFilter.allBranches()).getDecomposedFlowMap();
+
+        Map<String, DecomposedFlow> streamedFlows = new TreeMap<>();
+        new FlowDecompositionComputer(flowDecompositionParameters).run(network, XnecFilter.allBranches(), streamedFlows::put);
+
+        assertEquals(collectedFlows.keySet(), streamedFlows.keySet());
+        collectedFlows.forEach((xnecId, decomposedFlow) -> {
+            DecomposedFlow streamedFlow = streamedFlows.get(xnecId);
+            assertEquals(decomposedFlow.getAllocatedFlow(), streamedFlow.getAllocatedFlow());
+            assertEquals(decomposedFlow.getPstFlow(), streamedFlow.getPstFlow());
+            assertEquals(decomposedFlow.getHvdcFlow(), streamedFlow.getHvdcFlow());
+            assertEquals(decomposedFlow.getLoopFlows(), streamedFlow.getLoopFlows());
+            assertEquals(decomposedFlow.getAcReferenceFlow(), streamedFlow.getAcReferenceFlow());
+            assertEquals(decomposedFlow.getDcReferenceFlow(), streamedFlow.getDcReferenceFlow());
+        });
+    }
+
+    @Test
+    void checkThatCsvSinkWritesOneRowPerXnec(@TempDir Path tempDir) throws IOException {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        Path csvPath = tempDir.resolve("streamed.csv");
+        getRescalingComputer().run(network, XnecFilter.interconnections(), new CsvExporter().createSink(csvPath));
+        Map<String, DecomposedFlow> collectedFlows = getRescalingComputer().run(network).getDecomposedFlowMap();
+
+        List<String> lines = Files.readAllLines(csvPath);
+        assertEquals(collectedFlows.size() + 1, lines.size());
+        assertTrue(lines.get(0).contains(DecomposedFlow.ALLOCATED_COLUMN_NAME));
+        collectedFlows.keySet().forEach(xnecId -> assertTrue(lines.stream().anyMatch(line -> line.startsWith(xnecId))));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class DecomposedFlowTimeSeriesStoreTests {
+    private static final double EPSILON = 1e-12;
+    private static final Instant START = Instant.parse("2022-01-01T00:00:00Z");
+    private static final Duration STEP = Duration.ofMinutes(15);
+    private static final String XNEC_1 = "FR1_BE1";
+    private static final String XNEC_2 = "DE1_NL1";
+    private static final String LOOP_FLOW_FROM_FR = "Loop Flow from FR";
+
+    private static DecomposedFlow createDecomposedFlow(int run, double offset) {
+        return new DecomposedFlow(Map.of(LOOP_FLOW_FROM_FR, run + offset + 0.5), run + offset, -run - offset, 0.25, 100 + run, 99 + run);
+    }
+
+    /**
+     * XNEC_2 is only decomposed in odd runs.
+     */
+    private static void appendRuns(DecomposedFlowTimeSeriesStore store, int firstRun, int lastRun) {
+        for (int run = firstRun; run <= lastRun; run++) {
+            Map<String, DecomposedFlow> decomposedFlowMap = run % 2 == 1
+                ? Map.of(XNEC_1, createDecomposedFlow(run, 0.), XNEC_2, createDecomposedFlow(run, 1000.))
+                : Map.of(XNEC_1, createDecomposedFlow(run, 0.));
+            store.append(START.plus(STEP.multipliedBy(run)), decomposedFlowMap);
+        }
+    }
+
+    @Test
+    void checkThatHistoryOfXnecIsReadAcrossChunks(@TempDir Path tempDir) {
+        DecomposedFlowTimeSeriesStore store = new DecomposedFlowTimeSeriesStore(tempDir, 2);
+        appendRuns(store, 0, 4);
+        assertTrue(Files.exists(tempDir.resolve("chunk-000002.bin")));
+
+        NavigableMap<Instant, DecomposedFlow> history = store.getHistory(XNEC_1);
+        assertEquals(5, history.size());
+        for (int run = 0; run < 5; run++) {
+            DecomposedFlow decomposedFlow = history.get(START.plus(STEP.multipliedBy(run)));
+            assertEquals(run, decomposedFlow.getAllocatedFlow(), EPSILON);
+            assertEquals(-run, decomposedFlow.getPstFlow(), EPSILON);
+            assertEquals(0.25, decomposedFlow.getHvdcFlow(), EPSILON);
+            assertEquals(run + 0.5, decomposedFlow.getLoopFlow("FR"), EPSILON);
+            assertEquals(100 + run, decomposedFlow.getAcReferenceFlow(), EPSILON);
+            assertEquals(99 + run, decomposedFlow.getDcReferenceFlow(), EPSILON);
+        }
+
+        NavigableMap<Instant, DecomposedFlow> sparseHistory = store.getHistory(XNEC_2);
+        assertEquals(2, sparseHistory.size());
+        assertEquals(1001., sparseHistory.firstEntry().getValue().getAllocatedFlow(), EPSILON);
+        assertTrue(store.getHistory("UNKNOWN").isEmpty());
+    }
+
+    @Test
+    void checkThatComponentHistoryIsFilteredByTimeRange(@TempDir Path tempDir) {
+        DecomposedFlowTimeSeriesStore store = new DecomposedFlowTimeSeriesStore(tempDir, 2);
+        appendRuns(store, 0, 9);
+
+        NavigableMap<Instant, Double> history = store.getHistory(XNEC_1, LOOP_FLOW_FROM_FR,
+            START.plus(STEP.multipliedBy(3)), START.plus(STEP.multipliedBy(6)));
+        assertEquals(4, history.size());
+        assertEquals(3.5, history.firstEntry().getValue(), EPSILON);
+        assertEquals(6.5, history.lastEntry().getValue(), EPSILON);
+        assertTrue(store.getHistory(XNEC_1, "Loop Flow from XX", START, START.plus(STEP.multipliedBy(9))).isEmpty());
+    }
+
+    @Test
+    void checkThatReopenedStoreAppendsWithoutRewritingEarlierRuns(@TempDir Path tempDir) throws Exception {
+        appendRuns(new DecomposedFlowTimeSeriesStore(tempDir, 4), 0, 2);
+        byte[] firstChunk = Files.readAllBytes(tempDir.resolve("chunk-000000.bin"));
+
+        DecomposedFlowTimeSeriesStore reopenedStore = new DecomposedFlowTimeSeriesStore(tempDir, 4);
+        assertEquals(3, reopenedStore.getRunCount());
+        assertEquals(START.plus(STEP.multipliedBy(2)), reopenedStore.getLastTimestamp().orElseThrow());
+        appendRuns(reopenedStore, 3, 5);
+
+        byte[] grownFirstChunk = Files.readAllBytes(tempDir.resolve("chunk-000000.bin"));
+        for (int i = 0; i < firstChunk.length; i++) {
+            assertEquals(firstChunk[i], grownFirstChunk[i]);
+        }
+        assertEquals(6, reopenedStore.getHistory(XNEC_1).size());
+        assertEquals(3, reopenedStore.getHistory(XNEC_2).size());
+    }
+
+    @Test
+    void checkThatRunsMustBeAppendedInTimeOrder(@TempDir Path tempDir) {
+        DecomposedFlowTimeSeriesStore store = new DecomposedFlowTimeSeriesStore(tempDir);
+        appendRuns(store, 0, 1);
+        Map<String, DecomposedFlow> decomposedFlowMap = Map.of(XNEC_1, createDecomposedFlow(0, 0.));
+        assertThrows(IllegalArgumentException.class, () -> store.append(START, decomposedFlowMap));
+    }
+}
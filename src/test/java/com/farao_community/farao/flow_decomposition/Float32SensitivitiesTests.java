@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.ejml.data.FMatrixSparseCSC;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class Float32SensitivitiesTests {
+    private static final double EPSILON = 1e-3;
+
+    private static FlowDecompositionResults run(String networkFileName, boolean storeSensitivitiesAsFloat32, int parallelism) {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setStoreSensitivitiesAsFloat32(storeSensitivitiesAsFloat32);
+        flowDecompositionParameters.setParallelism(parallelism);
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF, IntermediateResult.PSDF));
+        return new FlowDecompositionComputer(flowDecompositionParameters).run(importNetwork(networkFileName), XnecFilter.allBranches());
+    }
+
+    private static void assertDecomposedFlowsEquals(Map<String, DecomposedFlow> expected, Map<String, DecomposedFlow> actual, double delta) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((xnecId, decomposedFlow) -> {
+            DecomposedFlow actualFlow = actual.get(xnecId);
+            assertEquals(decomposedFlow.getAllocatedFlow(), actualFlow.getAllocatedFlow(), delta);
+            assertEquals(decomposedFlow.getPstFlow(), actualFlow.getPstFlow(), delta);
+            assertEquals(decomposedFlow.getDcReferenceFlow(), actualFlow.getDcReferenceFlow(), delta);
+            assertEquals(decomposedFlow.getLoopFlows().keySet(), actualFlow.getLoopFlows().keySet());
+            decomposedFlow.getLoopFlows().forEach((loopFlowId, loopFlow) ->
+                assertEquals(loopFlow, actualFlow.getLoopFlows().get(loopFlowId), delta));
+        });
+    }
+
+    @Test
+    void checkThatFloat32SensitivitiesGiveTheSameDecompositionAsFloat64Ones() {
+        for (String networkFileName : List.of("NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct", "NETWORK_PST_FLOW_WITH_COUNTRIES_NON_NEUTRAL.uct")) {
+            FlowDecompositionResults float64Results = run(networkFileName, FlowDecompositionParameters.FLOAT64_SENSITIVITIES, 1);
+            FlowDecompositionResults float32Results = run(networkFileName, FlowDecompositionParameters.FLOAT32_SENSITIVITIES, 1);
+            assertDecomposedFlowsEquals(float64Results.getDecomposedFlowMap(), float32Results.getDecomposedFlowMap(), EPSILON);
+        }
+    }
+
+    @Test
+    void checkThatFloat32SensitivitiesAreRoundedFloat64Ones() {
+        String networkFileName = "NETWORK_PST_FLOW_WITH_COUNTRIES_NON_NEUTRAL.uct";
+        FlowDecompositionResults float64Results = run(networkFileName, FlowDecompositionParameters.FLOAT64_SENSITIVITIES, 1);
+        FlowDecompositionResults float32Results = run(networkFileName, FlowDecompositionParameters.FLOAT32_SENSITIVITIES, 1);
+        for (boolean isPtdf : new boolean[] {true, false}) {
+            SparseMatrixView float64Matrix = (isPtdf ? float64Results.getPtdfMatrix() : float64Results.getPsdfMatrix()).orElseThrow();
+            SparseMatrixView float32Matrix = (isPtdf ? float32Results.getPtdfMatrix() : float32Results.getPsdfMatrix()).orElseThrow();
+            assertTrue(float32Matrix instanceof SparseMatrixWithIndexesFloatCSC);
+            assertEquals(float64Matrix.getNonZeroCount(), float32Matrix.getNonZeroCount());
+            float64Matrix.forEachNonZero((rowId, columnId, value) ->
+                assertEquals((float) value, float32Matrix.get(rowId, columnId)));
+        }
+    }
+
+    @Test
+    void checkThatFloat32MatrixFromTripletsIsTheSameAsFromDoubleMatrix() {
+        IdIndex rowIndex = IdIndex.of(List.of("xnec1", "xnec2", "xnec3"));
+        IdIndex nodeIndex = IdIndex.of(List.of("node1", "node2"));
+        SparseMatrixWithIndexesTriplet sensitivities = new SparseMatrixWithIndexesTriplet(rowIndex, nodeIndex, 6);
+        sensitivities.addItem("xnec3", "node2", 0.1);
+        sensitivities.addItem("xnec1", "node1", 1. / 3);
+        sensitivities.addItem("xnec2", "node2", -0.7);
+        sensitivities.addItem("xnec1", "node2", 2.);
+
+        FMatrixSparseCSC fromTriplets = SparseMatrixWithIndexesFloatCSC.of(sensitivities).getCscMatrix();
+        FMatrixSparseCSC fromDoubleMatrix = SparseMatrixWithIndexesFloatCSC.of(sensitivities.toCSCMatrix()).getCscMatrix();
+        assertEquals(fromDoubleMatrix.nz_length, fromTriplets.nz_length);
+        assertArrayEquals(fromDoubleMatrix.col_idx, fromTriplets.col_idx);
+        assertArrayEquals(Arrays.copyOf(fromDoubleMatrix.nz_rows, 4), Arrays.copyOf(fromTriplets.nz_rows, 4));
+        assertArrayEquals(Arrays.copyOf(fromDoubleMatrix.nz_values, 4), Arrays.copyOf(fromTriplets.nz_values, 4));
+        assertEquals((float) (1. / 3), fromTriplets.get(0, 0));
+        assertEquals(0.1f, fromTriplets.get(2, 1));
+    }
+
+    @Test
+    void checkThatFloat32MultiplicationIsAccumulatedInDoubleAndIndependentOfParallelism() {
+        IdIndex rowIndex = IdIndex.of(List.of("xnec1", "xnec2"));
+        IdIndex nodeIndex = IdIndex.of(List.of("node1", "node2", "node3"));
+        IdIndex columnIndex = IdIndex.of(List.of("column1", "column2", "column3"));
+        SparseMatrixWithIndexesTriplet sensitivities = new SparseMatrixWithIndexesTriplet(rowIndex, nodeIndex, 6);
+        sensitivities.addItem("xnec1", "node1", 0.5);
+        sensitivities.addItem("xnec1", "node3", -0.25);
+        sensitivities.addItem("xnec2", "node2", 1.);
+        SparseMatrixWithIndexesTriplet injections = new SparseMatrixWithIndexesTriplet(nodeIndex, columnIndex, 9);
+        injections.addItem("node1", "column1", 1e9);
+        injections.addItem("node3", "column1", 1e9 + 4);
+        injections.addItem("node2", "column2", 3.);
+        injections.addItem("node3", "column3", 8.);
+        SparseMatrixWithIndexesCSC injectionsMatrix = injections.toCSCMatrix();
+        SparseMatrixWithIndexesFloatCSC floatSensitivities = SparseMatrixWithIndexesFloatCSC.of(sensitivities.toCSCMatrix());
+
+        SparseMatrixWithIndexesCSC product = floatSensitivities.mult(injectionsMatrix, 1);
+        assertEquals(0.25e9 - 1, product.get("xnec1", "column1"));
+        assertEquals(0., product.get("xnec2", "column1"));
+        assertEquals(3., product.get("xnec2", "column2"));
+        assertEquals(-2., product.get("xnec1", "column3"));
+        assertEquals(3, product.getNonZeroCount());
+        assertEquals(product.toMap(), floatSensitivities.mult(injectionsMatrix, 3).toMap());
+        assertEquals(SparseMatrixWithIndexesCSC.mult(sensitivities.toCSCMatrix(), injectionsMatrix).toMap(), product.toMap());
+    }
+}
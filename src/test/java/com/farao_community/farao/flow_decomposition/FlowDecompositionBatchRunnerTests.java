@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class FlowDecompositionBatchRunnerTests {
+    private static final List<String> NETWORK_FILE_NAMES = List.of(
+        "NETWORK_PST_FLOW_WITH_COUNTRIES.uct",
+        "NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct",
+        "NETWORK_SINGLE_LOAD_TWO_GENERATORS_WITH_COUNTRIES.uct",
+        "NETWORK_HVDC_PARALLEL_WITH_COUNTRIES.xiidm");
+
+    private static Path copyNetworks(Path dir) throws IOException {
+        Path networkDir = Files.createDirectory(dir.resolve("networks"));
+        for (String networkFileName : NETWORK_FILE_NAMES) {
+            try (InputStream inputStream = FlowDecompositionBatchRunnerTests.class.getResourceAsStream(networkFileName)) {
+                Files.copy(inputStream, networkDir.resolve(networkFileName));
+            }
+        }
+        return networkDir;
+    }
+
+    @Test
+    void checkThatEveryNetworkOfDirectoryIsExported(@TempDir Path tempDir) throws IOException {
+        Path networkDir = copyNetworks(tempDir);
+        Path exportDir = Files.createDirectory(tempDir.resolve("export"));
+        FlowDecompositionBatchRunner batchRunner = new FlowDecompositionBatchRunner(new FlowDecompositionComputer(), exportDir, 2, 2, 2);
+
+        FlowDecompositionBatchRunner.Summary summary = batchRunner.run(FlowDecompositionBatchRunner.listNetworkFiles(networkDir.toString()));
+
+        assertEquals(NETWORK_FILE_NAMES.size(), summary.getExportedNetworks());
+        assertEquals(0, summary.getFailedNetworks());
+        assertTrue(summary.getDecomposedXnecs() > 0);
+        assertTrue(summary.getThroughput() > 0);
+        assertTrue(Files.exists(exportDir.resolve("NETWORK_PST_FLOW_WITH_COUNTRIES.csv")));
+        assertTrue(Files.exists(exportDir.resolve("NETWORK_HVDC_PARALLEL_WITH_COUNTRIES.csv")));
+        assertTrue(summary.toString().contains("4 network(s) decomposed"));
+    }
+
+    @Test
+    void checkThatGlobSelectsNetworkFiles(@TempDir Path tempDir) throws IOException {
+        Path networkDir = copyNetworks(tempDir);
+        List<Path> networkFiles = FlowDecompositionBatchRunner.listNetworkFiles(networkDir.resolve("*.uct").toString());
+        assertEquals(3, networkFiles.size());
+        assertTrue(networkFiles.stream().allMatch(path -> path.toString().endsWith(".uct")));
+    }
+
+    @Test
+    void checkThatFailingNetworkDoesNotStopTheBatch(@TempDir Path tempDir) throws IOException {
+        Path networkDir = copyNetworks(tempDir);
+        Files.writeString(networkDir.resolve("NOT_A_NETWORK.txt"), "not a network");
+        Path exportDir = Files.createDirectory(tempDir.resolve("export"));
+        FlowDecompositionBatchRunner batchRunner = new FlowDecompositionBatchRunner(new FlowDecompositionComputer(), exportDir, 1);
+
+        FlowDecompositionBatchRunner.Summary summary = batchRunner.run(FlowDecompositionBatchRunner.listNetworkFiles(networkDir.toString()));
+
+        assertEquals(NETWORK_FILE_NAMES.size(), summary.getExportedNetworks());
+        assertEquals(1, summary.getFailedNetworks());
+    }
+
+    @Test
+    void checkThatVirtualIoThreadsModeExportsEveryNetworkAndReportsStageMetrics(@TempDir Path tempDir) throws IOException {
+        Path networkDir = copyNetworks(tempDir);
+        Path exportDir = Files.createDirectory(tempDir.resolve("export"));
+        FlowDecompositionBatchRunner batchRunner = new FlowDecompositionBatchRunner(new FlowDecompositionComputer(), exportDir, 1, 1, 3);
+        batchRunner.setExecutionMode(BatchExecutionMode.VIRTUAL_IO_THREADS);
+
+        FlowDecompositionBatchRunner.Summary summary = batchRunner.run(FlowDecompositionBatchRunner.listNetworkFiles(networkDir.toString()));
+
+        assertEquals(NETWORK_FILE_NAMES.size(), summary.getExportedNetworks());
+        assertEquals(0, summary.getFailedNetworks());
+        assertTrue(summary.getMaxDecompositionQueueDepth() >= 1);
+        assertTrue(summary.getMaxDecompositionQueueDepth() <= 3);
+        assertTrue(summary.getMaxExportQueueDepth() >= 1);
+        assertTrue(summary.getImportWaitSeconds() >= 0);
+        assertTrue(summary.getDecompositionWaitSeconds() >= 0);
+        assertTrue(summary.getExportWaitSeconds() >= 0);
+        assertTrue(summary.toString().contains("max queue depths"));
+    }
+}
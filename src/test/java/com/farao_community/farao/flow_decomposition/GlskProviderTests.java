@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+import com.powsybl.glsk.api.io.GlskDocumentImporters;
+import com.powsybl.iidm.network.Country;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class GlskProviderTests {
+    private static final double EPSILON = 1e-3;
+    private static final String NETWORK_FILE_NAME = "NETWORK_SINGLE_LOAD_TWO_GENERATORS_WITH_COUNTRIES.uct";
+    private static final String GLSK_FILE_NAME = "GLSK_SINGLE_LOAD_TWO_GENERATORS_WITH_COUNTRIES.xml";
+    private static final String GEN_FR = "FGEN1 11_generator";
+    private static final String GEN_BE = "BGEN2 11_generator";
+    private static final String XNEC_FR_BE = "FGEN1 11 BLOAD 11 1";
+    private static final Instant MORNING = Instant.parse("2007-05-01T08:00:00Z");
+    private static final Instant NOON = Instant.parse("2007-05-01T11:00:00Z");
+    private static final Instant EVENING = Instant.parse("2007-05-01T18:00:00Z");
+
+    private static GlskDocumentProvider importGlskDocumentProvider() {
+        return new GlskDocumentProvider(GlskDocumentImporters.importGlsk(GlskProviderTests.class.getResourceAsStream(GLSK_FILE_NAME)));
+    }
+
+    @Test
+    void checkThatCustomGlskProviderIsUsedByFlowDecomposition() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setSaveIntermediates(FlowDecompositionParameters.SAVE_INTERMEDIATES);
+        GlskProvider glskProvider = (n, zoneMapping) -> Map.of(
+            "FR", Map.of(GEN_FR, 1.0),
+            "BE", Map.of(GEN_BE, 1.0));
+        FlowDecompositionComputer flowDecompositionComputer = new FlowDecompositionComputer(flowDecompositionParameters, glskProvider);
+        FlowDecompositionResults flowDecompositionResults = flowDecompositionComputer.run(network);
+
+        assertEquals(Map.of(GEN_FR, 1.0), flowDecompositionResults.getGlsks().orElseThrow().get(Country.FR));
+        assertEquals(100.0935, flowDecompositionResults.getDecomposedFlowMap().get(XNEC_FR_BE).getAllocatedFlow(), EPSILON);
+    }
+
+    @Test
+    void checkThatGlskDocumentIsServedByTimestampWithFallbackOnMissingCountries() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        GlskDocumentProvider glskDocumentProvider = importGlskDocumentProvider();
+
+        for (Instant instant : new Instant[]{MORNING, EVENING}) {
+            Map<String, Map<String, Double>> glsks = glskDocumentProvider.getGlsks(network, ZoneMapping.byCountry(), instant);
+            assertEquals(1.0, glsks.get("FR").get(GEN_FR), EPSILON);
+            assertEquals(1.0, glsks.get("BE").get(GEN_BE), EPSILON);
+        }
+        ZoneMapping byCountry = ZoneMapping.byCountry();
+        assertThrows(PowsyblException.class, () -> glskDocumentProvider.getGlsks(network, byCountry, NOON));
+    }
+
+    @Test
+    void checkThatGlskDocumentProviderGivesSameDecompositionAsAutoGlsks() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        GlskDocumentProvider glskDocumentProvider = importGlskDocumentProvider();
+        FlowDecompositionComputer flowDecompositionComputer = new FlowDecompositionComputer(new FlowDecompositionParameters(),
+            (n, zoneMapping) -> glskDocumentProvider.getGlsks(n, zoneMapping, MORNING));
+        FlowDecompositionResults flowDecompositionResults = flowDecompositionComputer.run(network);
+
+        assertEquals(100.0935, flowDecompositionResults.getDecomposedFlowMap().get(XNEC_FR_BE).getAllocatedFlow(), EPSILON);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.import_.Importers;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class HvdcFlowTests {
+    private static final double EPSILON = 1e-3;
+    private static final String NETWORK_FILE_NAME = "NETWORK_HVDC_PARALLEL_WITH_COUNTRIES.xiidm";
+
+    private static Network importNetwork() {
+        return Importers.loadNetwork(NETWORK_FILE_NAME, HvdcFlowTests.class.getResourceAsStream(NETWORK_FILE_NAME));
+    }
+
+    @Test
+    void checkThatHvdcFlowsAreExtractedForEachXnec() {
+        Network network = importNetwork();
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setSaveIntermediates(FlowDecompositionParameters.SAVE_INTERMEDIATES);
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer(flowDecompositionParameters).run(network);
+
+        String hvdc = "HVDC_FR1_BE2";
+        String x1 = "FR1_BE2";
+        String x2 = "FR2_BE1";
+
+        var optionalHvdcSensitivities = flowDecompositionResults.getHvdcSensitivityMatrix();
+        assertTrue(optionalHvdcSensitivities.isPresent());
+        assertEquals(-0.75, optionalHvdcSensitivities.get().get(x1, hvdc), EPSILON);
+        assertEquals(-0.25, optionalHvdcSensitivities.get().get(x2, hvdc), EPSILON);
+
+        Map<String, DecomposedFlow> decomposedFlowMap = flowDecompositionResults.getDecomposedFlowMap();
+        assertEquals(-75., decomposedFlowMap.get(x1).getHvdcFlow(), EPSILON);
+        assertEquals(-25., decomposedFlowMap.get(x2).getHvdcFlow(), EPSILON);
+        decomposedFlowMap.values().forEach(decomposedFlow ->
+            assertEquals(decomposedFlow.getDcReferenceFlow(), decomposedFlow.getTotalFlow(), 0.1));
+    }
+
+    @Test
+    void checkThatConverterStationsAreNotNodes() {
+        Network network = importNetwork();
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.DC_NODAL_INJECTIONS, IntermediateResult.PTDF));
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer(flowDecompositionParameters).run(network);
+
+        Map<String, Double> dcNodalInjections = flowDecompositionResults.getDcNodalInjectionsMap().orElseThrow();
+        assertEquals(Set.of("FR1_GEN", "FR2_LOAD", "BE1_LOAD", "BE2_GEN"), dcNodalInjections.keySet());
+        assertFalse(flowDecompositionResults.getPtdfMatrix().orElseThrow().getColumnIds().contains("FR1_CONV"));
+        assertTrue(flowDecompositionResults.getHvdcSensitivityMatrix().isEmpty());
+    }
+}
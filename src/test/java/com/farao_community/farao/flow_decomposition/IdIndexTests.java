@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class IdIndexTests {
+
+    @Test
+    void checkThatEachIdIsMappedToItsPositionAndBack() {
+        List<String> ids = IntStream.range(0, 1000)
+            .mapToObj(i -> String.format("NODE %d", i))
+            .collect(Collectors.toList());
+        IdIndex index = IdIndex.of(ids);
+
+        assertEquals(1000, index.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, index.getIndex(ids.get(i)));
+            assertEquals(ids.get(i), index.getId(i));
+        }
+        assertEquals(ids, index.getIds());
+    }
+
+    @Test
+    void checkThatUnknownIdsAreNotFound() {
+        IdIndex index = IdIndex.of(List.of("FGEN1 11_generator", "BLOAD 11_load"));
+
+        assertEquals(IdIndex.NOT_FOUND, index.indexOf("BGEN2 11_generator"));
+        assertFalse(index.contains("BGEN2 11_generator"));
+        assertTrue(index.contains("BLOAD 11_load"));
+        assertThrows(PowsyblException.class, () -> index.getIndex("BGEN2 11_generator"));
+    }
+
+    @Test
+    void checkThatDuplicateIdsAreRejected() {
+        List<String> ids = List.of("FGEN1 11_generator", "FGEN1 11_generator");
+        assertThrows(PowsyblException.class, () -> IdIndex.of(ids));
+    }
+}
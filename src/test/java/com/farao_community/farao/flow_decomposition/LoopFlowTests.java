@@ -101,4 +101,24 @@ class LoopFlowTests {
         assertEquals(100, decomposedFlowMap.get(x5).getLoopFlow(Country.ES), EPSILON);
         assertEquals(0, decomposedFlowMap.get(x5).getLoopFlow(Country.FR), EPSILON);
     }
+
+    @Test
+    void checkThatParallelLoopFlowComputationGivesSameResultsAsSequentialOne() {
+        String networkFileName = "NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct";
+
+        FlowDecompositionParameters sequentialParameters = new FlowDecompositionParameters();
+        Map<String, DecomposedFlow> sequentialDecomposedFlowMap = new FlowDecompositionComputer(sequentialParameters)
+            .run(importNetwork(networkFileName)).getDecomposedFlowMap();
+
+        FlowDecompositionParameters parallelParameters = new FlowDecompositionParameters();
+        parallelParameters.setParallelism(3);
+        Map<String, DecomposedFlow> parallelDecomposedFlowMap = new FlowDecompositionComputer(parallelParameters)
+            .run(importNetwork(networkFileName)).getDecomposedFlowMap();
+
+        assertEquals(sequentialDecomposedFlowMap.keySet(), parallelDecomposedFlowMap.keySet());
+        sequentialDecomposedFlowMap.forEach((xnecId, decomposedFlow) -> {
+            assertEquals(decomposedFlow.getAllocatedFlow(), parallelDecomposedFlowMap.get(xnecId).getAllocatedFlow());
+            assertEquals(decomposedFlow.getLoopFlows(), parallelDecomposedFlowMap.get(xnecId).getLoopFlows());
+        });
+    }
 }
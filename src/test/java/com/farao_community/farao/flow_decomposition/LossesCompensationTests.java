@@ -14,6 +14,7 @@ import com.powsybl.loadflow.LoadFlowParameters;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Paths;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -137,4 +138,53 @@ class LossesCompensationTests {
         assertEquals(0.0936, flowDecompositionResults.getDecomposedFlowMap().get("FLOAD 11 BLOAD 11 1").getLoopFlow(Country.FR), EPSILON);
         assertEquals(0.0936, flowDecompositionResults.getDecomposedFlowMap().get("FLOAD 11 BLOAD 11 1").getLoopFlow(Country.BE), EPSILON);
     }
+
+    private static FlowDecompositionResults runWithLossesCompensationMode(Network network, LossesCompensationMode lossesCompensationMode) {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setEnableLossesCompensation(FlowDecompositionParameters.ENABLE_LOSSES_COMPENSATION);
+        flowDecompositionParameters.setLossesCompensationMode(lossesCompensationMode);
+        return new FlowDecompositionComputer(flowDecompositionParameters).run(network);
+    }
+
+    @Test
+    void checkThatInjectionDeltaLossesCompensationDoesNotModifyTheNetworkAndMatchesLoadCreation() {
+        String networkFileName = "NETWORK_SINGLE_LOAD_TWO_GENERATORS_WITH_COUNTRIES.uct";
+        Network network = importNetwork(networkFileName);
+        int loadCount = network.getLoadCount();
+
+        FlowDecompositionResults injectionDeltaResults = runWithLossesCompensationMode(network, LossesCompensationMode.INJECTION_DELTA);
+        assertEquals(loadCount, network.getLoadCount());
+        assertTrue(network.getLoadStream().noneMatch(load -> load.getId().startsWith("LOSSES")));
+
+        FlowDecompositionResults loadCreationResults = runWithLossesCompensationMode(importNetwork(networkFileName), LossesCompensationMode.LOAD_CREATION);
+        loadCreationResults.getDecomposedFlowMap().forEach((xnecId, expectedFlow) -> {
+            DecomposedFlow decomposedFlow = injectionDeltaResults.getDecomposedFlowMap().get(xnecId);
+            assertEquals(expectedFlow.getAllocatedFlow(), decomposedFlow.getAllocatedFlow(), EPSILON);
+            assertEquals(expectedFlow.getLoopFlow(Country.FR), decomposedFlow.getLoopFlow(Country.FR), EPSILON);
+            assertEquals(expectedFlow.getLoopFlow(Country.BE), decomposedFlow.getLoopFlow(Country.BE), EPSILON);
+            assertEquals(expectedFlow.getDcReferenceFlow(), decomposedFlow.getDcReferenceFlow(), EPSILON);
+        });
+    }
+
+    @Test
+    void checkThatParallelLossesCompensationIsTheSameAsSequentialLossesCompensation() {
+        LoadFlowParameters loadFlowParameters = new LoadFlowParameters();
+        loadFlowParameters.setDc(AC_LOAD_FLOW);
+        int parallelism = 4;
+
+        for (String networkFileName : List.of("NETWORK_SINGLE_LOAD_TWO_GENERATORS_WITH_COUNTRIES.uct", "NETWORK_SINGLE_LOAD_TWO_GENERATORS_WITH_XNODE.uct")) {
+            Network sequentialNetwork = importNetwork(networkFileName);
+            new LossesCompensator(loadFlowParameters, FlowDecompositionParameters.DISABLE_LOSSES_COMPENSATION_EPSILON).run(sequentialNetwork);
+            Network parallelNetwork = importNetwork(networkFileName);
+            new LossesCompensator(loadFlowParameters, FlowDecompositionParameters.DISABLE_LOSSES_COMPENSATION_EPSILON, parallelism).run(parallelNetwork);
+
+            assertEquals(sequentialNetwork.getLoadCount(), parallelNetwork.getLoadCount());
+            sequentialNetwork.getLoadStream().forEach(load -> {
+                Load parallelLoad = parallelNetwork.getLoad(load.getId());
+                assertNotNull(parallelLoad);
+                assertEquals(load.getTerminal().getVoltageLevel().getId(), parallelLoad.getTerminal().getVoltageLevel().getId());
+                assertEquals(load.getP0(), parallelLoad.getP0(), EPSILON);
+            });
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class PtdfRowQueryTests {
+    private static final double EPSILON = 1e-9;
+    private static final String NETWORK_FILE_NAME = "NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct";
+
+    private static FlowDecompositionResults run(boolean storeSensitivitiesAsFloat32) {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF, IntermediateResult.NODAL_INJECTIONS));
+        flowDecompositionParameters.setStoreSensitivitiesAsFloat32(storeSensitivitiesAsFloat32);
+        return new FlowDecompositionComputer(flowDecompositionParameters).run(importNetwork(NETWORK_FILE_NAME), XnecFilter.allBranches());
+    }
+
+    @Test
+    void checkThatQueriesNeedPtdfsAndNodalInjections() {
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer().run(importNetwork(NETWORK_FILE_NAME));
+        String xnecId = flowDecompositionResults.getDecomposedFlowMap().keySet().iterator().next();
+        assertTrue(flowDecompositionResults.getPtdfRow(xnecId).isEmpty());
+        assertTrue(flowDecompositionResults.getTopContributingInjections(xnecId, DecomposedFlow.ALLOCATED_COLUMN_NAME, 1).isEmpty());
+    }
+
+    @Test
+    void checkThatPtdfRowsMatchPtdfMap() {
+        for (boolean storeSensitivitiesAsFloat32 : new boolean[] {FlowDecompositionParameters.FLOAT64_SENSITIVITIES, FlowDecompositionParameters.FLOAT32_SENSITIVITIES}) {
+            FlowDecompositionResults flowDecompositionResults = run(storeSensitivitiesAsFloat32);
+            Map<String, Map<String, Double>> ptdfMap = flowDecompositionResults.getPtdfMap().orElseThrow();
+            flowDecompositionResults.getDecomposedFlowMap().keySet().forEach(xnecId ->
+                assertEquals(ptdfMap.getOrDefault(xnecId, Map.of()), flowDecompositionResults.getPtdfRow(xnecId).orElseThrow()));
+            assertEquals(Map.of(), flowDecompositionResults.getPtdfRow("unknown XNEC").orElseThrow());
+        }
+    }
+
+    @Test
+    void checkThatRowVisitsMatchColumnVisits() {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF, IntermediateResult.ZONAL_PTDF));
+        for (boolean storeSensitivitiesAsFloat32 : new boolean[] {FlowDecompositionParameters.FLOAT64_SENSITIVITIES, FlowDecompositionParameters.FLOAT32_SENSITIVITIES}) {
+            flowDecompositionParameters.setStoreSensitivitiesAsFloat32(storeSensitivitiesAsFloat32);
+            FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer(flowDecompositionParameters)
+                .run(importNetwork(NETWORK_FILE_NAME), XnecFilter.allBranches());
+            assertSameEntriesByRowAndByColumn(flowDecompositionResults.getPtdfMatrix().orElseThrow());
+            assertSameEntriesByRowAndByColumn(flowDecompositionResults.getZonalPtdfMatrix().orElseThrow());
+        }
+    }
+
+    private static void assertSameEntriesByRowAndByColumn(SparseMatrixView matrix) {
+        Map<String, Map<String, Double>> entriesByColumn = new TreeMap<>();
+        matrix.forEachNonZero((rowId, columnId, value) -> entriesByColumn.computeIfAbsent(rowId, id -> new TreeMap<>()).put(columnId, value));
+        Map<String, Map<String, Double>> entriesByRow = new TreeMap<>();
+        for (String rowId : matrix.getRowIds()) {
+            List<String> visitedColumns = new ArrayList<>();
+            matrix.forEachNonZeroInRow(rowId, (visitedRowId, columnId, value) -> {
+                assertEquals(rowId, visitedRowId);
+                visitedColumns.add(columnId);
+                entriesByRow.computeIfAbsent(rowId, id -> new TreeMap<>()).put(columnId, value);
+            });
+            List<String> columnsInOrder = new ArrayList<>(matrix.getColumnIds());
+            columnsInOrder.retainAll(visitedColumns);
+            assertEquals(columnsInOrder, visitedColumns);
+        }
+        assertEquals(entriesByColumn, entriesByRow);
+    }
+
+    @Test
+    void checkThatAllContributionsSumToTheDecomposedFlow() {
+        FlowDecompositionResults flowDecompositionResults = run(FlowDecompositionParameters.FLOAT64_SENSITIVITIES);
+        flowDecompositionResults.getDecomposedFlowMapBeforeRescaling().forEach((xnecId, decomposedFlow) -> {
+            assertEquals(decomposedFlow.getAllocatedFlow(), sumOfContributions(flowDecompositionResults, xnecId, DecomposedFlow.ALLOCATED_COLUMN_NAME), EPSILON);
+            decomposedFlow.getLoopFlows().forEach((loopFlowId, loopFlow) ->
+                assertEquals(loopFlow, sumOfContributions(flowDecompositionResults, xnecId, loopFlowId), EPSILON));
+        });
+    }
+
+    private static double sumOfContributions(FlowDecompositionResults flowDecompositionResults, String xnecId, String columnId) {
+        return flowDecompositionResults.getTopContributingInjections(xnecId, columnId, Integer.MAX_VALUE).orElseThrow().stream()
+            .mapToDouble(NodalInjectionContribution::getContribution).sum();
+    }
+
+    @Test
+    void checkThatTopContributionsAreTheLargestOnesInDecreasingOrder() {
+        FlowDecompositionResults flowDecompositionResults = run(FlowDecompositionParameters.FLOAT64_SENSITIVITIES);
+        Map<String, Map<String, Double>> nodalInjections = flowDecompositionResults.getAllocatedAndLoopFlowNodalInjectionsMap().orElseThrow();
+        String columnId = "Loop Flow from FR";
+        for (String xnecId : flowDecompositionResults.getDecomposedFlowMap().keySet()) {
+            List<NodalInjectionContribution> allContributions =
+                flowDecompositionResults.getTopContributingInjections(xnecId, columnId, Integer.MAX_VALUE).orElseThrow();
+            List<NodalInjectionContribution> topContributions =
+                flowDecompositionResults.getTopContributingInjections(xnecId, columnId, 2).orElseThrow();
+            assertEquals(Math.min(2, allContributions.size()), topContributions.size());
+            for (int i = 0; i < topContributions.size(); i++) {
+                NodalInjectionContribution contribution = topContributions.get(i);
+                assertEquals(allContributions.get(i).getNodeId(), contribution.getNodeId());
+                assertEquals(nodalInjections.get(contribution.getNodeId()).get(columnId), contribution.getNodalInjection(), EPSILON);
+                assertEquals(flowDecompositionResults.getPtdfRow(xnecId).orElseThrow().get(contribution.getNodeId()), contribution.getPtdf(), EPSILON);
+            }
+            for (int i = 1; i < allContributions.size(); i++) {
+                assertTrue(Math.abs(allContributions.get(i - 1).getContribution()) >= Math.abs(allContributions.get(i).getContribution()));
+            }
+        }
+        String xnecId = flowDecompositionResults.getDecomposedFlowMap().keySet().iterator().next();
+        assertTrue(flowDecompositionResults.getTopContributingInjections(xnecId, "Loop Flow from XX", 5).orElseThrow().isEmpty());
+        assertTrue(flowDecompositionResults.getTopContributingInjections(xnecId, columnId, 0).orElseThrow().isEmpty());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class PtdfSparsificationTests {
+    private static final double EPSILON = 1e-9;
+    private static final String NETWORK_FILE_NAME = "NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct";
+
+    private static FlowDecompositionParameters getParameters(PtdfSparsificationMode ptdfSparsificationMode) {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setPtdfSparsificationMode(ptdfSparsificationMode);
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF));
+        return flowDecompositionParameters;
+    }
+
+    private static FlowDecompositionResults run(FlowDecompositionParameters flowDecompositionParameters) {
+        return new FlowDecompositionComputer(flowDecompositionParameters).run(importNetwork(NETWORK_FILE_NAME), XnecFilter.allBranches());
+    }
+
+    private static Map<String, Integer> getNonZeroCountByXnec(SparseMatrixView ptdfMatrix) {
+        Map<String, Integer> nonZeroCountByXnec = new HashMap<>();
+        ptdfMatrix.forEachNonZero((xnecId, nodeId, ptdf) -> nonZeroCountByXnec.merge(xnecId, 1, Integer::sum));
+        return nonZeroCountByXnec;
+    }
+
+    private static void assertFlowErrorsWithinBound(FlowDecompositionResults referenceResults, FlowDecompositionResults sparseResults) {
+        double maxFlowErrorBound = sparseResults.getPtdfSparsificationReport().orElseThrow().getMaxFlowErrorBound();
+        referenceResults.getDecomposedFlowMapBeforeRescaling().forEach((xnecId, referenceFlow) -> {
+            DecomposedFlow sparseFlow = sparseResults.getDecomposedFlowMapBeforeRescaling().get(xnecId);
+            assertEquals(referenceFlow.getAllocatedFlow(), sparseFlow.getAllocatedFlow(), maxFlowErrorBound + EPSILON);
+            assertEquals(referenceFlow.getDcReferenceFlow(), sparseFlow.getDcReferenceFlow(), EPSILON);
+            referenceFlow.getLoopFlows().forEach((loopFlowId, loopFlow) ->
+                assertEquals(loopFlow, sparseFlow.getLoopFlows().get(loopFlowId), maxFlowErrorBound + EPSILON));
+        });
+    }
+
+    @Test
+    void checkThatNoReportIsGivenWithoutSparsification() {
+        FlowDecompositionResults flowDecompositionResults = run(getParameters(PtdfSparsificationMode.NONE));
+        assertTrue(flowDecompositionResults.getPtdfSparsificationReport().isEmpty());
+    }
+
+    @Test
+    void checkThatTopKKeepsAtMostKPtdfsPerXnec() {
+        FlowDecompositionResults referenceResults = run(getParameters(PtdfSparsificationMode.NONE));
+        FlowDecompositionParameters flowDecompositionParameters = getParameters(PtdfSparsificationMode.TOP_K);
+        flowDecompositionParameters.setPtdfTopK(1);
+        FlowDecompositionResults sparseResults = run(flowDecompositionParameters);
+
+        SparseMatrixView sparsePtdfMatrix = sparseResults.getPtdfMatrix().orElseThrow();
+        getNonZeroCountByXnec(sparsePtdfMatrix).values().forEach(nonZeroCount -> assertEquals(1, nonZeroCount));
+        Map<String, Double> maxAbsolutePtdfByXnec = new HashMap<>();
+        referenceResults.getPtdfMatrix().orElseThrow().forEachNonZero((xnecId, nodeId, ptdf) ->
+            maxAbsolutePtdfByXnec.merge(xnecId, Math.abs(ptdf), Math::max));
+        sparsePtdfMatrix.forEachNonZero((xnecId, nodeId, ptdf) -> assertEquals(maxAbsolutePtdfByXnec.get(xnecId), Math.abs(ptdf)));
+        PtdfSparsificationReport report = sparseResults.getPtdfSparsificationReport().orElseThrow();
+        assertEquals(PtdfSparsificationMode.TOP_K, report.getMode());
+        assertEquals(referenceResults.getPtdfMatrix().orElseThrow().getNonZeroCount(), report.getNonZeroCountBefore());
+        assertEquals(sparsePtdfMatrix.getNonZeroCount(), report.getNonZeroCountAfter());
+        assertTrue(report.getNonZeroCountAfter() < report.getNonZeroCountBefore());
+        assertTrue(report.getMaxFlowErrorBound() > 0.);
+        assertFlowErrorsWithinBound(referenceResults, sparseResults);
+    }
+
+    @Test
+    void checkThatRelativeEpsilonKeepsLargestPtdfsOfEachXnec() {
+        FlowDecompositionResults referenceResults = run(getParameters(PtdfSparsificationMode.NONE));
+        FlowDecompositionParameters flowDecompositionParameters = getParameters(PtdfSparsificationMode.RELATIVE_EPSILON);
+        flowDecompositionParameters.setPtdfRelativeEpsilon(0.5);
+        FlowDecompositionResults sparseResults = run(flowDecompositionParameters);
+
+        Map<String, Double> maxPtdfByXnec = new HashMap<>();
+        referenceResults.getPtdfMatrix().orElseThrow().forEachNonZero((xnecId, nodeId, ptdf) ->
+            maxPtdfByXnec.merge(xnecId, Math.abs(ptdf), Math::max));
+        sparseResults.getPtdfMatrix().orElseThrow().forEachNonZero((xnecId, nodeId, ptdf) ->
+            assertTrue(Math.abs(ptdf) >= 0.5 * maxPtdfByXnec.get(xnecId)));
+        assertTrue(sparseResults.getPtdfSparsificationReport().orElseThrow().getNonZeroCountAfter()
+            < referenceResults.getPtdfMatrix().orElseThrow().getNonZeroCount());
+        assertFlowErrorsWithinBound(referenceResults, sparseResults);
+    }
+
+    @Test
+    void checkThatErrorBudgetBoundsFlowError() {
+        FlowDecompositionResults referenceResults = run(getParameters(PtdfSparsificationMode.NONE));
+        for (double errorBudget : new double[] {0., 10., 50., 1000.}) {
+            FlowDecompositionParameters flowDecompositionParameters = getParameters(PtdfSparsificationMode.ERROR_BUDGET);
+            flowDecompositionParameters.setPtdfErrorBudget(errorBudget);
+            FlowDecompositionResults sparseResults = run(flowDecompositionParameters);
+
+            PtdfSparsificationReport report = sparseResults.getPtdfSparsificationReport().orElseThrow();
+            assertTrue(report.getMaxFlowErrorBound() <= errorBudget);
+            assertFlowErrorsWithinBound(referenceResults, sparseResults);
+        }
+    }
+
+    @Test
+    void checkThatLargerErrorBudgetKeepsFewerPtdfs() {
+        FlowDecompositionParameters smallBudgetParameters = getParameters(PtdfSparsificationMode.ERROR_BUDGET);
+        smallBudgetParameters.setPtdfErrorBudget(0.);
+        FlowDecompositionParameters largeBudgetParameters = getParameters(PtdfSparsificationMode.ERROR_BUDGET);
+        largeBudgetParameters.setPtdfErrorBudget(1000.);
+        PtdfSparsificationReport smallBudgetReport = run(smallBudgetParameters).getPtdfSparsificationReport().orElseThrow();
+        PtdfSparsificationReport largeBudgetReport = run(largeBudgetParameters).getPtdfSparsificationReport().orElseThrow();
+        assertEquals(0., smallBudgetReport.getMaxFlowErrorBound());
+        assertTrue(largeBudgetReport.getNonZeroCountAfter() < smallBudgetReport.getNonZeroCountAfter());
+    }
+
+    @Test
+    void checkThatMeaninglessSparsificationParametersAreRejected() {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        assertThrows(PowsyblException.class, () -> flowDecompositionParameters.setPtdfTopK(0));
+        assertThrows(PowsyblException.class, () -> flowDecompositionParameters.setPtdfTopK(-1));
+        assertThrows(PowsyblException.class, () -> flowDecompositionParameters.setPtdfRelativeEpsilon(-0.1));
+        assertThrows(PowsyblException.class, () -> flowDecompositionParameters.setPtdfRelativeEpsilon(1.5));
+        assertThrows(PowsyblException.class, () -> flowDecompositionParameters.setPtdfRelativeEpsilon(Double.NaN));
+        assertThrows(PowsyblException.class, () -> flowDecompositionParameters.setPtdfErrorBudget(-1.));
+        assertThrows(PowsyblException.class, () -> flowDecompositionParameters.setPtdfErrorBudget(Double.NaN));
+        flowDecompositionParameters.setPtdfTopK(1);
+        flowDecompositionParameters.setPtdfRelativeEpsilon(0.);
+        flowDecompositionParameters.setPtdfErrorBudget(0.);
+        assertEquals(1, flowDecompositionParameters.getPtdfTopK());
+    }
+}
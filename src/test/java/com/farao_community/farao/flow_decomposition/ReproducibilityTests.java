@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.import_.Importers;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Harness comparing bitwise the results of single-threaded and multithreaded decompositions.
+ *
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class ReproducibilityTests {
+    private static final int THREAD_COUNT = 4;
+
+    private static FlowDecompositionParameters getParameters(int parallelism) {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setParallelism(parallelism);
+        flowDecompositionParameters.setEnableLossesCompensation(FlowDecompositionParameters.ENABLE_LOSSES_COMPENSATION);
+        flowDecompositionParameters.setLossesCompensationMode(LossesCompensationMode.INJECTION_DELTA);
+        flowDecompositionParameters.setRescaleModes(List.of(RescaleMode.ACER_METHODOLOGY, RescaleMode.PROPORTIONAL));
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF, IntermediateResult.NODAL_INJECTIONS,
+            IntermediateResult.DC_NODAL_INJECTIONS, IntermediateResult.AC_NET_POSITIONS));
+        return flowDecompositionParameters;
+    }
+
+    private static void assertBitwiseEquals(double expected, double actual, String description) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+            () -> String.format("%s differs: %s != %s", description, expected, actual));
+    }
+
+    private static void assertBitwiseEquals(Map<String, DecomposedFlow> expected, Map<String, DecomposedFlow> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((xnecId, decomposedFlow) -> {
+            DecomposedFlow actualFlow = actual.get(xnecId);
+            assertBitwiseEquals(decomposedFlow.getAllocatedFlow(), actualFlow.getAllocatedFlow(), xnecId + " allocated flow");
+            assertBitwiseEquals(decomposedFlow.getPstFlow(), actualFlow.getPstFlow(), xnecId + " PST flow");
+            assertBitwiseEquals(decomposedFlow.getHvdcFlow(), actualFlow.getHvdcFlow(), xnecId + " HVDC flow");
+            assertBitwiseEquals(decomposedFlow.getAcReferenceFlow(), actualFlow.getAcReferenceFlow(), xnecId + " AC reference flow");
+            assertBitwiseEquals(decomposedFlow.getDcReferenceFlow(), actualFlow.getDcReferenceFlow(), xnecId + " DC reference flow");
+            assertEquals(decomposedFlow.getLoopFlows().keySet(), actualFlow.getLoopFlows().keySet());
+            decomposedFlow.getLoopFlows().forEach((loopFlowId, loopFlow) ->
+                assertBitwiseEquals(loopFlow, actualFlow.getLoopFlows().get(loopFlowId), xnecId + " " + loopFlowId));
+        });
+    }
+
+    private static void assertBitwiseEquals(SparseMatrixView expected, SparseMatrixView actual) {
+        assertEquals(expected.getRowIds(), actual.getRowIds());
+        assertEquals(expected.getColumnIds(), actual.getColumnIds());
+        assertEquals(expected.getNonZeroCount(), actual.getNonZeroCount());
+        expected.forEachNonZero((rowId, columnId, value) ->
+            assertBitwiseEquals(value, actual.get(rowId, columnId), rowId + " " + columnId));
+    }
+
+    private static void assertReproducible(Supplier<Network> networkSupplier, FlowDecompositionParameters singleThreadParameters,
+                                           FlowDecompositionParameters multiThreadParameters) {
+        FlowDecompositionResults singleThreadResults = new FlowDecompositionComputer(singleThreadParameters).run(networkSupplier.get());
+        FlowDecompositionResults multiThreadResults = new FlowDecompositionComputer(multiThreadParameters).run(networkSupplier.get());
+
+        assertBitwiseEquals(singleThreadResults.getDecomposedFlowMapBeforeRescaling(), multiThreadResults.getDecomposedFlowMapBeforeRescaling());
+        for (RescaleMode rescaleMode : singleThreadParameters.getRescaleModes()) {
+            assertBitwiseEquals(singleThreadResults.getDecomposedFlowMap(rescaleMode).orElseThrow(),
+                multiThreadResults.getDecomposedFlowMap(rescaleMode).orElseThrow());
+        }
+        assertBitwiseEquals(singleThreadResults.getPtdfMatrix().orElseThrow(), multiThreadResults.getPtdfMatrix().orElseThrow());
+        assertBitwiseEquals(singleThreadResults.getAllocatedAndLoopFlowNodalInjectionsMatrix().orElseThrow(),
+            multiThreadResults.getAllocatedAndLoopFlowNodalInjectionsMatrix().orElseThrow());
+        Map<String, Double> singleThreadInjections = singleThreadResults.getDcNodalInjectionsMap().orElseThrow();
+        Map<String, Double> multiThreadInjections = multiThreadResults.getDcNodalInjectionsMap().orElseThrow();
+        assertEquals(singleThreadInjections.keySet(), multiThreadInjections.keySet());
+        singleThreadInjections.forEach((node, injection) -> assertBitwiseEquals(injection, multiThreadInjections.get(node), node));
+        Map<String, Double> singleThreadNetPositions = singleThreadResults.getAcNetPositionsByZone().orElseThrow();
+        Map<String, Double> multiThreadNetPositions = multiThreadResults.getAcNetPositionsByZone().orElseThrow();
+        singleThreadNetPositions.forEach((zone, netPosition) -> assertBitwiseEquals(netPosition, multiThreadNetPositions.get(zone), zone));
+    }
+
+    @Test
+    void checkThatMultithreadedDecompositionIsBitwiseIdenticalToSingleThreadedDecomposition() {
+        assertReproducible(() -> importNetwork("NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct"), getParameters(1), getParameters(THREAD_COUNT));
+        assertReproducible(() -> importNetwork("NETWORK_PST_FLOW_WITH_COUNTRIES.uct"), getParameters(1), getParameters(THREAD_COUNT));
+    }
+
+    @Test
+    void checkThatConcurrentSynchronousComponentsAreBitwiseIdenticalToSequentialOnes() {
+        String networkFileName = "NETWORK_TWO_SYNCHRONOUS_ISLANDS_WITH_HVDC.xiidm";
+        Supplier<Network> networkSupplier = () -> Importers.loadNetwork(networkFileName, ReproducibilityTests.class.getResourceAsStream(networkFileName));
+        FlowDecompositionParameters singleThreadParameters = getParameters(1);
+        singleThreadParameters.setDecomposeAllSynchronousComponents(FlowDecompositionParameters.ALL_SYNCHRONOUS_COMPONENTS);
+        FlowDecompositionParameters multiThreadParameters = getParameters(THREAD_COUNT);
+        multiThreadParameters.setDecomposeAllSynchronousComponents(FlowDecompositionParameters.ALL_SYNCHRONOUS_COMPONENTS);
+        assertReproducible(networkSupplier, singleThreadParameters, multiThreadParameters);
+    }
+
+    @Test
+    void checkThatCompensatedSumIsExactOnCancellingTerms() {
+        assertBitwiseEquals(1., ReproducibleSum.sum(1e16, 1., -1e16), "compensated sum");
+        assertBitwiseEquals(0.6, ReproducibleSum.sum(List.of(0.1, 0.2, 0.3)), "compensated sum");
+    }
+}
@@ -10,10 +10,12 @@ import com.powsybl.iidm.network.Country;
 import com.powsybl.iidm.network.Network;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
@@ -130,6 +132,70 @@ class RescalingTests {
         assertEquals(dcReferenceFlow, rescaledFlow.getDcReferenceFlow(), EPSILON);
     }
 
+    @Test
+    void testBulkRescalingOnBlockMatchesRescalingOfEachFlow() {
+        String xnec1 = "XNEC 1";
+        String xnec2 = "XNEC 2";
+        String loopFlowBe = NetworkUtil.getLoopFlowIdFromCountry(Country.BE);
+        String loopFlowFr = NetworkUtil.getLoopFlowIdFromCountry(Country.FR);
+        Map<String, DecomposedFlow> decomposedFlowMap = Map.of(
+            xnec1, new DecomposedFlow(Map.of(loopFlowBe, 500., loopFlowFr, -300.), 100., 200., 1400., 500.),
+            xnec2, new DecomposedFlow(Map.of(loopFlowFr, 50.), -20., 10., -30., -40.));
+        DecomposedFlowBlock decomposedFlowBlock = DecomposedFlowBlock.of(decomposedFlowMap);
+        DecomposedFlowBlock rescaledBlock = decomposedFlowBlock.copy();
+
+        DecomposedFlowsRescaler rescaler = new DecomposedFlowsRescaler();
+        rescaler.rescale(rescaledBlock);
+        Map<String, DecomposedFlow> rescaledFlowMap = rescaledBlock.toDecomposedFlowMap();
+        for (String xnecId : decomposedFlowMap.keySet()) {
+            DecomposedFlow expectedFlow = rescaler.rescale(decomposedFlowMap.get(xnecId));
+            DecomposedFlow rescaledFlow = rescaledFlowMap.get(xnecId);
+            assertEquals(expectedFlow.getAllocatedFlow(), rescaledFlow.getAllocatedFlow(), EPSILON);
+            assertEquals(expectedFlow.getPstFlow(), rescaledFlow.getPstFlow(), EPSILON);
+            assertEquals(expectedFlow.getLoopFlow(Country.BE), rescaledFlow.getLoopFlow(Country.BE), EPSILON);
+            assertEquals(expectedFlow.getLoopFlow(Country.FR), rescaledFlow.getLoopFlow(Country.FR), EPSILON);
+            assertEquals(Math.abs(rescaledFlow.getAcReferenceFlow()), rescaledFlow.getTotalFlow(), EPSILON);
+        }
+        assertEquals(100., decomposedFlowBlock.toDecomposedFlowMap().get(xnec1).getAllocatedFlow(), EPSILON);
+    }
+
+    @Test
+    void testProportionalAndLoopFlowsOnlyRescaleModes() {
+        Map<String, Double> loopFlows = new TreeMap<>();
+        loopFlows.put(NetworkUtil.getLoopFlowIdFromCountry(Country.BE), 500.);
+        loopFlows.put(NetworkUtil.getLoopFlowIdFromCountry(Country.FR), -200.);
+        DecomposedFlow decomposedFlow = new DecomposedFlow(loopFlows, 100., 200., 700., 600.);
+
+        DecomposedFlow proportionalFlow = new DecomposedFlowsRescaler(RescaleMode.PROPORTIONAL).rescale(decomposedFlow);
+        assertEquals(700., proportionalFlow.getTotalFlow(), EPSILON);
+        assertEquals(110., proportionalFlow.getAllocatedFlow(), EPSILON);
+        assertEquals(220., proportionalFlow.getPstFlow(), EPSILON);
+        assertEquals(550., proportionalFlow.getLoopFlow(Country.BE), EPSILON);
+        assertEquals(-180., proportionalFlow.getLoopFlow(Country.FR), EPSILON);
+
+        DecomposedFlow loopFlowsOnlyFlow = new DecomposedFlowsRescaler(RescaleMode.LOOP_FLOWS_ONLY).rescale(decomposedFlow);
+        assertEquals(700., loopFlowsOnlyFlow.getTotalFlow(), EPSILON);
+        assertEquals(100., loopFlowsOnlyFlow.getAllocatedFlow(), EPSILON);
+        assertEquals(200., loopFlowsOnlyFlow.getPstFlow(), EPSILON);
+        assertEquals(600., loopFlowsOnlyFlow.getLoopFlow(Country.BE), EPSILON);
+        assertEquals(-200., loopFlowsOnlyFlow.getLoopFlow(Country.FR), EPSILON);
+    }
+
+    @Test
+    void testSeveralRescaleModesAreStoredSideBySide() {
+        Network network = AllocatedFlowTests.importNetwork("NETWORK_PST_FLOW_WITH_COUNTRIES.uct");
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setRescaleModes(List.of(RescaleMode.PROPORTIONAL, RescaleMode.ACER_METHODOLOGY));
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer(flowDecompositionParameters).run(network);
+
+        assertEquals(flowDecompositionResults.getDecomposedFlowMap(RescaleMode.PROPORTIONAL).orElseThrow(), flowDecompositionResults.getDecomposedFlowMap());
+        assertTrue(flowDecompositionResults.getDecomposedFlowMap(RescaleMode.LOOP_FLOWS_ONLY).isEmpty());
+        for (RescaleMode rescaleMode : flowDecompositionParameters.getRescaleModes()) {
+            flowDecompositionResults.getDecomposedFlowMap(rescaleMode).orElseThrow().values()
+                .forEach(decomposedFlow -> assertEquals(Math.abs(decomposedFlow.getAcReferenceFlow()), decomposedFlow.getTotalFlow(), EPSILON));
+        }
+    }
+
     @Test
     void testNormalizationWithFlowDecompositionResultsWithPstNetwork() {
         String networkFileName = "NETWORK_PST_FLOW_WITH_COUNTRIES.uct";
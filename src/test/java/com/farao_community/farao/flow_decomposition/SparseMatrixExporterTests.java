@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.commons.PowsyblException;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class SparseMatrixExporterTests {
+    private static final String NETWORK_FILE_NAME = "NETWORK_PST_FLOW_WITH_COUNTRIES.uct";
+
+    private static FlowDecompositionResults runWithIntermediates() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF, IntermediateResult.PSDF));
+        return new FlowDecompositionComputer(flowDecompositionParameters).run(network);
+    }
+
+    private static void assertSameMatrix(SparseMatrixView expected, SparseMatrixView actual, double relativeEpsilon) {
+        assertEquals(expected.getRowIds(), actual.getRowIds());
+        assertEquals(expected.getColumnIds(), actual.getColumnIds());
+        assertEquals(expected.getNonZeroCount(), actual.getNonZeroCount());
+        expected.forEachNonZero((rowId, columnId, value) ->
+            assertEquals(value, actual.get(rowId, columnId), Math.abs(value) * relativeEpsilon));
+    }
+
+    @Test
+    void checkThatPtdfMatrixIsLoadedBackExactly(@TempDir Path tempDir) {
+        SparseMatrixView ptdfMatrix = runWithIntermediates().getPtdfMatrix().orElseThrow();
+        Path path = tempDir.resolve("ptdf.bin");
+        new SparseMatrixExporter().export(path, ptdfMatrix);
+        assertSameMatrix(ptdfMatrix, new SparseMatrixLoader().load(path), 0.);
+    }
+
+    @Test
+    void checkThatCompressedFloat32MatrixIsLoadedBackWithFloatPrecision(@TempDir Path tempDir) throws IOException {
+        SparseMatrixView psdfMatrix = runWithIntermediates().getPsdfMatrix().orElseThrow();
+        Path float64Path = tempDir.resolve("psdf64.bin");
+        Path float32Path = tempDir.resolve("psdf32.bin");
+        new SparseMatrixExporter().export(float64Path, psdfMatrix);
+        new SparseMatrixExporter().export(float32Path, psdfMatrix, SparseMatrixExporter.Precision.FLOAT32, SparseMatrixExporter.Compression.DEFLATE);
+
+        assertSameMatrix(psdfMatrix, new SparseMatrixLoader().load(float32Path), 1e-7);
+        assertTrue(Files.size(float32Path) < Files.size(float64Path));
+    }
+
+    @Test
+    void checkThatColumnsFilledOutOfRowOrderAreLoadedBack(@TempDir Path tempDir) {
+        SparseMatrixWithIndexesTriplet tripletMatrix = new SparseMatrixWithIndexesTriplet(
+            IdIndex.of(List.of("row 0", "row 1", "row 2")), IdIndex.of(List.of("column 0", "column 1")), 4);
+        tripletMatrix.addItem("row 2", "column 0", 2.);
+        tripletMatrix.addItem("row 1", "column 0", 5.);
+        tripletMatrix.addItem("row 0", "column 0", 1.);
+        tripletMatrix.addItem("row 1", "column 1", 3.);
+        SparseMatrixWithIndexesCSC matrix = tripletMatrix.toCSCMatrix();
+        Path path = tempDir.resolve("unsorted.bin");
+        new SparseMatrixExporter().export(path, matrix);
+
+        SparseMatrixView loadedMatrix = new SparseMatrixLoader().load(path);
+        assertEquals(1., loadedMatrix.get("row 0", "column 0"));
+        assertEquals(5., loadedMatrix.get("row 1", "column 0"));
+        assertEquals(2., loadedMatrix.get("row 2", "column 0"));
+        assertEquals(3., loadedMatrix.get("row 1", "column 1"));
+        assertEquals(0., loadedMatrix.get("row 0", "column 1"));
+        assertSameMatrix(matrix, loadedMatrix, 0.);
+    }
+
+    @Test
+    void checkThatUnknownFileIsRejected(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("not_a_matrix.bin");
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        SparseMatrixLoader sparseMatrixLoader = new SparseMatrixLoader();
+        assertThrows(PowsyblException.class, () -> sparseMatrixLoader.load(path));
+    }
+
+    @Test
+    void checkThatUnknownPrecisionOrCompressionIsRejected(@TempDir Path tempDir) throws IOException {
+        SparseMatrixLoader sparseMatrixLoader = new SparseMatrixLoader();
+        for (byte[] ordinals : new byte[][] {{2, 0}, {0, 2}, {-1, 0}}) {
+            ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES + 2)
+                .putInt(SparseMatrixExporter.MAGIC).putInt(SparseMatrixExporter.VERSION).put(ordinals[0]).put(ordinals[1]);
+            Path path = tempDir.resolve("corrupt_header.bin");
+            Files.write(path, header.array());
+            PowsyblException exception = assertThrows(PowsyblException.class, () -> sparseMatrixLoader.load(path));
+            assertTrue(exception.getMessage().contains(ordinals[0] != 0 ? "precision" : "compression"));
+        }
+    }
+}
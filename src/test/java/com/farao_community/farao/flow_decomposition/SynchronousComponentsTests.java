@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.import_.Importers;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.VariantManagerConstants;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class SynchronousComponentsTests {
+    private static final double EPSILON = 1e-1;
+    private static final String NETWORK_FILE_NAME = "NETWORK_TWO_SYNCHRONOUS_ISLANDS_WITH_HVDC.xiidm";
+    private static final Set<String> ALL_XNECS = Set.of("FR1_BE1", "FR2_BE1", "DE1_NL1", "DE2_NL1");
+
+    private static final String ZONE_SPLIT_NETWORK_FILE_NAME = "NETWORK_ZONE_SPLIT_ACROSS_SYNCHRONOUS_ISLANDS.xiidm";
+    private static final Set<String> FIRST_ISLAND_NODES = Set.of("FR1_GEN", "FR1_CONV", "FR2_LOAD", "BE1_GEN", "BE1_LOAD");
+    private static final Set<String> SECOND_ISLAND_NODES = Set.of("FR3_GEN", "FR3_CONV", "FR4_LOAD", "NL1_GEN", "NL1_LOAD");
+
+    private static Network importNetwork() {
+        return importNetwork(NETWORK_FILE_NAME);
+    }
+
+    private static Network importNetwork(String networkFileName) {
+        return Importers.loadNetwork(networkFileName, SynchronousComponentsTests.class.getResourceAsStream(networkFileName));
+    }
+
+    private static FlowDecompositionResults runAllSynchronousComponents(Network network, int parallelism) {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setDecomposeAllSynchronousComponents(FlowDecompositionParameters.ALL_SYNCHRONOUS_COMPONENTS);
+        flowDecompositionParameters.setParallelism(parallelism);
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.PTDF));
+        return new FlowDecompositionComputer(flowDecompositionParameters).run(network);
+    }
+
+    @Test
+    void checkThatOnlyMainSynchronousComponentIsDecomposedByDefault() {
+        Network network = importNetwork();
+        Map<String, DecomposedFlow> decomposedFlowMap = new FlowDecompositionComputer().run(network).getDecomposedFlowMap();
+        assertEquals(2, decomposedFlowMap.size());
+        assertTrue(ALL_XNECS.containsAll(decomposedFlowMap.keySet()));
+    }
+
+    @Test
+    void checkThatEverySynchronousComponentIsDecomposed() {
+        Network network = importNetwork();
+        FlowDecompositionResults flowDecompositionResults = runAllSynchronousComponents(network, 1);
+
+        Map<String, DecomposedFlow> decomposedFlowMap = flowDecompositionResults.getDecomposedFlowMap();
+        assertEquals(ALL_XNECS, decomposedFlowMap.keySet());
+        assertEquals(116.65, Math.abs(decomposedFlowMap.get("DE1_NL1").getDcReferenceFlow()), EPSILON);
+        assertEquals(33.32, Math.abs(decomposedFlowMap.get("DE2_NL1").getDcReferenceFlow()), EPSILON);
+        assertEquals(166.67, Math.abs(decomposedFlowMap.get("FR1_BE1").getDcReferenceFlow()), EPSILON);
+        decomposedFlowMap.values().forEach(decomposedFlow ->
+            assertEquals(decomposedFlow.getDcReferenceFlow(), decomposedFlow.getTotalFlow(), EPSILON));
+
+        SparseMatrixView ptdfMatrix = flowDecompositionResults.getPtdfMatrix().orElseThrow();
+        assertEquals(0., ptdfMatrix.get("FR1_BE1", "DE2_LOAD"), EPSILON);
+        assertEquals(0., ptdfMatrix.get("DE1_NL1", "FR2_LOAD"), EPSILON);
+
+        assertEquals(VariantManagerConstants.INITIAL_VARIANT_ID, network.getVariantManager().getWorkingVariantId());
+        assertEquals(Set.of(VariantManagerConstants.INITIAL_VARIANT_ID), Set.copyOf(network.getVariantManager().getVariantIds()));
+    }
+
+    @Test
+    void checkThatConcurrentDecompositionGivesSameResultsAsSequentialDecomposition() {
+        Map<String, DecomposedFlow> sequentialFlows = runAllSynchronousComponents(importNetwork(), 1).getDecomposedFlowMap();
+        Map<String, DecomposedFlow> concurrentFlows = runAllSynchronousComponents(importNetwork(), 2).getDecomposedFlowMap();
+
+        assertEquals(sequentialFlows.keySet(), concurrentFlows.keySet());
+        sequentialFlows.forEach((xnecId, decomposedFlow) -> {
+            DecomposedFlow concurrentFlow = concurrentFlows.get(xnecId);
+            assertEquals(decomposedFlow.getAllocatedFlow(), concurrentFlow.getAllocatedFlow(), 1e-9);
+            assertEquals(decomposedFlow.getLoopFlows(), concurrentFlow.getLoopFlows());
+            assertEquals(decomposedFlow.getAcReferenceFlow(), concurrentFlow.getAcReferenceFlow(), 1e-9);
+            assertEquals(decomposedFlow.getDcReferenceFlow(), concurrentFlow.getDcReferenceFlow(), 1e-9);
+        });
+    }
+
+    @Test
+    void checkThatZoneSplitAcrossSynchronousComponentsIsAllocatedInEachComponent() {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setDecomposeAllSynchronousComponents(FlowDecompositionParameters.ALL_SYNCHRONOUS_COMPONENTS);
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.AC_NET_POSITIONS, IntermediateResult.GLSKS,
+            IntermediateResult.NODAL_INJECTIONS));
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer(flowDecompositionParameters)
+            .run(importNetwork(ZONE_SPLIT_NETWORK_FILE_NAME));
+
+        Map<String, Double> netPositions = flowDecompositionResults.getAcNetPositionsByZone().orElseThrow();
+        assertEquals(350., netPositions.get("FR"), EPSILON);
+        assertEquals(-200., netPositions.get("BE"), EPSILON);
+        assertEquals(-150., netPositions.get("NL"), EPSILON);
+
+        Map<String, Double> frenchGlsk = flowDecompositionResults.getGlsksByZone().orElseThrow().get("FR");
+        assertEquals(Map.of("FR1_GEN", 0.8, "FR3_GEN", 0.2), frenchGlsk);
+
+        Map<String, Map<String, Double>> nodalInjections = flowDecompositionResults.getAllocatedAndLoopFlowNodalInjectionsMap().orElseThrow();
+        assertEquals(100., sumOfAllocatedInjections(nodalInjections, FIRST_ISLAND_NODES), EPSILON);
+        assertEquals(-100., sumOfAllocatedInjections(nodalInjections, SECOND_ISLAND_NODES), EPSILON);
+        assertEquals(300., nodalInjections.get("FR1_GEN").get(DecomposedFlow.ALLOCATED_COLUMN_NAME), EPSILON);
+        assertEquals(50., nodalInjections.get("FR3_GEN").get(DecomposedFlow.ALLOCATED_COLUMN_NAME), EPSILON);
+
+        Map<String, DecomposedFlow> decomposedFlowMap = flowDecompositionResults.getDecomposedFlowMapBeforeRescaling();
+        assertEquals(Set.of("FR1_BE1", "FR2_BE1", "FR3_NL1", "FR4_NL1"), decomposedFlowMap.keySet());
+        decomposedFlowMap.values().forEach(decomposedFlow -> {
+            double allocatedAndLoopFlows = decomposedFlow.getAllocatedFlow()
+                + decomposedFlow.getLoopFlows().values().stream().mapToDouble(Double::doubleValue).sum();
+            assertEquals(decomposedFlow.getDcReferenceFlow(), allocatedAndLoopFlows, EPSILON);
+        });
+    }
+
+    private static double sumOfAllocatedInjections(Map<String, Map<String, Double>> nodalInjections, Set<String> nodes) {
+        return nodes.stream()
+            .mapToDouble(node -> nodalInjections.getOrDefault(node, Map.of()).getOrDefault(DecomposedFlow.ALLOCATED_COLUMN_NAME, 0.))
+            .sum();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.Country;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class XnecSelectionTests {
+    private static final double EPSILON = 1e-3;
+    private static final String NETWORK_FILE_NAME = "NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct";
+    private static final String X1 = "EGEN  11 FGEN  11 1";
+    private static final String X2 = "FGEN  11 BGEN  11 1";
+    private static final String X3 = "BGEN  11 BLOAD 11 1";
+    private static final String X4 = "BLOAD 11 FLOAD 11 1";
+    private static final String X5 = "FLOAD 11 ELOAD 11 1";
+
+    private static Map<String, DecomposedFlow> runWithFilter(XnecFilter xnecFilter) {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        FlowDecompositionComputer flowDecompositionComputer = new FlowDecompositionComputer();
+        return flowDecompositionComputer.run(network, xnecFilter).getDecomposedFlowMap();
+    }
+
+    @Test
+    void checkThatDefaultSelectionOnlyKeepsInterconnections() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        FlowDecompositionComputer flowDecompositionComputer = new FlowDecompositionComputer();
+        Map<String, DecomposedFlow> decomposedFlowMap = flowDecompositionComputer.run(network).getDecomposedFlowMap();
+        assertEquals(Set.of(X1, X2, X4, X5), decomposedFlowMap.keySet());
+    }
+
+    @Test
+    void checkThatExplicitIdsAreDecomposedEvenIfNotInterconnections() {
+        Map<String, DecomposedFlow> decomposedFlowMap = runWithFilter(XnecFilter.byIds(List.of(X1, X3, "UNKNOWN BRANCH")));
+        assertEquals(Set.of(X1, X3), decomposedFlowMap.keySet());
+        assertEquals(100, decomposedFlowMap.get(X1).getLoopFlow(Country.ES), EPSILON);
+        assertEquals(0, decomposedFlowMap.get(X1).getLoopFlow(Country.FR), EPSILON);
+    }
+
+    @Test
+    void checkThatCountryPairSelectsBothOrientations() {
+        Map<String, DecomposedFlow> decomposedFlowMap = runWithFilter(XnecFilter.byCountryPair(Country.BE, Country.FR));
+        assertEquals(Set.of(X2, X4), decomposedFlowMap.keySet());
+        assertEquals(100, decomposedFlowMap.get(X2).getLoopFlow(Country.ES), EPSILON);
+        assertEquals(100, decomposedFlowMap.get(X4).getLoopFlow(Country.FR), EPSILON);
+    }
+
+    @Test
+    void checkThatFiltersCanBeCombinedWithVoltageThreshold() {
+        assertEquals(Set.of(X1, X2, X3, X4, X5), runWithFilter(XnecFilter.allBranches().and(XnecFilter.byMinNominalVoltage(380.))).keySet());
+        assertTrue(runWithFilter(XnecFilter.interconnections().and(XnecFilter.byMinNominalVoltage(500.))).isEmpty());
+    }
+
+    @Test
+    void checkThatCustomPredicateCanBeUsed() {
+        Map<String, DecomposedFlow> decomposedFlowMap = runWithFilter(branch -> branch.getId().startsWith("FLOAD"));
+        assertEquals(Set.of(X5), decomposedFlowMap.keySet());
+        assertEquals(100, decomposedFlowMap.get(X5).getLoopFlow(Country.ES), EPSILON);
+    }
+}
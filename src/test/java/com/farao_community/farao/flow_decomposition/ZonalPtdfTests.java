@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class ZonalPtdfTests {
+    private static final double EPSILON = 1e-9;
+    private static final String NETWORK_FILE_NAME = "NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct";
+
+    private static FlowDecompositionResults runWithZonalPtdfs() {
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setIntermediatesToSave(List.of(IntermediateResult.ZONAL_PTDF, IntermediateResult.PTDF,
+            IntermediateResult.GLSKS, IntermediateResult.AC_NET_POSITIONS));
+        return new FlowDecompositionComputer(flowDecompositionParameters).run(importNetwork(NETWORK_FILE_NAME), XnecFilter.allBranches());
+    }
+
+    @Test
+    void checkThatZonalPtdfsAreNotSavedByDefault() {
+        FlowDecompositionResults flowDecompositionResults = new FlowDecompositionComputer().run(importNetwork(NETWORK_FILE_NAME));
+        assertTrue(flowDecompositionResults.getZonalPtdfMap().isEmpty());
+        assertTrue(flowDecompositionResults.getZonalPtdfMatrix().isEmpty());
+    }
+
+    @Test
+    void checkThatZonalPtdfsArePtdfsTimesGlsks() {
+        FlowDecompositionResults flowDecompositionResults = runWithZonalPtdfs();
+        Map<String, Map<String, Double>> zonalPtdfMap = flowDecompositionResults.getZonalPtdfMap().orElseThrow();
+        SparseMatrixView ptdfMatrix = flowDecompositionResults.getPtdfMatrix().orElseThrow();
+        Map<String, Map<String, Double>> glsks = flowDecompositionResults.getGlsksByZone().orElseThrow();
+
+        assertEquals(flowDecompositionResults.getDecomposedFlowMap().keySet(), zonalPtdfMap.keySet());
+        zonalPtdfMap.forEach((xnecId, zonalPtdfs) -> {
+            assertEquals(glsks.keySet(), zonalPtdfs.keySet());
+            zonalPtdfs.forEach((zone, zonalPtdf) -> {
+                double expectedZonalPtdf = glsks.get(zone).entrySet().stream()
+                    .mapToDouble(nodeGlsk -> ptdfMatrix.get(xnecId, nodeGlsk.getKey()) * nodeGlsk.getValue()).sum();
+                assertEquals(expectedZonalPtdf, zonalPtdf, EPSILON);
+            });
+        });
+    }
+
+    @Test
+    void checkThatZonalPtdfsTimesNetPositionsGiveAllocatedFlows() {
+        FlowDecompositionResults flowDecompositionResults = runWithZonalPtdfs();
+        Map<String, Map<String, Double>> zonalPtdfMap = flowDecompositionResults.getZonalPtdfMap().orElseThrow();
+        Map<String, Double> netPositions = flowDecompositionResults.getAcNetPositionsByZone().orElseThrow();
+        flowDecompositionResults.getDecomposedFlowMapBeforeRescaling().forEach((xnecId, decomposedFlow) -> {
+            double allocatedFlow = zonalPtdfMap.get(xnecId).entrySet().stream()
+                .mapToDouble(zonalPtdf -> zonalPtdf.getValue() * netPositions.get(zonalPtdf.getKey())).sum();
+            assertEquals(decomposedFlow.getAllocatedFlow(), allocatedFlow, 1e-6);
+        });
+    }
+
+    @Test
+    void checkThatZonalPtdfsAreExportedWithTheResults(@TempDir Path tempDir) throws IOException {
+        FlowDecompositionResults flowDecompositionResults = runWithZonalPtdfs();
+        Map<String, Map<String, Double>> zonalPtdfMap = flowDecompositionResults.getZonalPtdfMap().orElseThrow();
+
+        new CsvExporter().export(tempDir, flowDecompositionResults);
+        Path csvPath = tempDir.resolve(flowDecompositionResults.getId() + CsvExporter.ZONAL_PTDF_SUFFIX + ".csv");
+        try (CSVParser parser = CSVParser.parse(Files.newBufferedReader(csvPath, CsvExporter.CHARSET), CsvExporter.FORMAT)) {
+            List<CSVRecord> records = parser.getRecords();
+            assertEquals(zonalPtdfMap.size() + 1, records.size());
+            CSVRecord header = records.get(0);
+            for (CSVRecord csvRecord : records.subList(1, records.size())) {
+                for (int column = 1; column < header.size(); column++) {
+                    assertEquals(zonalPtdfMap.get(csvRecord.get(0)).get(header.get(column)), Double.parseDouble(csvRecord.get(column)), EPSILON);
+                }
+            }
+        }
+
+        new ColumnarExporter().export(tempDir, flowDecompositionResults, true);
+        ColumnarTable.Reader reader = new ColumnarTable.Reader(tempDir.resolve(flowDecompositionResults.getId()).resolve(ColumnarExporter.ZONAL_PTDF_TABLE));
+        List<String> xnecIds = reader.readDictionaryColumn(ColumnarExporter.XNEC_COLUMN_NAME);
+        assertEquals(zonalPtdfMap.size(), xnecIds.size());
+        for (String zone : List.of("BE", "ES", "FR")) {
+            double[] zonalPtdfs = reader.readDoubleColumn(zone);
+            for (int row = 0; row < xnecIds.size(); row++) {
+                assertEquals(zonalPtdfMap.get(xnecIds.get(row)).get(zone), zonalPtdfs[row], EPSILON);
+            }
+        }
+    }
+}
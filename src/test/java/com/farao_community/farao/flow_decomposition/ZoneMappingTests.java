@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.flow_decomposition;
+
+import com.powsybl.iidm.network.Country;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.farao_community.farao.flow_decomposition.AllocatedFlowTests.importNetwork;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Sebastien Murgey {@literal <sebastien.murgey at rte-france.com>}
+ * @author Hugo Schindler {@literal <hugo.schindler at rte-france.com>}
+ */
+class ZoneMappingTests {
+    private static final double EPSILON = 1e-3;
+    private static final String NETWORK_FILE_NAME = "NETWORK_LOOP_FLOW_WITH_COUNTRIES.uct";
+    private static final String CWE = "CWE";
+    private static final ZoneMapping CWE_MAPPING = ZoneMapping.byVoltageLevel(Map.of(
+        "FGEN  1", CWE,
+        "FLOAD 1", CWE,
+        "BGEN  1", CWE,
+        "BLOAD 1", CWE));
+    private static final String X1 = "EGEN  11 FGEN  11 1";
+    private static final String X5 = "FLOAD 11 ELOAD 11 1";
+
+    @Test
+    void checkThatDefaultMappingGivesCountryZones() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        NetworkZones networkZones = new NetworkZones(network, ZoneMapping.byCountry());
+        assertEquals(3, networkZones.getZoneCount());
+        assertEquals("BE", networkZones.getZone(0));
+        assertEquals(Map.of(Country.BE, 0.0, Country.ES, 0.0, Country.FR, 0.0).keySet(),
+            NetPositionComputer.computeNetPositions(network).keySet());
+    }
+
+    @Test
+    void checkThatLoopFlowsAreComputedOnBiddingZones() {
+        Network network = importNetwork(NETWORK_FILE_NAME);
+        FlowDecompositionParameters flowDecompositionParameters = new FlowDecompositionParameters();
+        flowDecompositionParameters.setSaveIntermediates(FlowDecompositionParameters.SAVE_INTERMEDIATES);
+        FlowDecompositionComputer flowDecompositionComputer = new FlowDecompositionComputer(
+            flowDecompositionParameters, GlskProvider.auto(), CWE_MAPPING);
+        FlowDecompositionResults flowDecompositionResults = flowDecompositionComputer.run(network, XnecFilter.zoneBorders(CWE_MAPPING));
+
+        Map<String, DecomposedFlow> decomposedFlowMap = flowDecompositionResults.getDecomposedFlowMap();
+        assertEquals(Set.of(X1, X5), decomposedFlowMap.keySet());
+
+        Map<String, Map<String, Double>> glsks = flowDecompositionResults.getGlsksByZone().orElseThrow();
+        assertEquals(Set.of(CWE, "ES"), glsks.keySet());
+        assertEquals(0.5, glsks.get(CWE).get("FGEN  11_generator"), EPSILON);
+        assertEquals(0.5, glsks.get(CWE).get("BGEN  11_generator"), EPSILON);
+        assertEquals(Set.of(Country.ES), flowDecompositionResults.getGlsks().orElseThrow().keySet());
+        assertEquals(0.0, flowDecompositionResults.getAcNetPositionsByZone().orElseThrow().get(CWE), EPSILON);
+
+        for (DecomposedFlow decomposedFlow : decomposedFlowMap.values()) {
+            assertEquals(100, decomposedFlow.getLoopFlow(Country.ES), EPSILON);
+            assertEquals(0, decomposedFlow.getLoopFlow(CWE), EPSILON);
+            assertEquals(0, decomposedFlow.getLoopFlow(Country.FR), EPSILON);
+            assertEquals(decomposedFlow.getDcReferenceFlow(), decomposedFlow.getTotalFlow(), EPSILON);
+        }
+    }
+}